@@ -0,0 +1,151 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/*small benchmark harness for the solver. Each benchmark first runs for some warmup
+iterations, so the code is compiled by the JIT before it is measured, and then for
+some measured iterations of a fixed time. The operation is called in batches big
+enough that reading the clock does not change the result, and the value it returns
+is stored in a volatile field so the JIT cannot remove the work. For every benchmark
+the average time of an operation is printed with the standard deviation between the
+iterations, together with the bytes allocated by each operation and the garbage
+collections during the measured iterations. The allocations are only counted for
+the thread that runs the benchmark*/
+public class BenchmarkRunner {
+	// a batch is made longer until it takes at least this many nanoseconds
+	private static final long MIN_BATCH_TIME = 1000000;
+	private int warmupIterations;
+	private int measurementIterations;
+	// nanoseconds each iteration runs for
+	private long iterationTime;
+	// only the benchmarks with a name that contains this text are run, all of them
+	// when it is null
+	private String filter;
+	private com.sun.management.ThreadMXBean threadBean;
+	// the results of the operations are stored here so they are not removed
+	private volatile Object lastResult;
+	private volatile double lastValue;
+
+	// create a runner with the number of warmup and measured iterations and the
+	// milliseconds each iteration runs for
+	public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = measurementIterations;
+		this.iterationTime = iterationMillis * 1000000;
+		this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		if (threadBean.isThreadAllocatedMemorySupported()) {
+			threadBean.setThreadAllocatedMemoryEnabled(true);
+		}
+	}
+
+	// print the names of the columns of the results
+	public void printHeader() {
+		System.out.printf("%-40s %14s %12s %14s %6s %8s%n", "Benchmark", "ns/op", "+-", "B/op", "GCs", "GC ms");
+	}
+
+	// run a benchmark of an operation that returns an object
+	public void run(String name, Supplier<Object> operation) {
+		measure(name, () -> lastResult = operation.get());
+	}
+
+	// run a benchmark of an operation that returns a number, without boxing it
+	public void runValue(String name, DoubleSupplier operation) {
+		measure(name, () -> lastValue = operation.getAsDouble());
+	}
+
+	// run the warmup and measured iterations of an operation and print the results
+	private void measure(String name, Runnable operation) {
+		if (filter != null && !name.contains(filter)) {
+			return;
+		}
+		// the batch grows during the warmup until it is long enough to be timed
+		long batchSize = 1;
+		for (int iteration = 0; iteration < warmupIterations; iteration++) {
+			long startTime = System.nanoTime();
+			while (System.nanoTime() - startTime < iterationTime) {
+				long batchStart = System.nanoTime();
+				runBatch(operation, batchSize);
+				if (System.nanoTime() - batchStart < MIN_BATCH_TIME) {
+					batchSize *= 2;
+				}
+			}
+		}
+		double[] times = new double[measurementIterations];
+		long totalOperations = 0;
+		long startCollections = getCollectionCount();
+		long startCollectionTime = getCollectionTime();
+		long startAllocated = getAllocatedBytes();
+		for (int iteration = 0; iteration < measurementIterations; iteration++) {
+			long operations = 0;
+			long startTime = System.nanoTime();
+			long elapsedTime;
+			do {
+				runBatch(operation, batchSize);
+				operations += batchSize;
+				elapsedTime = System.nanoTime() - startTime;
+			} while (elapsedTime < iterationTime);
+			times[iteration] = (double) elapsedTime / operations;
+			totalOperations += operations;
+		}
+		long allocated = startAllocated < 0 ? -1 : getAllocatedBytes() - startAllocated;
+		long collections = getCollectionCount() - startCollections;
+		long collectionTime = getCollectionTime() - startCollectionTime;
+		double mean = 0.0;
+		for (int iteration = 0; iteration < measurementIterations; iteration++) {
+			mean += times[iteration] / measurementIterations;
+		}
+		double variance = 0.0;
+		for (int iteration = 0; iteration < measurementIterations; iteration++) {
+			variance += (times[iteration] - mean) * (times[iteration] - mean);
+		}
+		double deviation = measurementIterations > 1 ? Math.sqrt(variance / (measurementIterations - 1)) : 0.0;
+		System.out.printf("%-40s %14.1f %12.1f %14.1f %6d %8d%n", name, mean, deviation,
+				allocated < 0 ? Double.NaN : (double) allocated / totalOperations, collections, collectionTime);
+	}
+
+	// call an operation the given number of times
+	private static void runBatch(Runnable operation, long batchSize) {
+		for (long index = 0; index < batchSize; index++) {
+			operation.run();
+		}
+	}
+
+	// bytes allocated by the current thread, or -1 when the JVM does not count them
+	private long getAllocatedBytes() {
+		if (!threadBean.isThreadAllocatedMemorySupported()) {
+			return -1;
+		}
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// number of garbage collections since the JVM started, adding every collector
+	private static long getCollectionCount() {
+		long count = 0;
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean collector : collectors) {
+			count += Math.max(0, collector.getCollectionCount());
+		}
+		return count;
+	}
+
+	// milliseconds spent in garbage collections since the JVM started
+	private static long getCollectionTime() {
+		long time = 0;
+		List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean collector : collectors) {
+			time += Math.max(0, collector.getCollectionTime());
+		}
+		return time;
+	}
+
+	// set the text the names of the benchmarks to run must contain
+	public void setFilter(String filter) {
+		this.filter = filter;
+	}
+
+	public String getFilter() {
+		return filter;
+	}
+}
@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*load generator for the HTTP server of the solver. Several clients post the cities
+of the given files to the server as fast as they can, each waiting for its answer
+before sending the next request, and at the end the number of answers with each
+status, the requests answered per second and the 50th and 99th percentiles of the
+latency are printed. With --unique every request adds a different number at the end
+of its first line, which the solver ignores, so the same cities are not coalesced
+by the server. For example
+java LoadGenerator http://localhost:8080/solve?time-limit=1 test1-23.txt test2-23.txt
+--requests=1000 --clients=16*/
+public class LoadGenerator {
+
+	public static void main(String[] args) throws IOException, InterruptedException {
+		String url = null;
+		List<byte[]> bodies = new ArrayList<>();
+		int numRequests = 100;
+		int numClients = 8;
+		boolean unique = false;
+		for (int index = 0; index < args.length; index++) {
+			if (args[index].startsWith("--requests=")) {
+				numRequests = Integer.parseInt(args[index].substring("--requests=".length()));
+			} else if (args[index].startsWith("--clients=")) {
+				numClients = Integer.parseInt(args[index].substring("--clients=".length()));
+			} else if (args[index].equals("--unique")) {
+				unique = true;
+			} else if (args[index].startsWith("--")) {
+				throw new IllegalArgumentException("Unknown option " + args[index]);
+			} else if (url == null) {
+				url = args[index];
+			} else {
+				bodies.add(Files.readAllBytes(Paths.get(args[index])));
+			}
+		}
+		if (url == null || bodies.isEmpty()) {
+			throw new IllegalArgumentException("Give the URL of the server and at least one file");
+		}
+		HttpClient client = HttpClient.newHttpClient();
+		URI uri = URI.create(url);
+		AtomicInteger nextRequest = new AtomicInteger();
+		Map<Integer, Integer> statuses = new TreeMap<>();
+		List<Long> latencies = new ArrayList<>();
+		int requests = numRequests;
+		boolean uniqueBodies = unique;
+		ExecutorService clients = Executors.newFixedThreadPool(numClients);
+		long startTime = System.nanoTime();
+		for (int clientIndex = 0; clientIndex < numClients; clientIndex++) {
+			clients.execute(() -> {
+				int request;
+				while ((request = nextRequest.getAndIncrement()) < requests) {
+					byte[] body = bodies.get(request % bodies.size());
+					if (uniqueBodies) {
+						body = addRequestNumber(body, request);
+					}
+					long requestStart = System.nanoTime();
+					int status;
+					try {
+						HttpRequest httpRequest = HttpRequest.newBuilder(uri)
+								.POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+						status = client.send(httpRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+					} catch (IOException requestError) {
+						status = -1;
+					} catch (InterruptedException interruptedError) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					long latency = System.nanoTime() - requestStart;
+					synchronized (statuses) {
+						statuses.merge(status, 1, Integer::sum);
+						latencies.add(latency);
+					}
+				}
+			});
+		}
+		clients.shutdown();
+		clients.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+		System.out.printf("Requests: %d in %d ms (%.1f requests/s)%n", latencies.size(), elapsedTime,
+				latencies.size() * 1000.0 / Math.max(1, elapsedTime));
+		for (Map.Entry<Integer, Integer> status : statuses.entrySet()) {
+			String name = status.getKey() < 0 ? "connection error" : "status " + status.getKey();
+			System.out.println(name + ": " + status.getValue());
+		}
+		System.out.printf("Latency: p50 %.2f ms, p99 %.2f ms%n", BatchSolver.percentile(latencies, 50) / 1e6,
+				BatchSolver.percentile(latencies, 99) / 1e6);
+	}
+
+	// add the number of the request as an extra value at the end of the first line
+	private static byte[] addRequestNumber(byte[] body, int request) {
+		String text = new String(body, StandardCharsets.US_ASCII);
+		int lineEnd = text.indexOf('\n');
+		if (lineEnd < 0) {
+			lineEnd = text.length();
+		}
+		if (lineEnd > 0 && text.charAt(lineEnd - 1) == '\r') {
+			lineEnd--;
+		}
+		return (text.substring(0, lineEnd) + " " + request + text.substring(lineEnd)).getBytes(StandardCharsets.US_ASCII);
+	}
+}
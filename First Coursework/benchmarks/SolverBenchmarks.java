@@ -0,0 +1,239 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/*benchmarks of the parts of the solver that take most of the time: creating the
+distance matrix, calculating the lower bound of a vertex, generating the vertices of
+a vertex and calculating the length of a route, and branch and bound from the cities
+to the shortest route on the test files and on random problems of increasing size,
+repairing a route after a city changes, and reading the cities from the text and
+the binary files.
+The files are read and the problems are set up before the timing starts, so only
+the solver is measured. They are run from the folder with the test files, and the
+options are a part of the name of the benchmarks to run and --quick, which runs
+fewer and shorter iterations to check that they work*/
+public class SolverBenchmarks {
+	// coordinates of the random cities are between 0 and this value, like the
+	// coordinates of the test files
+	private static final int RANDOM_RANGE = 50000;
+	// seed of the random problems, so every run solves the same problems
+	private static final long RANDOM_SEED = 23;
+	private static final String[] TEST_FILES = { "test1-23.txt", "test2-23.txt", "test3-23.txt",
+			"test4-23.txt" };
+	// sizes of the random problems solved by branch and bound
+	private static final int[] RANDOM_SIZES = { 10, 15, 20, 25, 30 };
+
+	// create a problem with cities at random coordinates
+	public static CityStore randomCities(int numCities, long seed) {
+		Random random = new Random(seed);
+		int[] cityNumbers = new int[numCities];
+		int[] xPositions = new int[numCities];
+		int[] yPositions = new int[numCities];
+		for (int city = 0; city < numCities; city++) {
+			cityNumbers[city] = city + 1;
+			xPositions[city] = random.nextInt(RANDOM_RANGE);
+			yPositions[city] = random.nextInt(RANDOM_RANGE);
+		}
+		return new CityStore(cityNumbers, xPositions, yPositions);
+	}
+
+	// benchmarks of creating the distance matrix, and the closest cities of every
+	// city that replace it for big problems
+	public static void distanceMatrix(BenchmarkRunner runner, CityStore cities) {
+		CityStore bigCities = randomCities(1000, RANDOM_SEED);
+		CityStore hugeCities = randomCities(100000, RANDOM_SEED);
+		runner.run("distance-matrix/test4", () -> Main.generateDistanceMatrix(cities));
+		runner.run("distance-matrix/random-1000", () -> Main.generateDistanceMatrix(bigCities));
+		runner.run("neighbour-distances/random-1000", () -> new NeighbourDistances(bigCities, 10));
+		runner.run("neighbour-distances/random-100000", () -> new NeighbourDistances(hugeCities, 10));
+	}
+
+	// benchmarks of reading the last test file and a big problem from text files and
+	// from binary files, which are written to a temporary folder first
+	public static void readFiles(BenchmarkRunner runner, String testFile) throws IOException {
+		Path folder = Files.createTempDirectory("benchmarks");
+		String bigTextFile = folder.resolve("random-100000.txt").toString();
+		CityStore hugeCities = randomCities(100000, RANDOM_SEED);
+		StringBuilder lines = new StringBuilder();
+		for (int city = 0; city < hugeCities.getSize(); city++) {
+			lines.append(hugeCities.getCityNumber(city)).append(' ').append(hugeCities.getXPosition(city)).append(' ')
+					.append(hugeCities.getYPosition(city)).append('\n');
+		}
+		Files.write(Path.of(bigTextFile), lines.toString().getBytes());
+		String binaryFile = folder.resolve("test4" + BinaryCityFile.EXTENSION).toString();
+		BinaryCityFile.write(binaryFile, CityFileReader.read(testFile), null, null);
+		String bigBinaryFile = Main.convertFile(bigTextFile, 0, false);
+		try {
+			runner.run("read/text/test4", () -> readCities(testFile));
+			runner.run("read/binary/test4", () -> readCities(binaryFile));
+			runner.run("read/text/random-100000", () -> readCities(bigTextFile));
+			runner.run("read/binary/random-100000", () -> readCities(bigBinaryFile));
+		} finally {
+			Files.delete(Path.of(bigTextFile));
+			Files.delete(Path.of(binaryFile));
+			Files.delete(Path.of(bigBinaryFile));
+			Files.delete(folder);
+		}
+	}
+
+	// read the cities of a file in a benchmark, which cannot throw an IOException
+	private static CityStore readCities(String fileName) {
+		try {
+			return CityFileReader.read(fileName);
+		} catch (IOException readingError) {
+			throw new UncheckedIOException(readingError);
+		}
+	}
+
+	/*
+	 * benchmarks of a lower bound: the bound of the initial city, which is calculated
+	 * from the beginning, and the bound of a city added after it, which starts from
+	 * the values of the initial city
+	 */
+	public static void bound(BenchmarkRunner runner, DistanceMatrix distanceMatrix, String boundName) {
+		SearchState rootState = new SearchState(distanceMatrix, Main.createBound(boundName));
+		runner.runValue("bound/" + boundName + "-root/test4", () -> {
+			rootState.clear();
+			rootState.push(0);
+			return rootState.getCost();
+		});
+		SearchState childState = new SearchState(distanceMatrix, Main.createBound(boundName));
+		childState.push(0);
+		runner.runValue("bound/" + boundName + "-child/test4", () -> {
+			childState.push(1);
+			double cost = childState.getCost();
+			childState.pop();
+			return cost;
+		});
+	}
+
+	/*
+	 * benchmarks of the reduction bound of the initial city and of the next city
+	 * with the scalar kernel and, when the JVM has the Vector API, with the vector
+	 * kernel. SolverTests checks that the kernels give exactly the same bounds
+	 */
+	public static void reductionKernels(BenchmarkRunner runner, DistanceMatrix distanceMatrix) {
+		ReductionKernel scalarKernel = new ScalarReductionKernel();
+		ReductionKernel defaultKernel = ReductionKernel.create();
+		ReductionKernel[] kernels = defaultKernel instanceof ScalarReductionKernel
+				? new ReductionKernel[] { scalarKernel }
+				: new ReductionKernel[] { scalarKernel, defaultKernel };
+		for (int index = 0; index < kernels.length; index++) {
+			String kernelName = kernels[index] == scalarKernel ? "scalar" : "vector";
+			SearchState state = new SearchState(distanceMatrix, new ReductionBound(kernels[index]));
+			runner.runValue("reduction-kernel/" + kernelName + "-root/test4", () -> {
+				state.clear();
+				state.push(0);
+				return state.getCost();
+			});
+			state.clear();
+			state.push(0);
+			runner.runValue("reduction-kernel/" + kernelName + "-child/test4", () -> {
+				state.push(1);
+				double cost = state.getCost();
+				state.pop();
+				return cost;
+			});
+		}
+	}
+
+	// benchmark of generating the vertices of the initial vertex
+	public static void generateVertices(BenchmarkRunner runner, DistanceMatrix distanceMatrix, String boundName) {
+		SearchState state = new SearchState(distanceMatrix, Main.createBound(boundName));
+		state.push(0);
+		Vertex root = Vertex.fromState(null, state);
+		runner.run("generate-vertices/" + boundName + "/test4", () -> Main.generateVertecies(state, root));
+	}
+
+	// benchmarks of calculating the length of a route
+	public static void pathLength(BenchmarkRunner runner, CityStore cities) {
+		CityList route = cities.toCityList();
+		CityList bigRoute = randomCities(100000, RANDOM_SEED).toCityList();
+		runner.runValue("path-length/test4", route::calculatePathLength);
+		runner.runValue("path-length/random-100000", bigRoute::calculatePathLength);
+	}
+
+	/*
+	 * benchmarks of branch and bound from the cities to the shortest route. Best
+	 * first search with the reduction bound reaches its memory limit on the fourth
+	 * test file before proving the route, so it only runs on the first three, and
+	 * with the one-tree bound, which is the default bound, it runs on every file and
+	 * on the random problems
+	 */
+	public static void branchAndBound(BenchmarkRunner runner, CityList[] testCities) {
+		SolverOptions reductionOptions = new SolverOptions();
+		reductionOptions.setStrategy(Main.BEST_FIRST);
+		reductionOptions.setBound(Main.REDUCTION_BOUND);
+		for (int index = 0; index < testCities.length - 1; index++) {
+			CityList cities = testCities[index];
+			runner.run("branch-and-bound/reduction/test" + (index + 1), () -> Main.solve(cities, reductionOptions));
+		}
+		SolverOptions options = new SolverOptions();
+		options.setStrategy(Main.BEST_FIRST);
+		options.setBound(Main.ONE_TREE_BOUND);
+		for (int index = 0; index < testCities.length; index++) {
+			CityStore cities = CityStore.fromCityList(testCities[index]);
+			runner.run("branch-and-bound/one-tree/test" + (index + 1), () -> Main.solve(cities, options));
+		}
+		for (int index = 0; index < RANDOM_SIZES.length; index++) {
+			CityStore cities = randomCities(RANDOM_SIZES[index], RANDOM_SEED);
+			runner.run("branch-and-bound/one-tree/random-" + RANDOM_SIZES[index], () -> Main.solve(cities, options));
+		}
+	}
+
+	/*
+	 * benchmarks of repairing the route of a random problem of 30 cities with the
+	 * incremental solver, after moving a random city and after adding a city and
+	 * removing it again
+	 */
+	public static void incremental(BenchmarkRunner runner) {
+		SolverOptions options = new SolverOptions();
+		// the reduction bound does not prove 30 random cities in the memory of the JVM
+		options.setBound(Main.ONE_TREE_BOUND);
+		CityStore cities = randomCities(30, RANDOM_SEED);
+		IncrementalSolver solver = new IncrementalSolver(Main.solve(cities, options), options);
+		Random random = new Random(RANDOM_SEED);
+		runner.run("incremental/move/random-30", () -> solver.moveCity(cities.getCityNumber(random.nextInt(30)),
+				random.nextInt(RANDOM_RANGE), random.nextInt(RANDOM_RANGE)));
+		runner.run("incremental/add-remove/random-30", () -> {
+			solver.addCity(0, random.nextInt(RANDOM_RANGE), random.nextInt(RANDOM_RANGE));
+			return solver.removeCity(0);
+		});
+	}
+
+	// read the test files and run the benchmarks selected by the options
+	public static void main(String[] args) throws IOException {
+		BenchmarkRunner runner = new BenchmarkRunner(5, 5, 1000);
+		for (int index = 0; index < args.length; index++) {
+			if (args[index].equals("--quick")) {
+				runner = new BenchmarkRunner(1, 2, 100);
+			} else if (args[index].startsWith("--")) {
+				throw new IllegalArgumentException("Unknown option " + args[index]);
+			}
+		}
+		for (int index = 0; index < args.length; index++) {
+			if (!args[index].startsWith("--")) {
+				runner.setFilter(args[index]);
+			}
+		}
+		CityList[] testCities = new CityList[TEST_FILES.length];
+		for (int index = 0; index < TEST_FILES.length; index++) {
+			testCities[index] = Main.readFile(TEST_FILES[index]);
+		}
+		CityStore cities = CityStore.fromCityList(testCities[testCities.length - 1]);
+		DistanceMatrix distanceMatrix = Main.generateDistanceMatrix(cities);
+		runner.printHeader();
+		distanceMatrix(runner, cities);
+		bound(runner, distanceMatrix, Main.REDUCTION_BOUND);
+		bound(runner, distanceMatrix, Main.ONE_TREE_BOUND);
+		reductionKernels(runner, distanceMatrix);
+		generateVertices(runner, distanceMatrix, Main.REDUCTION_BOUND);
+		generateVertices(runner, distanceMatrix, Main.ONE_TREE_BOUND);
+		pathLength(runner, cities);
+		branchAndBound(runner, testCities);
+		incremental(runner);
+		readFiles(runner, TEST_FILES[TEST_FILES.length - 1]);
+	}
+}
@@ -0,0 +1,207 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/*solver for many problems at the same time in one JVM. The files of the problems are
+given one after the other, and each one is read and solved by a thread of a fixed
+pool, one thread for each processor by default, using one thread for the problem
+itself.
+Only a few problems for each thread are read ahead, so a long list of files does not
+fill the memory. The result of each problem is printed in the order the files were
+given: a result that finishes early waits in a table until the results before it
+are printed, so the thread that solved it can go on with the next problem. A file
+that cannot be solved prints an error instead of stopping the others, and at the end
+the number of problems solved per second and the latencies are printed*/
+public class BatchSolver {
+	// number of problems read ahead for each thread
+	private static final int QUEUED_PER_THREAD = 4;
+	private SolverOptions options;
+	private int numThreads;
+	private PrintStream out;
+	// lines of the results that wait for the results before them
+	private Map<Integer, String> finishedLines;
+	private int nextLine;
+	private int numSolved;
+	private int numFailed;
+	// nanoseconds from when each problem was given until its result was ready, and
+	// the nanoseconds spent reading and solving it
+	private List<Long> latencies;
+	private List<Long> solveTimes;
+	private long elapsedTime;
+
+	/*
+	 * create a batch solver with the options used for every problem and the number
+	 * of threads. The memory limit of the options, half of the heap by default, is
+	 * shared by the problems solved at the same time, and each problem gets its own
+	 * control, no metrics and no checkpoints
+	 */
+	public BatchSolver(SolverOptions options, int numThreads, PrintStream out) {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("The batch needs at least 1 thread");
+		}
+		this.options = new SolverOptions(options);
+		this.options.setParallelism(1);
+		this.options.setMemoryLimit(options.getMemoryLimit() / numThreads);
+		this.options.setControl(null);
+		this.options.setMetrics(null);
+		this.options.setCheckpointFile(null);
+		this.numThreads = numThreads;
+		this.out = out;
+		this.finishedLines = new HashMap<>();
+		this.latencies = new ArrayList<>();
+		this.solveTimes = new ArrayList<>();
+	}
+
+	// list the files of a directory sorted by name
+	public static List<String> listFiles(String directoryName) throws IOException {
+		File[] files = new File(directoryName).listFiles(File::isFile);
+		if (files == null) {
+			throw new IOException(directoryName + " is not a directory");
+		}
+		Arrays.sort(files);
+		List<String> fileNames = new ArrayList<>();
+		for (File file : files) {
+			fileNames.add(file.getPath());
+		}
+		return fileNames;
+	}
+
+	// solve the problems of the given files, waiting until all the results are printed
+	public void solveAll(Iterator<String> fileNames) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		Semaphore queuedProblems = new Semaphore(numThreads * QUEUED_PER_THREAD);
+		long startTime = System.nanoTime();
+		int position = 0;
+		try {
+			while (fileNames.hasNext()) {
+				String fileName = fileNames.next().trim();
+				if (fileName.isEmpty()) {
+					continue;
+				}
+				queuedProblems.acquire();
+				int line = position;
+				long queuedTime = System.nanoTime();
+				executor.execute(() -> {
+					try {
+						solveProblem(fileName, line, queuedTime);
+					} finally {
+						queuedProblems.release();
+					}
+				});
+				position++;
+			}
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		elapsedTime = (System.nanoTime() - startTime) / 1000000;
+	}
+
+	// read and solve the problem of a file and print its result when its turn comes.
+	// An error such as running out of memory still gives the file its line before
+	// it is thrown, so the lines after it are printed
+	private void solveProblem(String fileName, int line, long queuedTime) {
+		long startTime = System.nanoTime();
+		String result = null;
+		boolean solved = false;
+		try {
+			SolverResult solverResult = Main.solve(fileName, options);
+			long solveTime = (System.nanoTime() - startTime) / 1000000;
+			result = formatResult(fileName, solverResult, solveTime);
+			solved = true;
+		} catch (IOException | RuntimeException solvingError) {
+			result = fileName + " | error: " + solvingError.getMessage();
+		} finally {
+			if (result == null) {
+				result = fileName + " | error: the problem could not be solved";
+			}
+			long endTime = System.nanoTime();
+			finish(line, result, solved, endTime - queuedTime, endTime - startTime);
+		}
+	}
+
+	// create the line with the result of a problem, with the route going back to the
+	// initial city
+	public static String formatResult(String fileName, SolverResult result, long solveTime) {
+		StringBuilder line = new StringBuilder();
+		line.append(fileName).append(String.format(" | cost %.2f | %d ms | ", result.getCost(), solveTime));
+		int[] cityNumbers = result.getCityNumbers();
+		for (int index = 0; index < cityNumbers.length; index++) {
+			line.append(cityNumbers[index]).append(" => ");
+		}
+		if (cityNumbers.length > 0) {
+			line.append(cityNumbers[0]);
+		}
+		if (!result.isOptimal()) {
+			line.append(String.format(" | not proven optimal, gap %.2f%%", 100.0 * result.getGap()));
+		}
+		return line.toString();
+	}
+
+	// store the result of a problem and print every result that is ready in order
+	private synchronized void finish(int line, String result, boolean solved, long latency, long solveTime) {
+		if (solved) {
+			numSolved++;
+		} else {
+			numFailed++;
+		}
+		latencies.add(latency);
+		solveTimes.add(solveTime);
+		finishedLines.put(line, result);
+		while (finishedLines.containsKey(nextLine)) {
+			out.println(finishedLines.remove(nextLine));
+			nextLine++;
+		}
+	}
+
+	// print the number of problems, the problems solved per second and the 50th and
+	// 99th percentiles of the latency and of the time to solve a problem
+	public synchronized void printSummary(PrintStream summaryOut) {
+		int numProblems = numSolved + numFailed;
+		summaryOut.printf("Problems: %d solved, %d failed in %d ms (%.1f problems/s)%n", numSolved, numFailed,
+				elapsedTime, numProblems * 1000.0 / Math.max(1, elapsedTime));
+		summaryOut.printf("Latency: p50 %.2f ms, p99 %.2f ms%n", percentile(latencies, 50) / 1e6,
+				percentile(latencies, 99) / 1e6);
+		summaryOut.printf("Solve Time: p50 %.2f ms, p99 %.2f ms%n", percentile(solveTimes, 50) / 1e6,
+				percentile(solveTimes, 99) / 1e6);
+	}
+
+	// returns the value below which the given percent of the values are, or 0 when
+	// there are no values
+	public static long percentile(List<Long> values, int percent) {
+		if (values.isEmpty()) {
+			return 0;
+		}
+		long[] sortedValues = new long[values.size()];
+		for (int index = 0; index < sortedValues.length; index++) {
+			sortedValues[index] = values.get(index);
+		}
+		Arrays.sort(sortedValues);
+		int rank = (int) Math.ceil(percent / 100.0 * sortedValues.length);
+		return sortedValues[Math.max(0, rank - 1)];
+	}
+
+	// getters for the number of problems solved and failed and the milliseconds the
+	// batch took
+	public synchronized int getNumSolved() {
+		return numSolved;
+	}
+
+	public synchronized int getNumFailed() {
+		return numFailed;
+	}
+
+	public synchronized long getElapsedTime() {
+		return elapsedTime;
+	}
+}
@@ -0,0 +1,202 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/*best first branch and bound. The open vertices are kept in a heap ordered by cost and
+the vertex with the lowest cost is always explored next. The cost of a complete vertex
+is the length of its route, so the best route found so far is used to discard every
+new vertex with a cost that is not lower. Vertices stored before a better route was
+found are discarded when they reach the top of the heap, and as the heap is ordered by
+cost the search ends there because no open vertex can improve the best route. When
+the control of the search stops it, the vertex with the lowest cost is the lower
+bound of the routes that were not explored.
+With a checkpoint writer the open vertices are copied every few seconds and written
+to a file while the search goes on, and a search can start from the open vertices of
+a checkpoint instead of the initial city. The paths of the vertices read share their
+vertices, so the vertices explored before are created once*/
+public class BestFirstSearch {
+	// estimated bytes of an open vertex and its place in the heap
+	private static final long VERTEX_BYTES = 56;
+	// number of vertices explored between two checks of the time of the checkpoint
+	private static final long CHECKPOINT_CHECK_INTERVAL = 1024;
+	private SearchState state;
+	private Incumbent incumbent;
+	private SearchCounters counters;
+	private SearchControl control;
+	// writer of the checkpoints, or null for none
+	private CheckpointWriter checkpointWriter;
+	// checkpoint the search starts from, or null to start from the initial city
+	private SearchCheckpoint resumeCheckpoint;
+
+	// create a best first search for a search state
+	public BestFirstSearch(SearchState state, Incumbent incumbent) {
+		this.state = state;
+		this.incumbent = incumbent;
+		this.counters = new SearchCounters(state);
+	}
+
+	// run the search starting from the given city and return the best route found
+	public int[] solve(int initialCity) {
+		int numCities = state.getNumCities();
+		state.clear();
+		// create the initial point of the route
+		state.push(initialCity);
+		Vertex initialVertex = Vertex.fromState(null, state);
+		VertexHeap openVertecies = new VertexHeap();
+		if (resumeCheckpoint != null) {
+			resume(initialVertex, openVertecies);
+		} else if (initialVertex.isComplete(numCities)) {
+			incumbent.offer(state);
+		} else {
+			openVertecies.add(initialVertex);
+			counters.frontierChanged(1);
+		}
+		long nextCheckpoint = checkpointWriter == null ? 0
+				: System.nanoTime() + checkpointWriter.getInterval() * 1000000;
+		// vertex left unexplored when the search is stopped
+		Vertex stoppedVertex = null;
+		while (!openVertecies.isEmpty()) {
+			Vertex currentVertex = openVertecies.poll();
+			counters.frontierChanged(-1);
+			// the vertex with the lowest cost cannot improve the best route
+			if (currentVertex.getCost() >= incumbent.getCost()) {
+				counters.pruned(1 + openVertecies.getSize());
+				counters.frontierChanged(-openVertecies.getSize());
+				break;
+			}
+			if (counters.shouldStop(estimateMemory(openVertecies))) {
+				control.addOpenBound(currentVertex.getCost());
+				stoppedVertex = currentVertex;
+				break;
+			}
+			counters.expanded();
+			if (checkpointWriter != null && counters.getNodesExpanded() % CHECKPOINT_CHECK_INTERVAL == 0
+					&& System.nanoTime() > nextCheckpoint) {
+				// the vertex being explored is written with the open vertices
+				checkpointWriter.submit(createCheckpoint(openVertecies, currentVertex));
+				nextCheckpoint = System.nanoTime() + checkpointWriter.getInterval() * 1000000;
+			}
+			Vertex nextVertecies[] = Main.generateVertecies(state, currentVertex);
+			counters.generated(nextVertecies.length);
+			for (int index = 0; index < nextVertecies.length; index++) {
+				Vertex nextVertex = nextVertecies[index];
+				if (nextVertex.getCost() >= incumbent.getCost()) {
+					counters.pruned(1);
+					continue;
+				}
+				if (nextVertex.isComplete(numCities)) {
+					// store the new best route
+					incumbent.offer(nextVertex.getCost(), nextVertex.getPath());
+				} else {
+					openVertecies.add(nextVertex);
+					counters.frontierChanged(1);
+				}
+			}
+		}
+		counters.flush();
+		counters.checkControl(0);
+		if (checkpointWriter != null) {
+			if (stoppedVertex == null) {
+				checkpointWriter.delete();
+			} else {
+				checkpointWriter.finish(createCheckpoint(openVertecies, stoppedVertex));
+			}
+		}
+		return incumbent.getPath();
+	}
+
+	// create a checkpoint with the counts, the best route and a copy of the open
+	// vertices together with the vertex taken from the heap
+	private SearchCheckpoint createCheckpoint(VertexHeap openVertecies, Vertex currentVertex) {
+		Vertex[] vertices = openVertecies.toArray(1);
+		vertices[vertices.length - 1] = currentVertex;
+		return new SearchCheckpoint(checkpointWriter.getProblemHash(), counters.getNodesGenerated(),
+				counters.getNodesExpanded(), counters.getNodesPruned(), incumbent.getCost(), incumbent.getPath(),
+				vertices);
+	}
+
+	/*
+	 * add the open vertices of the checkpoint to the heap, with the counts and the
+	 * best route of the checkpoint. The vertices of the paths are found in a table
+	 * of the vertices created for every vertex, so two paths with the same start
+	 * share the vertices of the start, which are created from the search state with
+	 * their cost and the values of their bound like the vertices explored
+	 */
+	private void resume(Vertex initialVertex, VertexHeap openVertecies) {
+		int numCities = state.getNumCities();
+		Map<Vertex, Vertex[]> children = new HashMap<>();
+		for (int index = 0; index < resumeCheckpoint.getNumOpen(); index++) {
+			int length = resumeCheckpoint.getPathLength(index);
+			if (resumeCheckpoint.getPathCity(index, 0) != initialVertex.getCity()) {
+				throw new IllegalArgumentException("The checkpoint starts from another city");
+			}
+			Vertex vertex = initialVertex;
+			for (int level = 1; level < length - 1; level++) {
+				int city = resumeCheckpoint.getPathCity(index, level);
+				Vertex[] vertexChildren = children.computeIfAbsent(vertex, parent -> new Vertex[numCities]);
+				if (vertexChildren[city] == null) {
+					state.restore(vertex);
+					state.push(city);
+					vertexChildren[city] = Vertex.fromState(vertex, state);
+				}
+				vertex = vertexChildren[city];
+			}
+			if (length > 1) {
+				vertex = new Vertex(vertex, resumeCheckpoint.getPathCity(index, length - 1),
+						resumeCheckpoint.getCost(index));
+			}
+			openVertecies.add(vertex);
+		}
+		counters.frontierChanged(openVertecies.getSize());
+		counters.restore(resumeCheckpoint.getNodesGenerated(), resumeCheckpoint.getNodesExpanded(),
+				resumeCheckpoint.getNodesPruned());
+		if (resumeCheckpoint.getIncumbentPath() != null) {
+			incumbent.offer(resumeCheckpoint.getIncumbentCost(), resumeCheckpoint.getIncumbentPath());
+		}
+		resumeCheckpoint = null;
+	}
+
+	/*
+	 * estimate the bytes used by the search: every open vertex, and the values of
+	 * the lower bound kept by every vertex explored, which stay in memory while the
+	 * vertices generated from it are open
+	 */
+	private long estimateMemory(VertexHeap openVertecies) {
+		int stateSize = state.getBound().getStateSize(state.getNumCities());
+		return openVertecies.getSize() * VERTEX_BYTES + counters.getNodesExpanded() * (16 + 8L * stateSize);
+	}
+
+	// set the control that can stop the search, or null for none
+	public void setControl(SearchControl control) {
+		this.control = control;
+		counters.setControl(control);
+	}
+
+	// set the writer of the checkpoints of the search, or null for none
+	public void setCheckpointWriter(CheckpointWriter checkpointWriter) {
+		this.checkpointWriter = checkpointWriter;
+	}
+
+	// start the next search from the open vertices of a checkpoint
+	public void setResumeCheckpoint(SearchCheckpoint resumeCheckpoint) {
+		this.resumeCheckpoint = resumeCheckpoint;
+	}
+
+	// set the metrics the counts of the search are added to, or null for none
+	public void setMetrics(SearchMetrics metrics) {
+		counters.setMetrics(metrics);
+	}
+
+	// getters for the best route, the counts of the search and the number of
+	// vertices explored
+	public Incumbent getIncumbent() {
+		return incumbent;
+	}
+
+	public SearchCounters getCounters() {
+		return counters;
+	}
+
+	public long getNodesExpanded() {
+		return counters.getNodesExpanded();
+	}
+}
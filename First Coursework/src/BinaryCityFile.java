@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*binary file of the cities of a problem, which is read much faster than the text
+files because nothing has to be parsed. After a header with the version of the
+format, the number of cities and what else is in the file come the city numbers,
+the x coordinates and the y coordinates as arrays of little endian ints, then the
+closest cities of every city when they are kept, and the distances of a distance
+matrix when it is kept, starting at a multiple of 8 bytes. The cities of a problem
+given by a distance matrix have no coordinates, which the header says as well.
+The file is mapped into memory and every array is copied at once from the mapped
+bytes, so a problem is loaded in the time it takes to copy its arrays. The file is
+written to a temporary file that then replaces the old one at once, so a program
+reading it never finds half a file*/
+public class BinaryCityFile {
+	// the bytes "TSPB" at the start of the file read as a little endian int, and
+	// the version of the format
+	private static final int MAGIC = 0x42505354;
+	private static final int VERSION = 1;
+	// header of magic, version, flags, number of cities, number of closest cities
+	// and an unused int
+	private static final int HEADER_SIZE = 6 * Integer.BYTES;
+	// flags of the header: the file has a distance matrix, which is packed or
+	// symmetric
+	private static final int HAS_MATRIX = 1;
+	private static final int PACKED_MATRIX = 2;
+	private static final int SYMMETRIC_MATRIX = 4;
+	// flag of the header for cities without coordinates
+	private static final int NO_COORDINATES = 8;
+	private static final int BUFFER_SIZE = 1 << 16;
+	// extension of the binary files
+	public static final String EXTENSION = ".tspb";
+	private CityStore cities;
+	// closest cities of every city, or null when the file does not have them
+	private int[][] neighbours;
+	// distance matrix, or null when the file does not have one
+	private DistanceMatrix distanceMatrix;
+
+	private BinaryCityFile(CityStore cities, int[][] neighbours, DistanceMatrix distanceMatrix) {
+		this.cities = cities;
+		this.neighbours = neighbours;
+		this.distanceMatrix = distanceMatrix;
+	}
+
+	// check if the bytes of a file start like a binary file
+	public static boolean isBinary(ByteBuffer bytes) {
+		return bytes.limit() >= Integer.BYTES
+				&& bytes.duplicate().order(ByteOrder.LITTLE_ENDIAN).getInt(0) == MAGIC;
+	}
+
+	// read a binary file
+	public static BinaryCityFile read(String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(fileName + " is bigger than 2 GB");
+			}
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(fileName, bytes);
+		}
+	}
+
+	/*
+	 * read the bytes of a binary file, checking the header and that the file is as
+	 * long as the arrays it says it has
+	 */
+	public static BinaryCityFile read(String fileName, ByteBuffer bytes) throws IOException {
+		bytes.order(ByteOrder.LITTLE_ENDIAN);
+		if (bytes.limit() < HEADER_SIZE || bytes.getInt(0) != MAGIC) {
+			throw new IOException(fileName + " is not a binary city file");
+		}
+		if (bytes.getInt(4) != VERSION) {
+			throw new IOException(fileName + " has version " + bytes.getInt(4) + " of the binary format, not "
+					+ VERSION);
+		}
+		int flags = bytes.getInt(8);
+		int numCities = bytes.getInt(12);
+		int numNeighbours = bytes.getInt(16);
+		if (numCities < 0 || numNeighbours < 0 || (numNeighbours > 0 && numNeighbours >= numCities)) {
+			throw new IOException(fileName + " has " + numCities + " cities and " + numNeighbours
+					+ " closest cities");
+		}
+		if ((flags & NO_COORDINATES) != 0 && (flags & HAS_MATRIX) == 0) {
+			throw new IOException(fileName + " has cities without coordinates and no distance matrix");
+		}
+		boolean packed = (flags & PACKED_MATRIX) != 0;
+		long matrixStart = matrixStart(numCities, numNeighbours);
+		long matrixLength = (flags & HAS_MATRIX) == 0 ? 0
+				: packed ? (long) numCities * (numCities - 1) / 2 : (long) numCities * numCities;
+		long expectedSize = matrixLength == 0 ? citiesEnd(numCities, numNeighbours)
+				: matrixStart + matrixLength * Double.BYTES;
+		if (bytes.limit() != expectedSize) {
+			throw new IOException(fileName + " has " + bytes.limit() + " bytes but its header says " + expectedSize);
+		}
+		int[] cityNumbers = new int[numCities];
+		int[] xPositions = new int[numCities];
+		int[] yPositions = new int[numCities];
+		int position = HEADER_SIZE;
+		bytes.position(position);
+		bytes.asIntBuffer().get(cityNumbers);
+		position += numCities * Integer.BYTES;
+		bytes.position(position);
+		bytes.asIntBuffer().get(xPositions);
+		position += numCities * Integer.BYTES;
+		bytes.position(position);
+		bytes.asIntBuffer().get(yPositions);
+		position += numCities * Integer.BYTES;
+		int[][] neighbours = null;
+		if (numNeighbours > 0) {
+			bytes.position(position);
+			IntBuffer neighbourInts = bytes.asIntBuffer();
+			neighbours = new int[numCities][numNeighbours];
+			for (int city = 0; city < numCities; city++) {
+				neighbourInts.get(neighbours[city]);
+			}
+		}
+		DistanceMatrix distanceMatrix = null;
+		if (matrixLength > 0) {
+			double[] distances = new double[(int) matrixLength];
+			bytes.position((int) matrixStart);
+			bytes.asDoubleBuffer().get(distances);
+			distanceMatrix = new DistanceMatrix(numCities, distances, packed, (flags & SYMMETRIC_MATRIX) != 0);
+		}
+		CityStore cities = (flags & NO_COORDINATES) != 0 ? CityStore.withoutCoordinates(cityNumbers)
+				: new CityStore(cityNumbers, xPositions, yPositions);
+		return new BinaryCityFile(cities, neighbours, distanceMatrix);
+	}
+
+	/*
+	 * write the cities of a problem to a binary file, with the closest cities of
+	 * every city and a distance matrix when they are not null. Cities without
+	 * coordinates need the distance matrix
+	 */
+	public static void write(String fileName, CityStore cities, int[][] neighbours, DistanceMatrix distanceMatrix)
+			throws IOException {
+		int numCities = cities.getSize();
+		int numNeighbours = neighbours == null || numCities == 0 ? 0 : neighbours[0].length;
+		int flags = 0;
+		if (!cities.hasCoordinates()) {
+			if (distanceMatrix == null) {
+				throw new IllegalArgumentException("Cities without coordinates need a distance matrix");
+			}
+			flags |= NO_COORDINATES;
+		}
+		if (distanceMatrix != null) {
+			flags |= HAS_MATRIX;
+			if (distanceMatrix.isPacked()) {
+				flags |= PACKED_MATRIX;
+			}
+			if (distanceMatrix.isSymmetric()) {
+				flags |= SYMMETRIC_MATRIX;
+			}
+		}
+		Path file = Paths.get(fileName);
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(numCities).putInt(numNeighbours).putInt(0);
+			writeInts(channel, buffer, cities.getCityNumbers());
+			writeInts(channel, buffer, cities.getXPositions());
+			writeInts(channel, buffer, cities.getYPositions());
+			if (numNeighbours > 0) {
+				for (int[] cityNeighbours : neighbours) {
+					writeInts(channel, buffer, cityNeighbours);
+				}
+			}
+			if (distanceMatrix != null) {
+				// the distances start at a multiple of 8 bytes
+				long padding = matrixStart(numCities, numNeighbours) - citiesEnd(numCities, numNeighbours);
+				ensureSpace(channel, buffer, (int) padding);
+				for (int index = 0; index < padding; index++) {
+					buffer.put((byte) 0);
+				}
+				writeDoubles(channel, buffer, distanceMatrix.getDistances());
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// write an array of ints through the buffer
+	private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values) throws IOException {
+		int index = 0;
+		while (index < values.length) {
+			ensureSpace(channel, buffer, Integer.BYTES);
+			int count = Math.min(values.length - index, buffer.remaining() / Integer.BYTES);
+			buffer.asIntBuffer().put(values, index, count);
+			buffer.position(buffer.position() + count * Integer.BYTES);
+			index += count;
+		}
+	}
+
+	// write an array of doubles through the buffer
+	private static void writeDoubles(FileChannel channel, ByteBuffer buffer, double[] values) throws IOException {
+		int index = 0;
+		while (index < values.length) {
+			ensureSpace(channel, buffer, Double.BYTES);
+			int count = Math.min(values.length - index, buffer.remaining() / Double.BYTES);
+			buffer.asDoubleBuffer().put(values, index, count);
+			buffer.position(buffer.position() + count * Double.BYTES);
+			index += count;
+		}
+	}
+
+	// write the buffer to the channel when it does not have room for more bytes
+	private static void ensureSpace(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	// position after the cities and their closest cities
+	private static long citiesEnd(int numCities, int numNeighbours) {
+		return HEADER_SIZE + (3L + numNeighbours) * numCities * Integer.BYTES;
+	}
+
+	// position of the distance matrix, the first multiple of 8 after the cities
+	private static long matrixStart(int numCities, int numNeighbours) {
+		return (citiesEnd(numCities, numNeighbours) + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+	}
+
+	// change the extension of a file name, or add it when the name has none
+	public static String changeExtension(String fileName, String extension) {
+		int dot = fileName.lastIndexOf('.');
+		int separator = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\'));
+		if (dot > separator + 1) {
+			return fileName.substring(0, dot) + extension;
+		}
+		return fileName + extension;
+	}
+
+	// getters for the cities, their closest cities and the distance matrix of the
+	// file, which are null when the file does not have them
+	public CityStore getCities() {
+		return cities;
+	}
+
+	public int[][] getNeighbours() {
+		return neighbours;
+	}
+
+	public DistanceMatrix getDistanceMatrix() {
+		return distanceMatrix;
+	}
+}
@@ -0,0 +1,104 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/*binary file of the result of solving a problem, written next to the file of the
+problem in the same little endian format as the binary city files. After a header
+with the version of the format and the number of cities come the cost of the route,
+the lower bound and the vertices explored, then the route as indexes of the cities
+of the problem file and the reason the solver stopped early when it did. The route
+goes with the cities of the problem it was written for, so reading it checks that
+it is a route of all the cities of the problem*/
+public class BinarySolutionFile {
+	// the bytes "TSPS" at the start of the file read as a little endian int, and
+	// the version of the format
+	private static final int MAGIC = 0x53505354;
+	private static final int VERSION = 1;
+	// header of magic, version, number of cities, length of the stop reason, cost,
+	// lower bound and vertices explored
+	private static final int HEADER_SIZE = 4 * Integer.BYTES + 2 * Double.BYTES + Long.BYTES;
+	// extension of the solution files
+	public static final String EXTENSION = ".sol";
+
+	// write a result to a temporary file that then replaces the old file at once
+	public static void write(String fileName, SolverResult result) throws IOException {
+		int[] path = result.getPath();
+		byte[] stopReason = result.getStopReason() == null ? null
+				: result.getStopReason().getBytes(StandardCharsets.UTF_8);
+		int size = HEADER_SIZE + path.length * Integer.BYTES + (stopReason == null ? 0 : stopReason.length);
+		ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.putInt(MAGIC).putInt(VERSION).putInt(path.length).putInt(stopReason == null ? -1 : stopReason.length);
+		buffer.putDouble(result.getCost()).putDouble(result.getLowerBound()).putLong(result.getNodesExpanded());
+		buffer.asIntBuffer().put(path);
+		buffer.position(buffer.position() + path.length * Integer.BYTES);
+		if (stopReason != null) {
+			buffer.put(stopReason);
+		}
+		buffer.flip();
+		Path file = Paths.get(fileName);
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/*
+	 * read the result of a problem from a file. A file that is not a solution, is
+	 * for another number of cities or does not have a route of all the cities is
+	 * reported
+	 */
+	public static SolverResult read(String fileName, CityStore cities) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(fileName + " is bigger than 2 GB");
+			}
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			bytes.order(ByteOrder.LITTLE_ENDIAN);
+			if (bytes.limit() < HEADER_SIZE || bytes.getInt() != MAGIC || bytes.getInt() != VERSION) {
+				throw new IOException(fileName + " is not a solution file of this version");
+			}
+			int numCities = bytes.getInt();
+			int reasonLength = bytes.getInt();
+			if (numCities != cities.getSize()) {
+				throw new IOException(fileName + " is a route of " + numCities + " cities, not " + cities.getSize());
+			}
+			long expectedSize = HEADER_SIZE + (long) numCities * Integer.BYTES + Math.max(0, reasonLength);
+			if (bytes.limit() != expectedSize) {
+				throw new IOException(fileName + " has " + bytes.limit() + " bytes but its header says " + expectedSize);
+			}
+			double cost = bytes.getDouble();
+			double lowerBound = bytes.getDouble();
+			long nodesExpanded = bytes.getLong();
+			int[] path = new int[numCities];
+			bytes.asIntBuffer().get(path);
+			bytes.position(bytes.position() + numCities * Integer.BYTES);
+			// every city has to be in the route once
+			boolean[] visited = new boolean[numCities];
+			for (int city : path) {
+				if (city < 0 || city >= numCities || visited[city]) {
+					throw new IOException(fileName + " does not have a route of all the cities");
+				}
+				visited[city] = true;
+			}
+			String stopReason = null;
+			if (reasonLength >= 0) {
+				byte[] reason = new byte[reasonLength];
+				bytes.get(reason);
+				stopReason = new String(reason, StandardCharsets.UTF_8);
+			}
+			return new SolverResult(cities, path, cost, nodesExpanded, lowerBound, stopReason);
+		}
+	}
+}
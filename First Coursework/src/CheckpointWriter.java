@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*writer of the checkpoints of a search on a thread of its own, so the search only
+stops to copy its open vertices and goes on while the file is written. A checkpoint
+given while the last one is still being written is skipped, the next one has newer
+vertices anyway. The last checkpoint of a search that stops early is written before
+the search returns, and the file is deleted when the search is complete because
+there is nothing left to resume. A checkpoint that cannot be written on the thread
+does not stop the search, but the error is printed once, when the next checkpoint
+is given or the search ends, and again only after a checkpoint was written*/
+public class CheckpointWriter {
+	private Path file;
+	private long problemHash;
+	// milliseconds between two checkpoints
+	private long interval;
+	private ExecutorService executor;
+	// checkpoint being written, or null
+	private Future<?> currentWrite;
+	// error of the last checkpoint written on the thread, or null
+	private volatile IOException lastError;
+	// stream the errors of the thread are printed to, and if the last error was
+	// printed
+	private PrintStream errorOutput;
+	private boolean errorReported;
+
+	// create a writer for the checkpoints of a problem to a file every interval
+	// milliseconds
+	public CheckpointWriter(String fileName, long problemHash, long interval) {
+		this.file = Paths.get(fileName);
+		this.problemHash = problemHash;
+		this.interval = interval;
+		this.executor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "search checkpoint");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.errorOutput = System.err;
+	}
+
+	// write a checkpoint on the thread of the writer, returns false when it is
+	// skipped because the last one is still being written
+	public boolean submit(SearchCheckpoint checkpoint) {
+		if (currentWrite != null && !currentWrite.isDone()) {
+			return false;
+		}
+		reportError();
+		currentWrite = executor.submit(() -> {
+			try {
+				checkpoint.write(file);
+				lastError = null;
+			} catch (IOException writeError) {
+				lastError = writeError;
+			}
+		});
+		return true;
+	}
+
+	// print the error of the last checkpoint written on the thread if it was not
+	// printed yet
+	private void reportError() {
+		IOException error = lastError;
+		if (error == null) {
+			errorReported = false;
+		} else if (!errorReported) {
+			errorOutput.println("The checkpoint could not be written to " + file + ": " + error);
+			errorReported = true;
+		}
+	}
+
+	// write the last checkpoint of a search that stopped early, waiting for it
+	public void finish(SearchCheckpoint checkpoint) {
+		waitForWrite();
+		reportError();
+		try {
+			checkpoint.write(file);
+		} catch (IOException writeError) {
+			throw new UncheckedIOException(writeError);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	// delete the file of a search that is complete
+	public void delete() {
+		waitForWrite();
+		reportError();
+		executor.shutdown();
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException deleteError) {
+			throw new UncheckedIOException(deleteError);
+		}
+	}
+
+	// wait until the checkpoint being written is in the file
+	private void waitForWrite() {
+		if (currentWrite == null) {
+			return;
+		}
+		try {
+			currentWrite.get();
+		} catch (InterruptedException interruptedError) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException writeError) {
+			throw new IllegalStateException("The checkpoint could not be written", writeError.getCause());
+		}
+	}
+
+	// set the stream the errors of the checkpoints written on the thread are
+	// printed to
+	public void setErrorOutput(PrintStream errorOutput) {
+		this.errorOutput = errorOutput;
+	}
+
+	// getters for the hash of the problem, the milliseconds between checkpoints,
+	// the file and the error of the last checkpoint written on the thread
+	public long getProblemHash() {
+		return problemHash;
+	}
+
+	public long getInterval() {
+		return interval;
+	}
+
+	public Path getFile() {
+		return file;
+	}
+
+	public IOException getLastError() {
+		return lastError;
+	}
+}
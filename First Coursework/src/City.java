@@ -17,8 +17,8 @@ public class City {
 
 	// calculate the distance between two cities using Euclidean distance formula
 	public double calculateDistance(City goalCity) {
-		int xDifference = this.xPosition - goalCity.getXposition();
-		int yDifference = this.yPosition - goalCity.getYposition();
+		long xDifference = (long) this.xPosition - goalCity.getXposition();
+		long yDifference = (long) this.yPosition - goalCity.getYposition();
 		return Math.sqrt(xDifference * xDifference + yDifference * yDifference);
 	}
 
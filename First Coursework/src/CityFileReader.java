@@ -0,0 +1,221 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/*reader for files with a city on each line, given by its number and its x and y
+coordinates separated by spaces or tabs. The file is mapped into memory and the
+numbers are read straight from the bytes into arrays of ints, so no String is
+created for each line. Big files are split into chunks that end at the end of a
+line and read by several threads: the first pass counts the lines of every chunk,
+so each chunk knows where its cities go in the arrays and the number of its first
+line, and the second pass reads the cities. Empty lines are skipped, and any other
+line without three whole numbers is reported with its line number. A binary city
+file is recognised by its first bytes and read by BinaryCityFile instead*/
+public class CityFileReader {
+	// files are only split into chunks of at least this many bytes
+	private static final int MIN_CHUNK_SIZE = 1 << 20;
+	// number of chunks for each processor, so a thread with a slow chunk does not
+	// keep the others waiting
+	private static final int CHUNKS_PER_PROCESSOR = 4;
+	// number of values read from each line
+	private static final int NUM_VALUES = 3;
+	private String fileName;
+	private ByteBuffer bytes;
+	private int size;
+	// first byte of every chunk, followed by the size of the file
+	private int[] chunkStarts;
+	// number of lines and cities of every chunk
+	private int[] numLines;
+	private int[] numCities;
+	private int[] cityNumbers;
+	private int[] xPositions;
+	private int[] yPositions;
+
+	// read the cities of a file
+	public static CityStore read(String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(fileName + " is bigger than 2 GB");
+			}
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (BinaryCityFile.isBinary(bytes)) {
+				return BinaryCityFile.read(fileName, bytes).getCities();
+			}
+			return new CityFileReader(fileName, bytes).readCities();
+		}
+	}
+
+	// create a reader for the bytes of a file
+	public CityFileReader(String fileName, ByteBuffer bytes) {
+		this.fileName = fileName;
+		this.bytes = bytes;
+		this.size = bytes.limit();
+	}
+
+	// read the cities of the file using all the processors for big files
+	public CityStore readCities() throws IOException {
+		splitChunks();
+		int numChunks = chunkStarts.length - 1;
+		numLines = new int[numChunks];
+		numCities = new int[numChunks];
+		IntStream chunks = IntStream.range(0, numChunks);
+		if (numChunks > 1) {
+			chunks = chunks.parallel();
+		}
+		chunks.forEach(this::countLines);
+		// position of the first city and number of the first line of every chunk
+		int[] firstCities = new int[numChunks];
+		int[] firstLines = new int[numChunks];
+		int totalCities = 0;
+		int totalLines = 0;
+		for (int chunk = 0; chunk < numChunks; chunk++) {
+			firstCities[chunk] = totalCities;
+			firstLines[chunk] = totalLines + 1;
+			totalCities += numCities[chunk];
+			totalLines += numLines[chunk];
+		}
+		cityNumbers = new int[totalCities];
+		xPositions = new int[totalCities];
+		yPositions = new int[totalCities];
+		chunks = IntStream.range(0, numChunks);
+		if (numChunks > 1) {
+			chunks = chunks.parallel();
+		}
+		// the error of the first chunk with an error is reported
+		IOException[] errors = new IOException[numChunks];
+		chunks.forEach(chunk -> {
+			try {
+				readChunk(chunk, firstCities[chunk], firstLines[chunk]);
+			} catch (IOException readingError) {
+				errors[chunk] = readingError;
+			}
+		});
+		for (int chunk = 0; chunk < numChunks; chunk++) {
+			if (errors[chunk] != null) {
+				throw errors[chunk];
+			}
+		}
+		return new CityStore(cityNumbers, xPositions, yPositions);
+	}
+
+	// split the file into chunks of about the same size that end at a new line
+	private void splitChunks() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		int numChunks = (int) Math.max(1, Math.min(size / MIN_CHUNK_SIZE, (long) processors * CHUNKS_PER_PROCESSOR));
+		chunkStarts = new int[numChunks + 1];
+		for (int chunk = 1; chunk < numChunks; chunk++) {
+			int start = Math.max(chunkStarts[chunk - 1], (int) ((long) size * chunk / numChunks));
+			while (start < size && start > 0 && bytes.get(start - 1) != '\n') {
+				start++;
+			}
+			chunkStarts[chunk] = start;
+		}
+		chunkStarts[numChunks] = size;
+	}
+
+	// count the lines of a chunk and the lines that are not empty
+	private void countLines(int chunk) {
+		int lines = 0;
+		int cities = 0;
+		boolean empty = true;
+		for (int index = chunkStarts[chunk]; index < chunkStarts[chunk + 1]; index++) {
+			byte character = bytes.get(index);
+			if (character == '\n') {
+				lines++;
+				if (!empty) {
+					cities++;
+				}
+				empty = true;
+			} else if (!isSpace(character)) {
+				empty = false;
+			}
+		}
+		// the last line of the file may not end with a new line
+		if (!empty) {
+			lines++;
+			cities++;
+		}
+		numLines[chunk] = lines;
+		numCities[chunk] = cities;
+	}
+
+	// read the cities of a chunk into the arrays
+	private void readChunk(int chunk, int firstCity, int firstLine) throws IOException {
+		int index = chunkStarts[chunk];
+		int end = chunkStarts[chunk + 1];
+		int city = firstCity;
+		int line = firstLine;
+		int[] values = new int[NUM_VALUES];
+		while (index < end) {
+			index = skipSpaces(index, end);
+			if (index < end && bytes.get(index) != '\n') {
+				for (int value = 0; value < NUM_VALUES; value++) {
+					index = skipSpaces(index, end);
+					index = readNumber(index, end, line, values, value);
+				}
+				cityNumbers[city] = values[0];
+				xPositions[city] = values[1];
+				yPositions[city] = values[2];
+				city++;
+				// any other values of the line are ignored
+				while (index < end && bytes.get(index) != '\n') {
+					index++;
+				}
+			}
+			// move past the new line
+			index++;
+			line++;
+		}
+	}
+
+	// read a whole number starting at a byte and return the position after it
+	private int readNumber(int index, int end, int line, int[] values, int value) throws IOException {
+		boolean negative = false;
+		if (index < end && (bytes.get(index) == '-' || bytes.get(index) == '+')) {
+			negative = bytes.get(index) == '-';
+			index++;
+		}
+		int start = index;
+		long number = 0;
+		while (index < end && bytes.get(index) >= '0' && bytes.get(index) <= '9') {
+			number = number * 10 + (bytes.get(index) - '0');
+			if (number > (long) Integer.MAX_VALUE + 1) {
+				throw error(line, "number too big");
+			}
+			index++;
+		}
+		if (index == start || (index < end && !isSpace(bytes.get(index)) && bytes.get(index) != '\n')) {
+			throw error(line, "expected " + NUM_VALUES + " whole numbers");
+		}
+		if (negative) {
+			number = -number;
+		}
+		if (number > Integer.MAX_VALUE) {
+			throw error(line, "number too big");
+		}
+		values[value] = (int) number;
+		return index;
+	}
+
+	// skip the spaces and tabs before a value
+	private int skipSpaces(int index, int end) {
+		while (index < end && isSpace(bytes.get(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	// check if a byte separates values, carriage returns of windows files included
+	private static boolean isSpace(byte character) {
+		return character == ' ' || character == '\t' || character == '\r';
+	}
+
+	// create the error for a line of the file
+	private IOException error(int line, String message) {
+		return new IOException(fileName + " line " + line + ": " + message);
+	}
+}
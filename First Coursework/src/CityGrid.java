@@ -0,0 +1,160 @@
+import java.util.stream.IntStream;
+
+/*grid of square cells over the cities, used to find the closest cities of every city
+without calculating the distances between all of them. The cells are sized so each
+one has about two cities, and the closest cities of a city are searched in rings of
+cells around its cell until no city in the next ring can be closer*/
+public class CityGrid {
+	// grids with at least this many cities are searched using all the processors
+	private static final int PARALLEL_SEARCH_SIZE = 256;
+	// average number of cities in a cell
+	private static final int CITIES_PER_CELL = 2;
+	private int[] xPositions;
+	private int[] yPositions;
+	private int minX;
+	private int minY;
+	private double cellSize;
+	private int numColumns;
+	private int numRows;
+	// cities of every cell one after the other, and the first index of each cell
+	private int[] cellCities;
+	private int[] cellStarts;
+
+	// create a grid for the coordinates of the cities
+	public CityGrid(int[] xPositions, int[] yPositions) {
+		this.xPositions = xPositions;
+		this.yPositions = yPositions;
+		int numCities = xPositions.length;
+		int maxX = Integer.MIN_VALUE;
+		int maxY = Integer.MIN_VALUE;
+		minX = Integer.MAX_VALUE;
+		minY = Integer.MAX_VALUE;
+		for (int city = 0; city < numCities; city++) {
+			minX = Math.min(minX, xPositions[city]);
+			minY = Math.min(minY, yPositions[city]);
+			maxX = Math.max(maxX, xPositions[city]);
+			maxY = Math.max(maxY, yPositions[city]);
+		}
+		double width = Math.max(1.0, (double) maxX - minX);
+		double height = Math.max(1.0, (double) maxY - minY);
+		cellSize = Math.max(Math.sqrt(width * height * CITIES_PER_CELL / Math.max(1, numCities)),
+				Math.max(width, height) / numCities);
+		numColumns = (int) (width / cellSize) + 1;
+		numRows = (int) (height / cellSize) + 1;
+		// sort the cities by cell
+		cellStarts = new int[numColumns * numRows + 1];
+		for (int city = 0; city < numCities; city++) {
+			cellStarts[cellOf(city) + 1]++;
+		}
+		for (int cell = 0; cell < numColumns * numRows; cell++) {
+			cellStarts[cell + 1] += cellStarts[cell];
+		}
+		cellCities = new int[numCities];
+		int[] sizes = new int[numColumns * numRows];
+		for (int city = 0; city < numCities; city++) {
+			int cell = cellOf(city);
+			cellCities[cellStarts[cell] + sizes[cell]] = city;
+			sizes[cell]++;
+		}
+	}
+
+	// create a grid for the cities of a store
+	public static CityGrid fromCities(CityStore cities) {
+		return new CityGrid(cities.getXPositions(), cities.getYPositions());
+	}
+
+	// find the closest cities of every city, sorted by distance
+	public int[][] calculateNeighbours(int numNeighbours) {
+		int numCities = xPositions.length;
+		int[][] neighbours = new int[numCities][];
+		IntStream cities = IntStream.range(0, numCities);
+		if (numCities >= PARALLEL_SEARCH_SIZE) {
+			cities = cities.parallel();
+		}
+		cities.forEach(city -> neighbours[city] = findNeighbours(city, Math.min(numNeighbours, numCities - 1)));
+		return neighbours;
+	}
+
+	/*
+	 * find the closest cities of a city. A city in the ring of cells at distance
+	 * ring from the cell of the city is at least (ring - 1) cells away, so the
+	 * search stops when the list is full and its last city is closer than that
+	 */
+	public int[] findNeighbours(int city, int numNeighbours) {
+		int[] neighbours = new int[numNeighbours];
+		if (numNeighbours == 0) {
+			// a single city has no other city
+			return neighbours;
+		}
+		long[] distances = new long[numNeighbours];
+		int size = 0;
+		int column = columnOf(city);
+		int row = rowOf(city);
+		int maxRing = Math.max(numColumns, numRows);
+		for (int ring = 0; ring <= maxRing; ring++) {
+			if (size == numNeighbours) {
+				double minDistance = (ring - 1) * cellSize;
+				if (minDistance * minDistance > distances[size - 1]) {
+					break;
+				}
+			}
+			for (int cellRow = row - ring; cellRow <= row + ring; cellRow++) {
+				if (cellRow < 0 || cellRow >= numRows) {
+					continue;
+				}
+				// only the first and last rows of the ring have every column
+				boolean fullRow = cellRow == row - ring || cellRow == row + ring;
+				int step = fullRow ? 1 : Math.max(1, 2 * ring);
+				for (int cellColumn = column - ring; cellColumn <= column + ring; cellColumn += step) {
+					if (cellColumn < 0 || cellColumn >= numColumns) {
+						continue;
+					}
+					int cell = cellRow * numColumns + cellColumn;
+					for (int index = cellStarts[cell]; index < cellStarts[cell + 1]; index++) {
+						int otherCity = cellCities[index];
+						if (otherCity == city) {
+							continue;
+						}
+						long xDifference = (long) xPositions[city] - xPositions[otherCity];
+						long yDifference = (long) yPositions[city] - yPositions[otherCity];
+						long distance = xDifference * xDifference + yDifference * yDifference;
+						if (size == numNeighbours && distance >= distances[size - 1]) {
+							continue;
+						}
+						// insert the city keeping the list sorted by distance
+						int position = size == numNeighbours ? size - 1 : size;
+						while (position > 0 && distances[position - 1] > distance) {
+							neighbours[position] = neighbours[position - 1];
+							distances[position] = distances[position - 1];
+							position--;
+						}
+						neighbours[position] = otherCity;
+						distances[position] = distance;
+						if (size < numNeighbours) {
+							size++;
+						}
+					}
+				}
+			}
+		}
+		return neighbours;
+	}
+
+	// cell of a city
+	private int cellOf(int city) {
+		return rowOf(city) * numColumns + columnOf(city);
+	}
+
+	private int columnOf(int city) {
+		return Math.min(numColumns - 1, (int) ((xPositions[city] - (double) minX) / cellSize));
+	}
+
+	private int rowOf(int city) {
+		return Math.min(numRows - 1, (int) ((yPositions[city] - (double) minY) / cellSize));
+	}
+
+	// returns the number of cities of the grid
+	public int getSize() {
+		return xPositions.length;
+	}
+}
@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+/*hash table from city numbers to the indexes of the cities, kept in two arrays of ints
+so looking up a city does not create objects. A slot is found from the hash of the
+number and the next slots are tried until the number or an empty slot is found, an
+empty slot has the index -1. The table has at least twice as many slots as cities,
+and grows when more cities are added. A number that is removed moves the numbers
+after it back, so no slot is marked as deleted. The table is used by one thread at a
+time, or shared once it is filled*/
+public class CityIndexTable {
+	private int[] numbers;
+	private int[] indexes;
+	private int size;
+
+	// create a table with space for the given number of cities before it grows
+	public CityIndexTable(int numCities) {
+		int capacity = Integer.highestOneBit(Math.max(1, numCities) * 2 - 1) * 2;
+		this.numbers = new int[capacity];
+		this.indexes = new int[capacity];
+		Arrays.fill(indexes, -1);
+	}
+
+	// find the index of a city number, or -1 if there is no city with that number
+	public int get(int cityNumber) {
+		int mask = numbers.length - 1;
+		int slot = hash(cityNumber) & mask;
+		while (indexes[slot] != -1) {
+			if (numbers[slot] == cityNumber) {
+				return indexes[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	// store the index of a city number unless the number is already in the table,
+	// and return the index it had or -1 when it is new
+	public int putIfAbsent(int cityNumber, int index) {
+		int slot = findSlot(cityNumber);
+		if (indexes[slot] != -1) {
+			return indexes[slot];
+		}
+		if ((size + 1) * 2 > numbers.length) {
+			grow();
+			slot = findSlot(cityNumber);
+		}
+		numbers[slot] = cityNumber;
+		indexes[slot] = index;
+		size++;
+		return -1;
+	}
+
+	// store the index of a city number, replacing the index it had
+	public void put(int cityNumber, int index) {
+		if (putIfAbsent(cityNumber, index) != -1) {
+			indexes[findSlot(cityNumber)] = index;
+		}
+	}
+
+	// remove a city number, moving back the numbers after it that were placed
+	// further than their slot because of it
+	public void remove(int cityNumber) {
+		int mask = numbers.length - 1;
+		int slot = findSlot(cityNumber);
+		if (indexes[slot] == -1) {
+			return;
+		}
+		int nextSlot = (slot + 1) & mask;
+		while (indexes[nextSlot] != -1) {
+			int homeSlot = hash(numbers[nextSlot]) & mask;
+			// the number can move to the empty slot when its home slot is not between
+			// the empty slot and its slot
+			if (((nextSlot - homeSlot) & mask) >= ((nextSlot - slot) & mask)) {
+				numbers[slot] = numbers[nextSlot];
+				indexes[slot] = indexes[nextSlot];
+				slot = nextSlot;
+			}
+			nextSlot = (nextSlot + 1) & mask;
+		}
+		indexes[slot] = -1;
+		size--;
+	}
+
+	// returns the number of cities in the table
+	public int getSize() {
+		return size;
+	}
+
+	// find the slot of a city number, or the empty slot where it would be stored
+	private int findSlot(int cityNumber) {
+		int mask = numbers.length - 1;
+		int slot = hash(cityNumber) & mask;
+		while (indexes[slot] != -1 && numbers[slot] != cityNumber) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	// double the slots and store every city number again
+	private void grow() {
+		int[] oldNumbers = numbers;
+		int[] oldIndexes = indexes;
+		numbers = new int[oldNumbers.length * 2];
+		indexes = new int[oldNumbers.length * 2];
+		Arrays.fill(indexes, -1);
+		for (int slot = 0; slot < oldNumbers.length; slot++) {
+			if (oldIndexes[slot] != -1) {
+				int newSlot = findSlot(oldNumbers[slot]);
+				numbers[newSlot] = oldNumbers[slot];
+				indexes[newSlot] = oldIndexes[slot];
+			}
+		}
+	}
+
+	// spread the bits of a city number over the slots of the table
+	private static int hash(int cityNumber) {
+		int hash = cityNumber * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,67 @@
+/*set of city indexes where adding, removing and checking a city take the same time
+for any number of cities. The cities of the set are kept at the start of an array
+and the position of every city in that array is stored, so a city is removed by
+moving the last city of the set to its place. It is used for the cities that are
+not in a route yet*/
+public class CitySet {
+	private int[] cities;
+	private int[] positions;
+	private int size;
+
+	// create a set for the given number of cities, with all of them or none
+	public CitySet(int numCities, boolean full) {
+		cities = new int[numCities];
+		positions = new int[numCities];
+		for (int city = 0; city < numCities; city++) {
+			cities[city] = city;
+			positions[city] = city;
+		}
+		size = full ? numCities : 0;
+	}
+
+	// check if a city is in the set
+	public boolean contains(int city) {
+		return positions[city] < size;
+	}
+
+	// add a city to the set if it is not there
+	public void add(int city) {
+		if (!contains(city)) {
+			swap(city, cities[size]);
+			size++;
+		}
+	}
+
+	// remove a city from the set if it is there
+	public void remove(int city) {
+		if (contains(city)) {
+			size--;
+			swap(city, cities[size]);
+		}
+	}
+
+	// exchange the positions of two cities in the array
+	private void swap(int city, int otherCity) {
+		int position = positions[city];
+		int otherPosition = positions[otherCity];
+		cities[position] = otherCity;
+		positions[otherCity] = position;
+		cities[otherPosition] = city;
+		positions[city] = otherPosition;
+	}
+
+	// get the city at a position of the set, from 0 to the size of the set
+	public int get(int index) {
+		return cities[index];
+	}
+
+	// returns the number of cities in the set
+	public int getSize() {
+		return size;
+	}
+
+	// returns true if the set has no cities
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
@@ -0,0 +1,155 @@
+/*this class stores the cities of a problem as three arrays of ints with the city
+numbers and the coordinates, instead of a City object for each city, so millions of
+cities can be loaded without creating millions of objects. The solvers refer to a
+city by its index in the arrays, and a hash table of ints finds the index of a
+city number without going through the whole list. The distances between the cities
+are calculated from the coordinates when they are needed.
+The cities of a problem given by a matrix of distances have no coordinates, so
+their coordinates are all 0 and the distances have to come from the matrix*/
+public class CityStore implements Distances {
+	private int[] cityNumbers;
+	private int[] xPositions;
+	private int[] yPositions;
+	// false for cities whose distances are not calculated from their coordinates
+	private boolean coordinates;
+	// hash table from city numbers to indexes, which is filled before it is set so
+	// a thread that sees it also sees its cities
+	private volatile CityIndexTable table;
+
+	// create a store for the numbers and coordinates of the cities
+	public CityStore(int[] cityNumbers, int[] xPositions, int[] yPositions) {
+		if (cityNumbers.length != xPositions.length || cityNumbers.length != yPositions.length) {
+			throw new IllegalArgumentException("Expected the same number of city numbers and coordinates");
+		}
+		this.cityNumbers = cityNumbers;
+		this.xPositions = xPositions;
+		this.yPositions = yPositions;
+		this.coordinates = true;
+	}
+
+	// create a store for cities without coordinates, whose distances are given by a
+	// distance matrix
+	public static CityStore withoutCoordinates(int[] cityNumbers) {
+		CityStore cities = new CityStore(cityNumbers, new int[cityNumbers.length], new int[cityNumbers.length]);
+		cities.coordinates = false;
+		return cities;
+	}
+
+	// create a store with the cities of a list
+	public static CityStore fromCityList(CityList cities) {
+		int size = cities.getSize();
+		int[] cityNumbers = new int[size];
+		int[] xPositions = new int[size];
+		int[] yPositions = new int[size];
+		for (int index = 0; index < size; index++) {
+			City city = cities.getElement(index);
+			cityNumbers[index] = city.getCityNumber();
+			xPositions[index] = city.getXposition();
+			yPositions[index] = city.getYposition();
+		}
+		return new CityStore(cityNumbers, xPositions, yPositions);
+	}
+
+	// create a list with a City object for each city
+	public CityList toCityList() {
+		CityList cities = new CityList();
+		for (int index = 0; index < cityNumbers.length; index++) {
+			cities.add(getCity(index));
+		}
+		return cities;
+	}
+
+	// convert a path of city indexes to a list of cities that goes back to the
+	// initial city
+	public CityList getRoute(int[] path) {
+		CityList route = new CityList();
+		for (int index = 0; index < path.length; index++) {
+			route.add(getCity(path[index]));
+		}
+		// add to the end of the route the initial city
+		if (path.length > 0) {
+			route.add(getCity(path[0]));
+		}
+		return route;
+	}
+
+	// create a City object for the city at an index
+	public City getCity(int index) {
+		return new City(cityNumbers[index], xPositions[index], yPositions[index]);
+	}
+
+	/*
+	 * find the index of a city number, or -1 if there is no city with that number.
+	 * The hash table is built the first time, and when two cities have the same
+	 * number the first one is found
+	 */
+	public int indexOf(int cityNumber) {
+		CityIndexTable cityIndexes = table;
+		if (cityIndexes == null) {
+			buildTable();
+			cityIndexes = table;
+		}
+		return cityIndexes.get(cityNumber);
+	}
+
+	// build the hash table of the cities
+	private synchronized void buildTable() {
+		if (table != null) {
+			return;
+		}
+		CityIndexTable cityIndexes = new CityIndexTable(cityNumbers.length);
+		for (int index = 0; index < cityNumbers.length; index++) {
+			cityIndexes.putIfAbsent(cityNumbers[index], index);
+		}
+		table = cityIndexes;
+	}
+
+	// returns the number of cities
+	@Override
+	public int getSize() {
+		return cityNumbers.length;
+	}
+
+	// get the euclidean distance between the cities at two indexes
+	@Override
+	public double get(int row, int col) {
+		if (row == col) {
+			return Double.POSITIVE_INFINITY;
+		}
+		long xDifference = (long) xPositions[row] - xPositions[col];
+		long yDifference = (long) yPositions[row] - yPositions[col];
+		return Math.sqrt(xDifference * xDifference + yDifference * yDifference);
+	}
+
+	// getters for the number and the coordinates of the city at an index
+	public int getCityNumber(int index) {
+		return cityNumbers[index];
+	}
+
+	public int getXPosition(int index) {
+		return xPositions[index];
+	}
+
+	public int getYPosition(int index) {
+		return yPositions[index];
+	}
+
+	// returns true if the distances between the cities are calculated from their
+	// coordinates
+	public boolean hasCoordinates() {
+		return coordinates;
+	}
+
+	// getters for the arrays of city numbers and coordinates
+	public int[] getCityNumbers() {
+		return cityNumbers;
+	}
+
+	public int[] getXPositions() {
+		return xPositions;
+	}
+
+	public int[] getYPositions() {
+		return yPositions;
+	}
+}
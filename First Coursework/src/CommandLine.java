@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/*options of the command line of the program: the options of the solver, the files to
+solve and what to do with them. The files are solved one after the other unless
+another mode is selected, and when more than one is selected converting the files
+comes first, then the server and then the batch. The usage has a line for each
+option, and an unknown option or a value that is not a number is reported with an
+exception*/
+public class CommandLine {
+	// things the program can do with the files
+	public static final String SOLVE = "solve";
+	public static final String COMPARE = "compare";
+	public static final String BATCH = "batch";
+	public static final String SERVE = "serve";
+	public static final String CONVERT = "convert";
+	// number of requests that can wait to be solved by the HTTP server
+	private static final int DEFAULT_QUEUE_SIZE = 64;
+	// number of problems kept by the cache when only its directory is given
+	private static final int DEFAULT_CACHE_SIZE = 1024;
+	// each option with what it does, in the order they are printed
+	private static final String[][] USAGE = {
+			{ "--help", "print this list of options" },
+			{ "--held-karp", "solve with Held-Karp, chosen by default for up to 20 cities" },
+			{ "--depth-first", "solve with depth first branch and bound" },
+			{ "--parallel", "solve with parallel branch and bound" },
+			{ "--threads=N", "solve with parallel branch and bound on N threads" },
+			{ "--heuristic", "only run the Lin-Kernighan heuristic, for any number of cities" },
+			{ "--compare", "solve each file with every strategy and print them side by side" },
+			{ "--bound=NAME", "one-tree or reduction, one-tree by default for symmetric problems" },
+			{ "--no-initial-tour", "start branch and bound without the heuristic route" },
+			{ "--table-size=N", "entries of the transposition table, 0 for none" },
+			{ "--no-symmetry", "explore both directions of the routes of a symmetric problem" },
+			{ "--time-limit=SECONDS", "stop with the best route found so far after this time" },
+			{ "--node-limit=N", "stop with the best route found so far after N vertices" },
+			{ "--memory-limit=MB", "memory for the open vertices or Held-Karp, half the heap by default" },
+			{ "--metrics", "print the metrics of branch and bound after the route" },
+			{ "--progress=SECONDS", "print the metrics of branch and bound while it runs" },
+			{ "--jmx", "make the metrics available to JMX tools" },
+			{ "--checkpoint=FILE", "write the open vertices of best first search to a file" },
+			{ "--checkpoint-interval=SECONDS", "time between the checkpoints" },
+			{ "--resume", "go on from the checkpoint in the file" },
+			{ "--cache=N", "keep the routes of up to N problems to answer them again" },
+			{ "--cache-dir=DIRECTORY", "also keep the routes of the cache in files" },
+			{ "--write-solution", "write the result of each file to a binary solution file" },
+			{ "--batch=DIRECTORY", "solve all the files of a directory, - reads their names" },
+			{ "--batch-threads=N", "threads solving the files of the batch" },
+			{ "--serve=[HOST:]PORT", "solve the cities posted to /solve over HTTP" },
+			{ "--serve-threads=N", "threads solving the requests of the server" },
+			{ "--queue-size=N", "requests that can wait for a thread of the server" },
+			{ "--convert", "write each file as a binary file next to it instead of solving it" },
+			{ "--convert-neighbours=K", "keep the K closest cities of every city in the binary file" },
+			{ "--convert-matrix", "keep the distance matrix in the binary file" } };
+	private SolverOptions options;
+	private String[] fileNames;
+	private boolean help;
+	private boolean compare;
+	private String batch;
+	private int batchThreads;
+	private String serve;
+	private int serveThreads;
+	private int queueSize;
+	private boolean convert;
+	private int convertNeighbours;
+	private boolean convertMatrix;
+
+	private CommandLine() {
+		this.options = new SolverOptions();
+		this.fileNames = new String[0];
+		this.batchThreads = Runtime.getRuntime().availableProcessors();
+		this.serveThreads = Runtime.getRuntime().availableProcessors();
+		this.queueSize = DEFAULT_QUEUE_SIZE;
+	}
+
+	/*
+	 * read the options and the files of the arguments of the program. The cache is
+	 * created when it is selected, and an option that is not known, a value that is
+	 * not valid or resuming without a checkpoint file is reported with an exception
+	 */
+	public static CommandLine parse(String[] args) throws IOException {
+		CommandLine commandLine = new CommandLine();
+		SolverOptions options = commandLine.options;
+		String[] fileNames = new String[args.length];
+		int numFiles = 0;
+		int cacheSize = 0;
+		String cacheDirectory = null;
+		for (String arg : args) {
+			try {
+				if (arg.equals("--help")) {
+					commandLine.help = true;
+				} else if (arg.equals("--depth-first")) {
+					options.setStrategy(Main.DEPTH_FIRST);
+				} else if (arg.equals("--heuristic")) {
+					options.setStrategy(Main.HEURISTIC);
+				} else if (arg.startsWith("--time-limit=")) {
+					options.setTimeLimit(toMilliseconds(value(arg)));
+				} else if (arg.startsWith("--node-limit=")) {
+					options.setNodeLimit(Long.parseLong(value(arg)));
+				} else if (arg.equals("--held-karp")) {
+					options.setStrategy(Main.HELD_KARP);
+				} else if (arg.startsWith("--memory-limit=")) {
+					options.setMemoryLimit(Long.parseLong(value(arg)) * 1024 * 1024);
+				} else if (arg.equals("--no-initial-tour")) {
+					options.setInitialTour(false);
+				} else if (arg.equals("--parallel")) {
+					options.setStrategy(Main.PARALLEL);
+				} else if (arg.startsWith("--bound=")) {
+					options.setBound(value(arg));
+				} else if (arg.startsWith("--threads=")) {
+					options.setStrategy(Main.PARALLEL);
+					options.setParallelism(Integer.parseInt(value(arg)));
+				} else if (arg.equals("--compare")) {
+					commandLine.compare = true;
+				} else if (arg.startsWith("--batch=")) {
+					commandLine.batch = value(arg);
+				} else if (arg.startsWith("--batch-threads=")) {
+					commandLine.batchThreads = Integer.parseInt(value(arg));
+				} else if (arg.startsWith("--serve=")) {
+					commandLine.serve = value(arg);
+				} else if (arg.startsWith("--serve-threads=")) {
+					commandLine.serveThreads = Integer.parseInt(value(arg));
+				} else if (arg.startsWith("--queue-size=")) {
+					commandLine.queueSize = Integer.parseInt(value(arg));
+				} else if (arg.startsWith("--cache=")) {
+					cacheSize = Integer.parseInt(value(arg));
+				} else if (arg.startsWith("--cache-dir=")) {
+					cacheDirectory = value(arg);
+				} else if (arg.startsWith("--checkpoint=")) {
+					options.setCheckpointFile(value(arg));
+				} else if (arg.startsWith("--checkpoint-interval=")) {
+					options.setCheckpointInterval(toMilliseconds(value(arg)));
+				} else if (arg.equals("--resume")) {
+					options.setResume(true);
+				} else if (arg.equals("--convert")) {
+					commandLine.convert = true;
+				} else if (arg.startsWith("--convert-neighbours=")) {
+					commandLine.convertNeighbours = Integer.parseInt(value(arg));
+				} else if (arg.equals("--convert-matrix")) {
+					commandLine.convertMatrix = true;
+				} else if (arg.equals("--write-solution")) {
+					options.setWriteSolution(true);
+				} else if (arg.startsWith("--table-size=")) {
+					options.setTableSize(Integer.parseInt(value(arg)));
+				} else if (arg.equals("--no-symmetry")) {
+					options.setSymmetryBreaking(false);
+				} else if (arg.equals("--metrics")) {
+					enableMetrics(options);
+				} else if (arg.startsWith("--progress=")) {
+					enableMetrics(options);
+					options.setProgressInterval(Math.max(1, toMilliseconds(value(arg))));
+				} else if (arg.equals("--jmx")) {
+					enableMetrics(options);
+					options.setJmx(true);
+				} else if (arg.startsWith("--")) {
+					throw new IllegalArgumentException("Unknown option " + arg + ", --help lists the options");
+				} else {
+					fileNames[numFiles] = arg;
+					numFiles++;
+				}
+			} catch (NumberFormatException numberError) {
+				throw new IllegalArgumentException("The value of " + arg + " is not a number");
+			}
+		}
+		commandLine.fileNames = Arrays.copyOf(fileNames, numFiles);
+		if (options.isResume() && options.getCheckpointFile() == null) {
+			throw new IllegalArgumentException("--resume needs the file of the checkpoint with --checkpoint=FILE");
+		}
+		if (cacheSize > 0 || cacheDirectory != null) {
+			options.setCache(new SolutionCache(cacheSize > 0 ? cacheSize : DEFAULT_CACHE_SIZE, cacheDirectory));
+		}
+		return commandLine;
+	}
+
+	// print a line for each option
+	public static void printUsage(PrintStream out) {
+		out.println("Usage: java Main [options] [files]");
+		for (String[] option : USAGE) {
+			out.printf("  %-32s %s%n", option[0], option[1]);
+		}
+	}
+
+	// value of an option after the equals sign
+	private static String value(String arg) {
+		return arg.substring(arg.indexOf('=') + 1);
+	}
+
+	// convert a number of seconds to milliseconds
+	private static long toMilliseconds(String seconds) {
+		return (long) (Double.parseDouble(seconds) * 1000);
+	}
+
+	// collect metrics when an option needs them, printing the progress lines when
+	// they are reported
+	private static void enableMetrics(SolverOptions options) {
+		if (options.getMetrics() != null) {
+			return;
+		}
+		SearchMetrics metrics = new SearchMetrics();
+		metrics.addListener(new SearchListener() {
+			@Override
+			public void progress(SearchMetrics searchMetrics) {
+				System.out.println(searchMetrics.formatProgress());
+			}
+		});
+		options.setMetrics(metrics);
+	}
+
+	// returns what the program does with the files
+	public String getMode() {
+		if (convert) {
+			return CONVERT;
+		}
+		if (serve != null) {
+			return SERVE;
+		}
+		if (batch != null) {
+			return BATCH;
+		}
+		return compare ? COMPARE : SOLVE;
+	}
+
+	// getters for the options of the solver, the files and the options of each mode
+	public SolverOptions getOptions() {
+		return options;
+	}
+
+	public String[] getFileNames() {
+		return fileNames.clone();
+	}
+
+	public boolean isHelp() {
+		return help;
+	}
+
+	public String getBatch() {
+		return batch;
+	}
+
+	public int getBatchThreads() {
+		return batchThreads;
+	}
+
+	public String getServe() {
+		return serve;
+	}
+
+	public int getServeThreads() {
+		return serveThreads;
+	}
+
+	public int getQueueSize() {
+		return queueSize;
+	}
+
+	public int getConvertNeighbours() {
+		return convertNeighbours;
+	}
+
+	public boolean isConvertMatrix() {
+		return convertMatrix;
+	}
+}
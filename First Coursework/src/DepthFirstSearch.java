@@ -0,0 +1,145 @@
+/*depth first branch and bound. The search state is extended one city at a time and
+the cities are removed again when going back, so the memory used only depends on the
+number of cities and not on the size of the search tree. At each level the new cities
+are tried in order of cost, and a city is discarded as soon as its cost is not lower
+than the best route found so far. When the control of the search stops it, each level
+gives the lowest cost of the cities it did not explore to the control*/
+public class DepthFirstSearch {
+	private SearchState state;
+	private Incumbent incumbent;
+	private int numCities;
+	// cities and costs of the vertices generated at each level, sorted by cost
+	private int[][] levelCities;
+	private double[][] levelCosts;
+	private SearchCounters counters;
+	private SearchControl control;
+
+	// create a depth first search for a search state, allocating the memory for all
+	// the levels once
+	public DepthFirstSearch(SearchState state, Incumbent incumbent) {
+		this.state = state;
+		this.incumbent = incumbent;
+		this.numCities = state.getNumCities();
+		this.levelCities = new int[numCities][numCities];
+		this.levelCosts = new double[numCities][numCities];
+		this.counters = new SearchCounters(state);
+	}
+
+	// run the search starting from the given city and return the best route found
+	public int[] solve(int initialCity) {
+		state.clear();
+		state.push(initialCity);
+		if (state.isComplete()) {
+			incumbent.offer(state);
+		} else {
+			explore();
+		}
+		state.pop();
+		counters.flush();
+		counters.checkControl(0);
+		return incumbent.getPath();
+	}
+
+	// explore all the vertices below the current path of the search state
+	public void explore() {
+		if (counters.shouldStop(0)) {
+			control.addOpenBound(state.getCost());
+			return;
+		}
+		counters.expanded();
+		int depth = state.getDepth();
+		int[] cities = levelCities[depth];
+		double[] costs = levelCosts[depth];
+		int size = 0;
+		// calculate the cost of each city not visited yet that has to be explored
+		for (int city = 0; city < numCities; city++) {
+			if (!state.isVisited(city) && !state.isRedundant(city)) {
+				state.push(city);
+				double cost = state.getCost();
+				state.pop();
+				counters.generated(1);
+				if (cost >= incumbent.getCost()) {
+					counters.pruned(1);
+					continue;
+				}
+				// insert the city keeping the level sorted by cost
+				int index = size;
+				while (index > 0 && costs[index - 1] > cost) {
+					cities[index] = cities[index - 1];
+					costs[index] = costs[index - 1];
+					index--;
+				}
+				cities[index] = city;
+				costs[index] = cost;
+				size++;
+			}
+		}
+		counters.frontierChanged(size);
+		// the level can be explored somewhere else instead
+		if (split(cities, costs, size)) {
+			counters.frontierChanged(-size);
+			return;
+		}
+		for (int index = 0; index < size; index++) {
+			// the rest of the level cannot improve the best route
+			if (costs[index] >= incumbent.getCost()) {
+				counters.pruned(size - index);
+				counters.frontierChanged(index - size);
+				break;
+			}
+			if (control != null && control.isStopped()) {
+				// the level is sorted, so this is the lowest cost left
+				control.addOpenBound(costs[index]);
+				counters.frontierChanged(index - size);
+				break;
+			}
+			counters.frontierChanged(-1);
+			state.push(cities[index]);
+			if (state.isComplete()) {
+				incumbent.offer(state);
+			} else {
+				explore();
+			}
+			state.pop();
+		}
+	}
+
+	/*
+	 * method called before exploring the sorted cities of a level. It returns true
+	 * when the level has been explored in a different way, for example by other
+	 * threads, and false to explore it here. The cities of the level are counted as
+	 * open vertices until it returns
+	 */
+	protected boolean split(int[] cities, double[] costs, int size) {
+		return false;
+	}
+
+	// set the metrics the counts of the search are added to, or null for none
+	public void setMetrics(SearchMetrics metrics) {
+		counters.setMetrics(metrics);
+	}
+
+	// set the control that can stop the search, or null for none
+	public void setControl(SearchControl control) {
+		this.control = control;
+		counters.setControl(control);
+	}
+
+	// getters for the search state, the best route, the counts of the search and
+	// the number of vertices explored
+	public SearchState getState() {
+		return state;
+	}
+
+	public Incumbent getIncumbent() {
+		return incumbent;
+	}
+
+	public SearchCounters getCounters() {
+		return counters;
+	}
+
+	public long getNodesExpanded() {
+		return counters.getNodesExpanded();
+	}
+}
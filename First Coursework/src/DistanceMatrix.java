@@ -0,0 +1,141 @@
+import java.util.stream.IntStream;
+
+/*this class stores the distances between all the cities in a single array. The full
+layout keeps every row one after the other, with infinity as the distance between a
+city and itself. For symmetric problems the packed layout only keeps the cells above
+the diagonal, which uses half of the memory*/
+public class DistanceMatrix implements Distances {
+	// matrices with at least this many cities are built using all the processors
+	private static final int PARALLEL_BUILD_SIZE = 256;
+	private int size;
+	private double[] distances;
+	private boolean packed;
+	private boolean symmetric;
+
+	/*
+	 * create a distance matrix from an array of distances. A full matrix has size x
+	 * size distances stored row by row and a packed matrix has the size x (size - 1)
+	 * / 2 distances above the diagonal
+	 */
+	public DistanceMatrix(int size, double[] distances, boolean packed, boolean symmetric) {
+		long expectedLength = packed ? (long) size * (size - 1) / 2 : (long) size * size;
+		if (distances.length != expectedLength) {
+			throw new IllegalArgumentException("Expected " + expectedLength + " distances but got " + distances.length);
+		}
+		if (packed && !symmetric) {
+			throw new IllegalArgumentException("Only symmetric matrices can be packed");
+		}
+		this.size = size;
+		this.distances = distances;
+		this.packed = packed;
+		this.symmetric = symmetric;
+	}
+
+	// create a full distance matrix with the euclidean distances between the cities
+	public static DistanceMatrix fromCities(CityList cities) {
+		return fromCities(CityStore.fromCityList(cities), false);
+	}
+
+	// create a full distance matrix with the euclidean distances between the cities
+	// of a store
+	public static DistanceMatrix fromCities(CityStore cities) {
+		return fromCities(cities, false);
+	}
+
+	/*
+	 * create a distance matrix with the euclidean distances between the cities,
+	 * using the packed layout when asked for. The coordinates are read from the
+	 * arrays of the store and big matrices are built by several threads, one row at
+	 * a time
+	 */
+	public static DistanceMatrix fromCities(CityStore cities, boolean packed) {
+		int size = cities.getSize();
+		int[] xPositions = cities.getXPositions();
+		int[] yPositions = cities.getYPositions();
+		long length = packed ? (long) size * (size - 1) / 2 : (long) size * size;
+		if (length > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many cities for a distance matrix: " + size);
+		}
+		double[] distances = new double[(int) length];
+		IntStream rows = IntStream.range(0, size);
+		if (size >= PARALLEL_BUILD_SIZE) {
+			rows = rows.parallel();
+		}
+		rows.forEach(row -> fillRow(row, xPositions, yPositions, distances, packed));
+		return new DistanceMatrix(size, distances, packed, true);
+	}
+
+	// calculate the distances of a row of the matrix
+	private static void fillRow(int row, int[] xPositions, int[] yPositions, double[] distances, boolean packed) {
+		int size = xPositions.length;
+		int firstCol = packed ? row + 1 : 0;
+		int index = packed ? packedIndex(row, firstCol, size) : row * size;
+		for (int col = firstCol; col < size; col++) {
+			if (col == row) {
+				// set the distance between the same cities as infinity
+				distances[index] = Double.POSITIVE_INFINITY;
+			} else {
+				long xDifference = (long) xPositions[row] - xPositions[col];
+				long yDifference = (long) yPositions[row] - yPositions[col];
+				distances[index] = Math.sqrt(xDifference * xDifference + yDifference * yDifference);
+			}
+			index++;
+		}
+	}
+
+	// position of a cell above the diagonal in the packed layout
+	public static int packedIndex(int row, int col, int size) {
+		return (int) ((long) row * (2L * size - row - 1) / 2) + col - row - 1;
+	}
+
+	// get the distance between two cities
+	@Override
+	public double get(int row, int col) {
+		if (!packed) {
+			return distances[row * size + col];
+		}
+		if (row == col) {
+			return Double.POSITIVE_INFINITY;
+		}
+		if (row > col) {
+			return distances[packedIndex(col, row, size)];
+		}
+		return distances[packedIndex(row, col, size)];
+	}
+
+	// returns the number of cities of the matrix
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	// returns the matrix in the full layout, copying the distances of a packed
+	// matrix, because reading them is faster without working out their position
+	public DistanceMatrix unpack() {
+		if (!packed) {
+			return this;
+		}
+		double[] fullDistances = new double[size * size];
+		for (int row = 0; row < size; row++) {
+			for (int col = 0; col < size; col++) {
+				fullDistances[row * size + col] = get(row, col);
+			}
+		}
+		return new DistanceMatrix(size, fullDistances, false, true);
+	}
+
+	// returns true if the matrix only stores the cells above the diagonal
+	public boolean isPacked() {
+		return packed;
+	}
+
+	// returns true if the distance between two cities is the same in both ways
+	public boolean isSymmetric() {
+		return symmetric;
+	}
+
+	// returns the array with the distances in the layout of the matrix
+	public double[] getDistances() {
+		return distances;
+	}
+}
@@ -0,0 +1,21 @@
+/*interface for the distances between the cities of a problem. The distance matrix
+stores every distance, while big problems calculate them from the coordinates of
+the cities when they are needed*/
+public interface Distances {
+
+	// returns the number of cities
+	int getSize();
+
+	// get the distance between two cities, infinity for the same city
+	double get(int row, int col);
+
+	// calculate the length of a route that visits the cities of a path and goes
+	// back to the initial city
+	default double getRouteLength(int[] path) {
+		double length = 0.0;
+		for (int index = 0; index < path.length; index++) {
+			length += get(path[index], path[(index + 1) % path.length]);
+		}
+		return length;
+	}
+}
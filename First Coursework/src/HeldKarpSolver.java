@@ -0,0 +1,221 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/*exact solver using the dynamic programming of Held and Karp, which takes the same
+time for every problem of the same size. The route starts at the first city, and
+for every set of the other cities and every city of the set the table keeps the
+length of the shortest path that starts at the first city, visits the cities of
+the set and ends at that city. A set is stored as the bits of an int, and the
+table is a single array of doubles sized before solving, where the costs of the end
+cities of a set are next to each other, starting at the offset of the set. The sets
+with the same number of cities only use the sets with one city less, so each of
+these layers is calculated by several threads*/
+public class HeldKarpSolver {
+	// the table of bigger problems does not fit in an array
+	public static final int MAX_CITIES = 25;
+	private int numCities;
+	// number of cities that can be in a set, every city except the first one
+	private int numOthers;
+	// position in the table of the first cost of each set
+	private int[] offsets;
+	private double[] distances;
+	// distances arriving at each city, one row for each city
+	private double[] arrivals;
+	private double[] costs;
+	private int parallelism;
+	// control that can stop the solver between two layers, or null
+	private SearchControl control;
+	// number of costs calculated so far
+	private long numStates;
+
+	// create a solver for a distance matrix using the given number of threads
+	public HeldKarpSolver(DistanceMatrix distanceMatrix, int parallelism) {
+		this.numCities = distanceMatrix.getSize();
+		if (numCities > MAX_CITIES) {
+			throw new IllegalArgumentException("Held-Karp can only solve up to " + MAX_CITIES + " cities");
+		}
+		this.numOthers = Math.max(0, numCities - 1);
+		// copy the distances to the full layout
+		this.distances = new double[numCities * numCities];
+		this.arrivals = new double[numCities * numCities];
+		for (int row = 0; row < numCities; row++) {
+			for (int col = 0; col < numCities; col++) {
+				distances[row * numCities + col] = distanceMatrix.get(row, col);
+				arrivals[col * numCities + row] = distanceMatrix.get(row, col);
+			}
+		}
+		this.parallelism = parallelism;
+	}
+
+	/*
+	 * estimate the memory in bytes needed to solve a problem with the given number
+	 * of cities: the table of costs, the offsets of the sets, the list of sets
+	 * sorted by size and the two copies of the distances
+	 */
+	public static long estimateMemory(int numCities) {
+		if (numCities > MAX_CITIES) {
+			return Long.MAX_VALUE;
+		}
+		int numOthers = Math.max(0, numCities - 1);
+		long numSets = 1L << numOthers;
+		return 8L * numOthers * (numSets / 2) + 8L * numSets + 16L * numCities * numCities;
+	}
+
+	// solve the problem and return the shortest route starting at the first city, or
+	// null when the control stopped it before the table was complete
+	public int[] solve() {
+		if (numCities <= 2) {
+			int[] path = new int[numCities];
+			for (int city = 0; city < numCities; city++) {
+				path[city] = city;
+			}
+			return path;
+		}
+		int numSets = 1 << numOthers;
+		offsets = new int[numSets];
+		for (int set = 1; set < numSets; set++) {
+			offsets[set] = offsets[set - 1] + Integer.bitCount(set - 1);
+		}
+		costs = new double[numOthers * (numSets / 2)];
+		int[] sets = sortSetsBySize();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			int layerStart = 1;
+			long layerStates = 0;
+			for (int size = 1; size <= numOthers; size++) {
+				// the costs of a layer count as the vertices of the node limit
+				if (control != null && control.check(layerStates, 0)) {
+					return null;
+				}
+				int start = layerStart;
+				int end = start + binomial(numOthers, size);
+				pool.submit(() -> IntStream.range(start, end).parallel().forEach(index -> fillSet(sets[index])))
+						.get();
+				layerStart = end;
+				layerStates = (long) (end - start) * size;
+				numStates += layerStates;
+			}
+		} catch (InterruptedException interruptedError) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Held-Karp was interrupted", interruptedError);
+		} catch (ExecutionException executionError) {
+			throw new IllegalStateException("Held-Karp failed", executionError.getCause());
+		} finally {
+			pool.shutdown();
+		}
+		return buildPath();
+	}
+
+	/*
+	 * calculate the costs of every end city of a set. Only the bits that are set
+	 * are visited, in order, so the costs of the set without the end city are read
+	 * one after the other, and the distances to the end city from one row of the
+	 * arrivals
+	 */
+	private void fillSet(int set) {
+		int position = offsets[set];
+		for (int ends = set; ends != 0; ends &= ends - 1) {
+			int end = Integer.numberOfTrailingZeros(ends);
+			int previousSet = set & ~(1 << end);
+			if (previousSet == 0) {
+				costs[position] = distances[end + 1];
+				position++;
+				continue;
+			}
+			int arrivalRow = (end + 1) * numCities + 1;
+			int previousPosition = offsets[previousSet];
+			double minCost = Double.POSITIVE_INFINITY;
+			for (int previousEnds = previousSet; previousEnds != 0; previousEnds &= previousEnds - 1) {
+				int previousEnd = Integer.numberOfTrailingZeros(previousEnds);
+				double cost = costs[previousPosition] + arrivals[arrivalRow + previousEnd];
+				if (cost < minCost) {
+					minCost = cost;
+				}
+				previousPosition++;
+			}
+			costs[position] = minCost;
+			position++;
+		}
+	}
+
+	/*
+	 * build the shortest route from the table, going back from the full set and
+	 * choosing each time the end city that gives the cost stored for the set
+	 */
+	private int[] buildPath() {
+		int[] path = new int[numCities];
+		int set = (1 << numOthers) - 1;
+		int end = -1;
+		double minCost = Double.POSITIVE_INFINITY;
+		for (int city = 0; city < numOthers; city++) {
+			double cost = costs[index(city, set)] + distances[(city + 1) * numCities];
+			if (cost < minCost) {
+				minCost = cost;
+				end = city;
+			}
+		}
+		for (int position = numCities - 1; position > 0; position--) {
+			path[position] = end + 1;
+			int previousSet = set & ~(1 << end);
+			int previousEnd = -1;
+			minCost = Double.POSITIVE_INFINITY;
+			for (int city = 0; city < numOthers; city++) {
+				if ((previousSet & (1 << city)) == 0) {
+					continue;
+				}
+				double cost = costs[index(city, previousSet)] + distances[(city + 1) * numCities + end + 1];
+				if (cost < minCost) {
+					minCost = cost;
+					previousEnd = city;
+				}
+			}
+			set = previousSet;
+			end = previousEnd;
+		}
+		path[0] = 0;
+		return path;
+	}
+
+	// position in the table of an end city and a set that contains it, after the
+	// costs of the cities of the set with lower numbers
+	private int index(int end, int set) {
+		return offsets[set] + Integer.bitCount(set & ((1 << end) - 1));
+	}
+
+	// list every set of the other cities sorted by the number of cities in it
+	private int[] sortSetsBySize() {
+		int numSets = 1 << numOthers;
+		int[] starts = new int[numOthers + 2];
+		for (int size = 0; size <= numOthers; size++) {
+			starts[size + 1] = starts[size] + binomial(numOthers, size);
+		}
+		int[] sets = new int[numSets];
+		for (int set = 0; set < numSets; set++) {
+			int size = Integer.bitCount(set);
+			sets[starts[size]] = set;
+			starts[size]++;
+		}
+		return sets;
+	}
+
+	// number of ways to choose k cities out of n
+	private static int binomial(int n, int k) {
+		long result = 1;
+		for (int index = 1; index <= k; index++) {
+			result = result * (n - k + index) / index;
+		}
+		return (int) result;
+	}
+
+	// set the control that can stop the solver, or null for none
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+
+	// returns the number of costs calculated, one for each set and end city, which
+	// is less than the whole table when the solver was stopped
+	public long getNumStates() {
+		return numStates;
+	}
+}
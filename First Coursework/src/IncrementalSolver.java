@@ -0,0 +1,368 @@
+import java.util.Arrays;
+
+/*solver for a problem that changes a few cities at a time. It starts from the result
+of solving the problem and keeps its cities, the distances between them and the
+best route. When a city is added, removed or moved only its row and column of the
+distances are calculated, and the old route is repaired instead of solving the
+problem again: a new or moved city is placed where it makes the route the least
+longer, a removed city is taken out joining the cities around it, and then 2-opt and
+Or-opt moves are tried starting from the cities whose connections changed. The
+repaired route is returned as a heuristic route, or it is used as the first best
+route of the solver to prove it is the shortest one when re-proving is selected.
+A removed city is replaced by the last city, so the indexes of the cities change
+but their numbers do not, and a hash table gives the index of each number. The closest
+cities of every city are kept too, and only the lists of the cities near the city
+that changed are updated. The distances are calculated from the coordinates, so
+problems given by a distance matrix are not supported. The solver is used by one
+thread at a time*/
+public class IncrementalSolver implements Distances {
+	// number of closest cities considered for each city by the moves
+	private static final int NUM_NEIGHBOURS = 10;
+	// routes with fewer cities are not improved
+	private static final int MIN_IMPROVE_CITIES = 5;
+	// largest number of distances that fit in an array
+	private static final long MAX_DISTANCES = Integer.MAX_VALUE - 8;
+	private SolverOptions options;
+	private int size;
+	// number of cities that fit in the arrays before they have to grow
+	private int capacity;
+	private int[] cityNumbers;
+	// index of the city with each number
+	private CityIndexTable cityIndexes;
+	private int[] xPositions;
+	private int[] yPositions;
+	// distances between the cities, with a row of capacity cells for each city
+	private double[] distances;
+	// closest cities of each city sorted by distance, as many for every city
+	private int[][] neighbours;
+	// best route as indexes of the cities, starting at the first city
+	private int[] tour;
+	// if the solver proves the repaired route is the shortest one
+	private boolean reprove;
+
+	// create a solver for the problem of a result, which is solved with the options
+	// when re-proving is selected
+	public IncrementalSolver(SolverResult result, SolverOptions options) {
+		CityStore cities = result.getCities();
+		if (!cities.hasCoordinates()) {
+			throw new IllegalArgumentException("The incremental solver needs cities with coordinates");
+		}
+		this.options = options;
+		this.size = cities.getSize();
+		this.capacity = Math.max(16, size * 2);
+		if ((long) capacity * capacity > MAX_DISTANCES) {
+			throw new IllegalArgumentException("Too many cities for an incremental solver: " + size);
+		}
+		this.cityNumbers = Arrays.copyOf(cities.getCityNumbers(), capacity);
+		this.cityIndexes = new CityIndexTable(capacity);
+		for (int city = 0; city < size; city++) {
+			if (cityIndexes.putIfAbsent(cityNumbers[city], city) != -1) {
+				throw new IllegalArgumentException("There are two cities " + cityNumbers[city]);
+			}
+		}
+		this.xPositions = Arrays.copyOf(cities.getXPositions(), capacity);
+		this.yPositions = Arrays.copyOf(cities.getYPositions(), capacity);
+		this.distances = new double[capacity * capacity];
+		for (int city = 0; city < size; city++) {
+			fillDistances(city);
+		}
+		this.neighbours = new int[capacity][];
+		calculateNeighbours();
+		this.tour = result.getPath().clone();
+	}
+
+	// add a city with a number that is not used yet and return the new route
+	public SolverResult addCity(int cityNumber, int xPosition, int yPosition) {
+		if (cityIndexes.get(cityNumber) != -1) {
+			throw new IllegalArgumentException("There is already a city " + cityNumber);
+		}
+		if (size == capacity) {
+			grow();
+		}
+		int city = size;
+		size++;
+		cityNumbers[city] = cityNumber;
+		cityIndexes.putIfAbsent(cityNumber, city);
+		xPositions[city] = xPosition;
+		yPositions[city] = yPosition;
+		fillDistances(city);
+		if (city == 0 || numNeighbours() != neighbours[0].length) {
+			calculateNeighbours();
+		} else {
+			neighbours[city] = TourHeuristic.calculateNeighbours(this, city, numNeighbours());
+			for (int otherCity = 0; otherCity < city; otherCity++) {
+				addNeighbour(otherCity, city);
+			}
+		}
+		return repair(insertCity(city));
+	}
+
+	// remove a city and return the new route
+	public SolverResult removeCity(int cityNumber) {
+		int city = indexOf(cityNumber);
+		int[] changedCities = takeOutCity(city);
+		int lastCity = size - 1;
+		// the cities close to the removed city need their closest cities again
+		boolean[] outdated = new boolean[size];
+		for (int otherCity = 0; otherCity < size; otherCity++) {
+			outdated[otherCity] = contains(neighbours[otherCity], city);
+		}
+		cityIndexes.remove(cityNumber);
+		if (city != lastCity) {
+			// the last city takes the place of the removed city
+			cityNumbers[city] = cityNumbers[lastCity];
+			cityIndexes.put(cityNumbers[city], city);
+			xPositions[city] = xPositions[lastCity];
+			yPositions[city] = yPositions[lastCity];
+			for (int otherCity = 0; otherCity < lastCity; otherCity++) {
+				double distance = otherCity == city ? Double.POSITIVE_INFINITY
+						: distances[lastCity * capacity + otherCity];
+				distances[city * capacity + otherCity] = distance;
+				distances[otherCity * capacity + city] = distance;
+			}
+			replaceCity(tour, lastCity, city);
+			replaceCity(changedCities, lastCity, city);
+			neighbours[city] = neighbours[lastCity];
+			outdated[city] = outdated[lastCity];
+			for (int otherCity = 0; otherCity < lastCity; otherCity++) {
+				replaceCity(neighbours[otherCity], lastCity, city);
+			}
+		}
+		neighbours[lastCity] = null;
+		size--;
+		if (size > 0 && numNeighbours() != neighbours[0].length) {
+			calculateNeighbours();
+		} else {
+			for (int otherCity = 0; otherCity < size; otherCity++) {
+				if (outdated[otherCity]) {
+					neighbours[otherCity] = TourHeuristic.calculateNeighbours(this, otherCity, numNeighbours());
+				}
+			}
+		}
+		return repair(changedCities);
+	}
+
+	// move a city to new coordinates and return the new route
+	public SolverResult moveCity(int cityNumber, int xPosition, int yPosition) {
+		int city = indexOf(cityNumber);
+		int[] oldNeighbours = takeOutCity(city);
+		xPositions[city] = xPosition;
+		yPositions[city] = yPosition;
+		fillDistances(city);
+		neighbours[city] = TourHeuristic.calculateNeighbours(this, city, numNeighbours());
+		for (int otherCity = 0; otherCity < size; otherCity++) {
+			if (otherCity == city) {
+				continue;
+			}
+			if (contains(neighbours[otherCity], city)) {
+				// the city may now be further than cities that are not in the list
+				neighbours[otherCity] = TourHeuristic.calculateNeighbours(this, otherCity, numNeighbours());
+			} else {
+				addNeighbour(otherCity, city);
+			}
+		}
+		int[] newNeighbours = insertCity(city);
+		int[] changedCities = Arrays.copyOf(oldNeighbours, oldNeighbours.length + newNeighbours.length);
+		System.arraycopy(newNeighbours, 0, changedCities, oldNeighbours.length, newNeighbours.length);
+		return repair(changedCities);
+	}
+
+	// calculate the row and the column of the distances of a city
+	private void fillDistances(int city) {
+		for (int otherCity = 0; otherCity < size; otherCity++) {
+			double distance = Double.POSITIVE_INFINITY;
+			if (otherCity != city) {
+				long xDifference = (long) xPositions[city] - xPositions[otherCity];
+				long yDifference = (long) yPositions[city] - yPositions[otherCity];
+				distance = Math.sqrt(xDifference * xDifference + yDifference * yDifference);
+			}
+			distances[city * capacity + otherCity] = distance;
+			distances[otherCity * capacity + city] = distance;
+		}
+	}
+
+	// number of closest cities of each city
+	private int numNeighbours() {
+		return Math.max(0, Math.min(NUM_NEIGHBOURS, size - 1));
+	}
+
+	// find the closest cities of every city, which is only needed when their number
+	// changes
+	private void calculateNeighbours() {
+		int[][] newNeighbours = TourHeuristic.calculateNeighbours(this, numNeighbours());
+		System.arraycopy(newNeighbours, 0, neighbours, 0, size);
+	}
+
+	// put a city in the closest cities of another city that does not have it, when
+	// it is closer than the last one, keeping the list sorted by distance
+	private void addNeighbour(int city, int newCity) {
+		int[] cityNeighbours = neighbours[city];
+		int index = cityNeighbours.length - 1;
+		double distance = get(city, newCity);
+		if (index < 0 || distance >= get(city, cityNeighbours[index])) {
+			return;
+		}
+		while (index > 0 && get(city, cityNeighbours[index - 1]) > distance) {
+			cityNeighbours[index] = cityNeighbours[index - 1];
+			index--;
+		}
+		cityNeighbours[index] = newCity;
+	}
+
+	// check if an array has a city
+	private static boolean contains(int[] cities, int city) {
+		for (int otherCity : cities) {
+			if (otherCity == city) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// double the capacity of the arrays, copying the rows of the distances
+	private void grow() {
+		int newCapacity = capacity * 2;
+		if ((long) newCapacity * newCapacity > MAX_DISTANCES) {
+			throw new IllegalArgumentException("Too many cities for an incremental solver: " + size);
+		}
+		double[] newDistances = new double[newCapacity * newCapacity];
+		for (int row = 0; row < size; row++) {
+			System.arraycopy(distances, row * capacity, newDistances, row * newCapacity, size);
+		}
+		cityNumbers = Arrays.copyOf(cityNumbers, newCapacity);
+		xPositions = Arrays.copyOf(xPositions, newCapacity);
+		yPositions = Arrays.copyOf(yPositions, newCapacity);
+		neighbours = Arrays.copyOf(neighbours, newCapacity);
+		distances = newDistances;
+		capacity = newCapacity;
+	}
+
+	/*
+	 * place a city in the route between the two cities where it makes the route the
+	 * least longer, and return the cities whose connections changed
+	 */
+	private int[] insertCity(int city) {
+		int length = tour.length;
+		int bestPosition = length;
+		double bestIncrease = Double.POSITIVE_INFINITY;
+		if (length >= 2) {
+			for (int index = 0; index < length; index++) {
+				int previousCity = tour[index];
+				int nextCity = tour[(index + 1) % length];
+				double increase = get(previousCity, city) + get(city, nextCity) - get(previousCity, nextCity);
+				if (increase < bestIncrease) {
+					bestIncrease = increase;
+					bestPosition = index + 1;
+				}
+			}
+		}
+		int[] newTour = new int[length + 1];
+		System.arraycopy(tour, 0, newTour, 0, bestPosition);
+		newTour[bestPosition] = city;
+		System.arraycopy(tour, bestPosition, newTour, bestPosition + 1, length - bestPosition);
+		tour = newTour;
+		if (length == 0) {
+			return new int[] { city };
+		}
+		return new int[] { tour[bestPosition - 1], city, tour[(bestPosition + 1) % tour.length] };
+	}
+
+	// take a city out of the route, joining the cities before and after it, and
+	// return these cities
+	private int[] takeOutCity(int city) {
+		int length = tour.length;
+		int position = 0;
+		while (tour[position] != city) {
+			position++;
+		}
+		int[] newTour = new int[length - 1];
+		System.arraycopy(tour, 0, newTour, 0, position);
+		System.arraycopy(tour, position + 1, newTour, position, length - position - 1);
+		tour = newTour;
+		if (newTour.length == 0) {
+			return new int[0];
+		}
+		return new int[] { newTour[(position - 1 + newTour.length) % newTour.length],
+				newTour[position % newTour.length] };
+	}
+
+	// replace a city of an array by another city
+	private static void replaceCity(int[] cities, int oldCity, int newCity) {
+		for (int index = 0; index < cities.length; index++) {
+			if (cities[index] == oldCity) {
+				cities[index] = newCity;
+			}
+		}
+	}
+
+	/*
+	 * improve the route from the cities whose connections changed and return it as
+	 * a result, solving the problem from it when re-proving is selected
+	 */
+	private SolverResult repair(int[] changedCities) {
+		if (size >= MIN_IMPROVE_CITIES) {
+			TourHeuristic heuristic = new TourHeuristic(this, neighbours);
+			tour = heuristic.improve(tour, changedCities);
+		}
+		if (size > 0) {
+			tour = TourHeuristic.rotate(tour, 0);
+		}
+		CityStore cities = new CityStore(Arrays.copyOf(cityNumbers, size), Arrays.copyOf(xPositions, size),
+				Arrays.copyOf(yPositions, size));
+		if (size <= 2) {
+			// the only route, like Main.solve gives, and a single city travels nothing
+			return new SolverResult(cities, tour.clone(), size == 2 ? getRouteLength(tour) : 0.0, 0);
+		}
+		if (!reprove) {
+			// the repaired route is not known to be the shortest one
+			return new SolverResult(cities, tour.clone(), getRouteLength(tour), 0, 0.0, SolverResult.HEURISTIC_ONLY);
+		}
+		SolverResult result = Main.solve(cities, toDistanceMatrix(), tour.clone(), options);
+		tour = result.getPath().clone();
+		return result;
+	}
+
+	// copy the distances to a matrix with a row of size cells for each city
+	public DistanceMatrix toDistanceMatrix() {
+		double[] matrixDistances = new double[size * size];
+		for (int row = 0; row < size; row++) {
+			System.arraycopy(distances, row * capacity, matrixDistances, row * size, size);
+		}
+		return new DistanceMatrix(size, matrixDistances, false, true);
+	}
+
+	// find the index of a city number that has to be in the problem
+	private int indexOf(int cityNumber) {
+		int city = cityIndexes.get(cityNumber);
+		if (city == -1) {
+			throw new IllegalArgumentException("There is no city " + cityNumber);
+		}
+		return city;
+	}
+
+	// returns the number of cities
+	@Override
+	public int getSize() {
+		return size;
+	}
+
+	// get the distance between two cities, infinity for the same city
+	@Override
+	public double get(int row, int col) {
+		return distances[row * capacity + col];
+	}
+
+	// getters and setters for re-proving that the repaired route is the shortest one
+	public void setReprove(boolean reprove) {
+		this.reprove = reprove;
+	}
+
+	public boolean isReprove() {
+		return reprove;
+	}
+
+	// returns the best route as indexes of the cities, starting at the first city
+	public int[] getTour() {
+		return tour.clone();
+	}
+}
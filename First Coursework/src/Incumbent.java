@@ -0,0 +1,77 @@
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*this class stores the best route found so far by a search. The cost can be read
+by many threads at the same time without locking, so every thread can discard the
+vertices that cannot improve the best route, while a new route is only stored when
+its cost is lower than the current one. The listeners are told about every new route
+while the lock is held, so they see the routes in order*/
+public class Incumbent {
+	// bits of the cost of the best route, stored as a long to update it atomically
+	private AtomicLong costBits;
+	private int[] path;
+	// metrics told about every better route, or null
+	private SearchMetrics metrics;
+	private List<SearchListener> listeners;
+	// time the incumbent was created, when the search started
+	private long startTime;
+
+	// create an incumbent without route and with infinite cost
+	public Incumbent() {
+		this.costBits = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+		this.path = null;
+		this.listeners = new CopyOnWriteArrayList<>();
+		this.startTime = System.nanoTime();
+	}
+
+	// store the current path of a search state if its cost improves the best route
+	public synchronized boolean offer(SearchState state) {
+		if (state.getCost() >= getCost()) {
+			return false;
+		}
+		int[] newPath = new int[state.getDepth()];
+		for (int level = 0; level < newPath.length; level++) {
+			newPath[level] = state.getCity(level);
+		}
+		return offer(state.getCost(), newPath);
+	}
+
+	// store a path and its cost if the cost improves the best route
+	public synchronized boolean offer(double cost, int[] newPath) {
+		if (cost >= getCost()) {
+			return false;
+		}
+		path = newPath;
+		costBits.set(Double.doubleToLongBits(cost));
+		if (metrics != null) {
+			metrics.incumbentImproved(cost, newPath);
+		}
+		if (!listeners.isEmpty()) {
+			long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+			for (SearchListener listener : listeners) {
+				listener.incumbentImproved(cost, newPath.clone(), elapsedTime);
+			}
+		}
+		return true;
+	}
+
+	// add a listener that is told about every better route
+	public void addListener(SearchListener listener) {
+		listeners.add(listener);
+	}
+
+	// set the metrics that record the improvements of the best route
+	public synchronized void setMetrics(SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	// getters for the cost and the path of the best route
+	public double getCost() {
+		return Double.longBitsToDouble(costBits.get());
+	}
+
+	public synchronized int[] getPath() {
+		return path;
+	}
+}
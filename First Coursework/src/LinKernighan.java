@@ -0,0 +1,125 @@
+/*heuristic for big problems based on the moves of Lin and Kernighan. A move removes
+a connection of a city and adds a connection from its other end to one of its
+closest cities, which leaves one connection too many at that city. Removing the
+right connection there and closing the route is a 2-opt move, so the move is made
+and, if closing the route does not make it shorter, the search goes on from the new
+end as long as the connections removed are longer than the ones added. This finds
+moves of up to MAX_DEPTH + 1 connections, and the moves that do not improve the route
+are undone. Or-opt moves are tried as well when no such move is found*/
+public class LinKernighan extends TourHeuristic {
+	// number of 2-opt moves made before giving up on a city
+	private static final int MAX_DEPTH = 30;
+	// number of closest cities tried at the first levels of the search, one city is
+	// tried at the deeper levels
+	private static final int[] BREADTH = { 5, 3 };
+	// close cities that can be tried at each level and the length removed minus the
+	// length added by each one
+	private int[][] candidateCities;
+	private double[][] candidateValues;
+	// connections added at each level, which cannot be removed again by the move
+	private int[] addedFrom;
+	private int[] addedTo;
+
+	// create the heuristic for the distances between the cities and the closest
+	// cities of every city
+	public LinKernighan(Distances distances, int[][] neighbours) {
+		super(distances, neighbours);
+		int numNeighbours = neighbours.length == 0 ? 0 : neighbours[0].length;
+		this.candidateCities = new int[MAX_DEPTH][numNeighbours];
+		this.candidateValues = new double[MAX_DEPTH][numNeighbours];
+		this.addedFrom = new int[MAX_DEPTH];
+		this.addedTo = new int[MAX_DEPTH];
+	}
+
+	// create the heuristic for the cities of a store, finding the closest cities
+	// with a grid so no distance matrix is needed
+	public static LinKernighan fromCities(CityStore cities, int numNeighbours) {
+		NeighbourDistances distances = new NeighbourDistances(cities, numNeighbours);
+		return new LinKernighan(distances, distances.getNeighbours());
+	}
+
+	@Override
+	protected boolean improveCity(int city) {
+		for (int direction = 0; direction < 2; direction++) {
+			int nextCity = direction == 0 ? tour.next(city) : tour.previous(city);
+			if (improveFrom(city, nextCity, distances.get(city, nextCity), 1)) {
+				return true;
+			}
+		}
+		return improveOrOpt(city);
+	}
+
+	/*
+	 * look for a move after the connection between the first city and the end city
+	 * was removed, with gain as the length removed minus the length added. Each
+	 * close city of the end city is joined to it, the connection of the close city
+	 * on the side of the first city is removed and the route is closed at the first
+	 * city. The close cities are tried starting with the one where the connection
+	 * removed is longest compared to the one added. Returns true when a move that
+	 * makes the route shorter was made
+	 */
+	private boolean improveFrom(int firstCity, int endCity, double gain, int depth) {
+		boolean endIsNext = tour.next(firstCity) == endCity;
+		int[] cities = candidateCities[depth - 1];
+		double[] values = candidateValues[depth - 1];
+		int numCandidates = 0;
+		for (int index = 0; index < neighbours[endCity].length; index++) {
+			int otherCity = neighbours[endCity][index];
+			double addedDistance = distances.get(endCity, otherCity);
+			// the other cities are further away
+			if (gain - addedDistance <= MIN_IMPROVEMENT) {
+				break;
+			}
+			int otherEndCity = endIsNext ? tour.previous(otherCity) : tour.next(otherCity);
+			if (otherCity == firstCity || otherEndCity == endCity || isAdded(otherCity, otherEndCity, depth)) {
+				continue;
+			}
+			// insert the city keeping the candidates sorted by value
+			double value = distances.get(otherCity, otherEndCity) - addedDistance;
+			int position = numCandidates;
+			while (position > 0 && values[position - 1] < value) {
+				cities[position] = cities[position - 1];
+				values[position] = values[position - 1];
+				position--;
+			}
+			cities[position] = otherCity;
+			values[position] = value;
+			numCandidates++;
+		}
+		int breadth = depth <= BREADTH.length ? BREADTH[depth - 1] : 1;
+		for (int index = 0; index < Math.min(breadth, numCandidates); index++) {
+			int otherCity = cities[index];
+			int otherEndCity = endIsNext ? tour.previous(otherCity) : tour.next(otherCity);
+			double removedGain = gain + values[index];
+			addedFrom[depth - 1] = endCity;
+			addedTo[depth - 1] = otherCity;
+			makeTwoOptMove(endCity, firstCity, otherCity, otherEndCity);
+			if (removedGain - distances.get(otherEndCity, firstCity) > MIN_IMPROVEMENT) {
+				addToQueue(firstCity);
+				addToQueue(endCity);
+				addToQueue(otherCity);
+				addToQueue(otherEndCity);
+				return true;
+			}
+			if (depth < MAX_DEPTH && improveFrom(firstCity, otherEndCity, removedGain, depth + 1)) {
+				addToQueue(endCity);
+				addToQueue(otherCity);
+				return true;
+			}
+			// undo the move
+			makeTwoOptMove(endCity, otherCity, firstCity, otherEndCity);
+		}
+		return false;
+	}
+
+	// check if a connection was added by the levels before the given one
+	private boolean isAdded(int city, int otherCity, int depth) {
+		for (int level = 0; level < depth - 1; level++) {
+			if ((addedFrom[level] == city && addedTo[level] == otherCity)
+					|| (addedFrom[level] == otherCity && addedTo[level] == city)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
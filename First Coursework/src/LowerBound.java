@@ -0,0 +1,22 @@
+/*interface for the lower bounds used by branch and bound. A lower bound calculates
+the cost of the current path of a search state, which can never be higher than the
+length of any complete route that starts with that path. Each vertex keeps a fixed
+number of values of the bound, so the bound of a new city can start from the values
+of the last vertex instead of being calculated from the beginning*/
+public interface LowerBound {
+
+	// number of values the bound keeps for each vertex of a problem with the given
+	// number of cities
+	int getStateSize(int numCities);
+
+	/*
+	 * calculate the bound of the last city added to the search state. The values
+	 * and the cost of the last vertex are given, or null and 0 for the initial city,
+	 * and the values of the new vertex are stored in the given array
+	 */
+	double calculateBound(SearchState state, double parentCost, double[] parentValues, double[] values);
+
+	// create a new bound of the same type with its own working memory, so it can be
+	// used by a search state in another thread
+	LowerBound copy();
+}
@@ -1,217 +1,910 @@
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Timer;
 
 /*system to solve symmetric TSP problem using branch and bound algorithm.
 The system creates a matrix with the distances between the different cities,
 creating a vertex with the first city as the initial city and from this generates
 new vertices as the possible routes to find the shortest path*/
 public class Main {
+	// search strategies that can be selected to run branch and bound
+	public static final String BEST_FIRST = "best-first";
+	public static final String DEPTH_FIRST = "depth-first";
+	public static final String PARALLEL = "parallel";
+	public static final String HEURISTIC = "heuristic";
+	public static final String HELD_KARP = "held-karp";
+	// selects Held-Karp for small problems and best first search for the others, or
+	// the 1-tree bound for a symmetric matrix and the reduction bound for the others
+	public static final String AUTO = "auto";
+	// lower bounds that can be selected for branch and bound
+	public static final String REDUCTION_BOUND = "reduction";
+	public static final String ONE_TREE_BOUND = "one-tree";
+	// number of closest cities of each city used by the heuristic for big problems
+	private static final int NUM_NEIGHBOURS = 10;
+	// problems with up to this many cities are solved with Held-Karp by default
+	private static final int HELD_KARP_AUTO_CITIES = 20;
+	// milliseconds each strategy of a comparison can run for when no time limit is
+	// selected
+	private static final long COMPARE_TIME_LIMIT = 60000;
+	// file solved when no file is given
+	private static final String DEFAULT_FILE = "test1-23.txt";
+
 	/*
 	 * method to extract the city number, x coordinate and y coordinate from the
-	 * file and store them inside an array list
+	 * file and store them inside an array list. The file is read by the city file
+	 * reader, and a file that cannot be read or a line that is not a city is
+	 * reported with an exception instead of returning part of the cities
 	 */
-	public static CityList readFile(String fileName) {
-		CityList cities = new CityList();
-		try {
-			FileReader fileReader = new FileReader(fileName);
-			BufferedReader bufferedReader = new BufferedReader(fileReader);
-			String line;
-			while ((line = bufferedReader.readLine()) != null) {
-				line = line.trim();
-				// separate the city data divided by spaces or tabs
-				String[] cityData = line.split("[\\s\t]+");
-				int cityDataParts = 3;
-				if (cityData.length >= cityDataParts) {
-					int cityNumber = Integer.parseInt(cityData[0].trim());
-					int xPosition = Integer.parseInt(cityData[1].trim());
-					int yPosition = Integer.parseInt(cityData[2].trim());
-					// create a city object and store data for each city
-					City city = new City(cityNumber, xPosition, yPosition);
-					cities.add(city);
-				}
-			}
-			bufferedReader.close();
-		} catch (IOException readingFileError) {
-			// catch any error if there is a problem reading the file
-			readingFileError.printStackTrace();
-		}
-		return cities;
+	public static CityList readFile(String fileName) throws IOException {
+		return CityFileReader.read(fileName).toCityList();
 	}
 
 	// method to create a matrix with the distance between all the cities
 	// and setting the distance between the same city as infinity
-	public static double[][] generateDistanceMatrix(CityList cities) {
-		int numCities = cities.getSize();
-		// dimensional array to store cities distances
-		double[][] distanceMatrix = new double[numCities][numCities];
-		for (int row = 0; row < numCities; row++) {
-			for (int col = 0; col < numCities; col++) {
-				if (row == col) {
-					// set the distance between the same cities as infinity
-					distanceMatrix[row][col] = Double.POSITIVE_INFINITY;
-				} else {
-					// calculate the distance between city i and city j
-					double distance = cities.getElement(row).calculateDistance(cities.getElement(col));
-					distanceMatrix[row][col] = distance;
-				}
+	public static DistanceMatrix generateDistanceMatrix(CityStore cities) {
+		return DistanceMatrix.fromCities(cities);
+	}
+
+	/*
+	 * method to create new vertices from a given vertex. The search state is moved to
+	 * the path of the vertex and each remaining city is added and removed again, so
+	 * the new vertices only store their city and cost. Cities the state says do not
+	 * have to be explored get no vertex
+	 */
+	public static Vertex[] generateVertecies(SearchState state, Vertex vertex) {
+		state.restore(vertex);
+		int numCities = state.getNumCities();
+		// for each city not visited yet create a new vertex
+		Vertex vertexList[] = new Vertex[numCities - state.getDepth()];
+		int index = 0;
+		for (int city = 0; city < numCities; city++) {
+			if (!state.isVisited(city) && !state.isRedundant(city)) {
+				state.push(city);
+				vertexList[index] = new Vertex(vertex, city, state.getCost());
+				state.pop();
+				index++;
 			}
 		}
-		return distanceMatrix;
+		if (index < vertexList.length) {
+			return Arrays.copyOf(vertexList, index);
+		}
+		return vertexList;
 	}
 
-	// method to create new vertices from a given vertex
-	public static Vertex[] generateVertecies(Vertex vertex) {
-		CityList remainingCities = vertex.getRemainingCities();
-		// for each city in the remainingCities create a new vertex
-		Vertex vertexList[] = new Vertex[remainingCities.getSize()];
-		for (int index = 0; index < remainingCities.getSize(); index++) {
-			Vertex vertexCopy = new Vertex();
-			// create a copy for the original vertex to avoid referencing the data in the
-			// new vertices
-			vertexCopy.createCopy(vertex);
-			Vertex newVertex = new Vertex(vertexCopy.getRemainingCities().getElement(index),
-					vertexCopy.getVisitedCities(), vertexCopy.getRemainingCities(), vertexCopy.getReducedMatrix(),
-					vertexCopy.getOriginalMatrix(), vertexCopy.getCost());
-			vertexList[index] = newVertex;
+	/*
+	 * method to run branch and bound algorithm taking a list of cities. The
+	 * algorithm creates an initial vertex and always explores the open vertex with
+	 * the lowest cost, taken from a heap of vertices
+	 */
+	public static CityList branchAndBound(CityList cities) {
+		SolverOptions options = new SolverOptions();
+		options.setStrategy(BEST_FIRST);
+		return optimalRoute(solve(cities, options));
+	}
+
+	/*
+	 * method to run depth first branch and bound taking a list of cities. It finds
+	 * the same route as branchAndBound, but only keeps the current path in memory
+	 * instead of all the open vertices
+	 */
+	public static CityList depthFirstBranchAndBound(CityList cities) {
+		SolverOptions options = new SolverOptions();
+		options.setStrategy(DEPTH_FIRST);
+		return optimalRoute(solve(cities, options));
+	}
+
+	/*
+	 * method to run parallel branch and bound taking a list of cities and the number
+	 * of threads. The subtrees of the search are explored depth first by different
+	 * threads that share the best route found so far
+	 */
+	public static CityList parallelBranchAndBound(CityList cities, int parallelism) {
+		SolverOptions options = new SolverOptions();
+		options.setStrategy(PARALLEL);
+		options.setParallelism(parallelism);
+		return optimalRoute(solve(cities, options));
+	}
+
+	// method to return the route of a result that has to be the shortest route, the
+	// methods above only return a route and could not say it is not
+	private static CityList optimalRoute(SolverResult result) {
+		if (!result.isOptimal()) {
+			throw new IllegalStateException("The search stopped by " + result.getStopReason()
+					+ " before proving the shortest route, the gap is "
+					+ String.format("%.2f%%", 100.0 * result.getGap()));
 		}
-		return vertexList;
+		return result.getRoute();
+	}
+
+	// method to create the lower bound with the given name
+	public static LowerBound createBound(String bound) {
+		if (bound.equals(REDUCTION_BOUND)) {
+			return new ReductionBound();
+		}
+		if (bound.equals(ONE_TREE_BOUND)) {
+			return new OneTreeBound();
+		}
+		throw new IllegalArgumentException("Unknown bound " + bound);
+	}
+
+	// method to choose the bound for a distance matrix: the 1-tree bound needs a
+	// symmetric matrix, and when it is not selected it is used for every symmetric
+	// matrix because it discards many more vertices than the reduction bound
+	public static String chooseBound(DistanceMatrix distanceMatrix, String bound) {
+		if (!distanceMatrix.isSymmetric()) {
+			return REDUCTION_BOUND;
+		}
+		return bound.equals(AUTO) ? ONE_TREE_BOUND : bound;
+	}
+
+	// method to create the search state of branch and bound with the transposition
+	// table and the direction of the routes of the options
+	private static SearchState createState(DistanceMatrix distanceMatrix, LowerBound bound,
+			TranspositionTable table, SolverOptions options) {
+		SearchState state = new SearchState(distanceMatrix, bound);
+		state.setTranspositionTable(table);
+		state.setSymmetryBreaking(options.isSymmetryBreaking());
+		return state;
 	}
 
 	/*
-	 * method that takes the best possible routes found by the branch and bound
-	 * algorithm, and returns the optimal route between these, checking the routes
-	 * length
+	 * method to find a good route for a list of cities in a short time, without
+	 * proving that it is the shortest route. It can be used for problems too big
+	 * for branch and bound
 	 */
-	public static Vertex getBestPath(VertexList allBestRoutes, Vertex initialVertex) {
-		double min = Double.POSITIVE_INFINITY;
-		int index = 0;
-		// from the best routes, get the route with minimum cost
-		for (int arrayIndex = 0; arrayIndex < allBestRoutes.getSize(); arrayIndex++) {
-			CityList visitedCities = new CityList(allBestRoutes.getElement(arrayIndex).getVisitedCities());
-			visitedCities.add(initialVertex.getActualCity());
-			double pathCost = visitedCities.calculatePathLength();
-			min = Math.min(min, pathCost);
+	public static CityList heuristicRoute(CityList cities) {
+		SolverOptions options = new SolverOptions();
+		options.setStrategy(HEURISTIC);
+		return solve(cities, options).getRoute();
+	}
+
+	/*
+	 * method to choose the strategy for a problem when it is not selected: small
+	 * problems are solved with Held-Karp when its table fits in the memory limit,
+	 * which takes the same time for every problem of the same size, problems too
+	 * big for branch and bound with the heuristic, which needs no distance matrix,
+	 * and the others with best first branch and bound
+	 */
+	public static String chooseStrategy(int numCities, SolverOptions options) {
+		if (numCities <= HELD_KARP_AUTO_CITIES
+				&& HeldKarpSolver.estimateMemory(numCities) <= options.getHeldKarpMemoryLimit()) {
+			return HELD_KARP;
+		}
+		if (numCities > SearchState.MAX_CITIES) {
+			return HEURISTIC;
+		}
+		return BEST_FIRST;
+	}
+
+	/*
+	 * method to solve the cities of a file with the selected options, which other
+	 * programs can use to solve a problem without starting a new JVM. A TSPLIB file
+	 * or a binary file is solved with the distances it has, and the result is
+	 * written to a binary solution file next to the file when it is selected
+	 */
+	public static SolverResult solve(String fileName, SolverOptions options) throws IOException {
+		ProblemFile problem = ProblemFile.read(fileName);
+		SolverResult result = solve(problem.getCities(), problem.getDistances(), options);
+		if (options.isWriteSolution()) {
+			BinarySolutionFile.write(BinaryCityFile.changeExtension(fileName, BinarySolutionFile.EXTENSION), result);
 		}
-		for (int arrayIndex = 0; arrayIndex < allBestRoutes.getSize(); arrayIndex++) {
-			CityList visitedCities = new CityList(allBestRoutes.getElement(arrayIndex).getVisitedCities());
-			visitedCities.add(initialVertex.getActualCity());
-			double pathCost = visitedCities.calculatePathLength();
-			if (min == pathCost) {
-				index = arrayIndex;
+		return result;
+	}
+
+	/*
+	 * method to convert a text or TSPLIB file to a binary file next to it, with the
+	 * given number of closest cities of every city or 0 for none and the distance
+	 * matrix when selected, and return the name of the binary file. The distance
+	 * matrix of a TSPLIB file is always kept, because its cities have no coordinates
+	 */
+	public static String convertFile(String fileName, int numNeighbours, boolean withMatrix) throws IOException {
+		ProblemFile problem = ProblemFile.read(fileName);
+		CityStore cities = problem.getCities();
+		int[][] neighbours = numNeighbours > 0 && cities.hasCoordinates()
+				? new NeighbourDistances(cities, numNeighbours).getNeighbours()
+				: problem.getNeighbours();
+		DistanceMatrix distanceMatrix = problem.getDistanceMatrix();
+		if (distanceMatrix == null && withMatrix) {
+			distanceMatrix = generateDistanceMatrix(cities);
+		}
+		String binaryFileName = BinaryCityFile.changeExtension(fileName, BinaryCityFile.EXTENSION);
+		BinaryCityFile.write(binaryFileName, cities, neighbours, distanceMatrix);
+		return binaryFileName;
+	}
+
+	// method to solve a list of cities with the selected options, copying the
+	// cities to a store first
+	public static SolverResult solve(CityList cities, SolverOptions options) {
+		return solve(CityStore.fromCityList(cities), options);
+	}
+
+	/*
+	 * method to solve the cities of a store with the selected options. Unless it is
+	 * disabled, the branch and bound strategies start with the heuristic route as
+	 * the best route, so vertices are discarded from the beginning. The solver stops
+	 * at the limits of the options or when their control is cancelled, and returns
+	 * the best route found so far with a lower bound of the shortest route. When
+	 * the options have metrics, branch and bound counts its vertices in them,
+	 * reports its progress at the selected interval and registers them with JMX if
+	 * selected. When the options have a cache, a problem found in it returns the
+	 * route of the cache without searching, and an optimal route is stored in it
+	 */
+	public static SolverResult solve(CityStore cities, SolverOptions options) {
+		return solve(cities, null, options);
+	}
+
+	// method to solve the cities of a store like the method above, using distances
+	// already calculated for them or null to calculate them. Cities without
+	// coordinates are not looked for in the cache, which finds problems by them, and
+	// neither are problems solved with the heuristic, whose routes are never stored
+	public static SolverResult solve(CityStore cities, Distances distances, SolverOptions options) {
+		SolutionCache cache = options.getCache();
+		String strategy = options.getStrategy();
+		if (strategy.equals(AUTO)) {
+			strategy = chooseStrategy(cities.getSize(), options);
+		}
+		if (cache == null || !cities.hasCoordinates() || strategy.equals(HEURISTIC)) {
+			return solve(cities, distances, null, options);
+		}
+		long startTime = System.nanoTime();
+		int[] cachedPath = cache.get(cities);
+		if (cachedPath != null) {
+			SolverResult result = new SolverResult(cities, cachedPath, cities.getRouteLength(cachedPath), 0);
+			recordResult(options, result, startTime);
+			return result;
+		}
+		SolverResult result = solve(cities, distances, null, options);
+		if (result.isOptimal()) {
+			cache.put(cities, result.getPath());
+		}
+		return result;
+	}
+
+	/*
+	 * method to solve the cities of a store with the selected options, without
+	 * looking for them in the cache, using distances already calculated or null to
+	 * calculate them, and a route to start from or null to start from the heuristic
+	 * route. Held-Karp and branch and bound use the distances when they are a
+	 * distance matrix and the heuristic when they are the closest cities. Held-Karp
+	 * does not use the route, while the heuristic improves it and branch and bound
+	 * starts with it as the best route. The 1-tree bound and the moves of the
+	 * heuristic that assume symmetric distances are only used for a symmetric
+	 * matrix, a matrix that is not symmetric uses the reduction bound and the
+	 * nearest neighbour route
+	 */
+	public static SolverResult solve(CityStore cities, Distances distances, int[] initialTour,
+			SolverOptions options) {
+		DistanceMatrix distanceMatrix = distances instanceof DistanceMatrix ? (DistanceMatrix) distances : null;
+		if (distanceMatrix == null && !cities.hasCoordinates()) {
+			throw new IllegalArgumentException("Cities without coordinates need a distance matrix");
+		}
+		long startTime = System.nanoTime();
+		// with one or two cities there is only one route, which the bounds and the
+		// heuristic do not handle, and a single city has no distance to travel
+		if (cities.getSize() <= 2) {
+			int[] path = new int[cities.getSize()];
+			for (int city = 0; city < path.length; city++) {
+				path[city] = city;
+			}
+			double cost = 0.0;
+			if (path.length == 2) {
+				cost = distanceMatrix != null ? distanceMatrix.getRouteLength(path) : cities.getRouteLength(path);
+			}
+			SolverResult result = new SolverResult(cities, path, cost, 0);
+			recordResult(options, result, startTime);
+			return result;
+		}
+		String strategy = options.getStrategy();
+		if (strategy.equals(AUTO)) {
+			// only best first search writes checkpoints
+			strategy = options.getCheckpointFile() != null && cities.getSize() <= SearchState.MAX_CITIES ? BEST_FIRST
+					: chooseStrategy(cities.getSize(), options);
+		}
+		if (options.getCheckpointFile() != null && !strategy.equals(BEST_FIRST)) {
+			throw new IllegalArgumentException("Checkpoints are only written by best first search, not " + strategy);
+		}
+		SearchControl control = options.getControl();
+		if (control == null) {
+			control = new SearchControl();
+		}
+		// the memory limit of branch and bound is only checked by best first search
+		control.setLimits(options.getTimeLimit(), options.getNodeLimit(), options.getMemoryLimit());
+		if (strategy.equals(HELD_KARP)) {
+			// check the memory needed before creating the table
+			long memory = HeldKarpSolver.estimateMemory(cities.getSize());
+			if (memory > options.getHeldKarpMemoryLimit()) {
+				throw new IllegalStateException("Held-Karp needs about " + memory / (1024 * 1024)
+						+ " MB for " + cities.getSize() + " cities, more than the limit of "
+						+ options.getHeldKarpMemoryLimit() / (1024 * 1024) + " MB");
+			}
+			if (distanceMatrix == null) {
+				distanceMatrix = generateDistanceMatrix(cities);
+			}
+			HeldKarpSolver solver = new HeldKarpSolver(distanceMatrix, options.getParallelism());
+			solver.setControl(control);
+			int[] path = solver.solve();
+			SolverResult result;
+			if (path == null) {
+				// the table is not complete, so the heuristic route is returned with the
+				// bound of the initial city
+				path = initialTour != null ? initialTour : heuristicTour(distanceMatrix, null);
+				result = new SolverResult(cities, path, distanceMatrix.getRouteLength(path), solver.getNumStates(),
+						calculateRootBound(distanceMatrix), control.getStopReason());
+			} else {
+				result = new SolverResult(cities, path, distanceMatrix.getRouteLength(path), solver.getNumStates());
+			}
+			recordResult(options, result, startTime);
+			return result;
+		}
+		if (strategy.equals(HEURISTIC) && distanceMatrix != null) {
+			SolverResult result = solveMatrixHeuristic(cities, distanceMatrix, initialTour, options, control);
+			recordResult(options, result, startTime);
+			return result;
+		}
+		if (strategy.equals(HEURISTIC)) {
+			// big problems have no distance matrix, the distances are calculated from
+			// the coordinates of the cities and only the closest cities of each city
+			// are kept, which also give a lower bound
+			NeighbourDistances neighbourDistances = distances instanceof NeighbourDistances
+					? (NeighbourDistances) distances
+					: new NeighbourDistances(cities, NUM_NEIGHBOURS);
+			LinKernighan heuristic = new LinKernighan(neighbourDistances, neighbourDistances.getNeighbours());
+			heuristic.setTimeLimit(options.getTimeLimit());
+			heuristic.setControl(control);
+			int[] path = initialTour == null ? heuristic.solve(0)
+					: TourHeuristic.rotate(heuristic.improve(initialTour), 0);
+			SolverResult result = new SolverResult(cities, path, neighbourDistances.getRouteLength(path), 0,
+					neighbourDistances.getLowerBound(), heuristicStopReason(control));
+			recordResult(options, result, startTime);
+			return result;
+		}
+		// check the size before creating a distance matrix that may not fit in memory
+		if (cities.getSize() > SearchState.MAX_CITIES) {
+			throw new IllegalArgumentException("Branch and bound supports up to " + SearchState.MAX_CITIES
+					+ " cities, use the heuristic for " + cities.getSize() + " cities");
+		}
+		// call method to create a distance matrix for the list of cities, a packed
+		// matrix given with the problem is unpacked because it is read faster and
+		// branch and bound only solves small problems
+		if (distanceMatrix == null) {
+			distanceMatrix = generateDistanceMatrix(cities);
+		} else {
+			distanceMatrix = distanceMatrix.unpack();
+		}
+		String boundName = chooseBound(distanceMatrix, options.getBound());
+		LowerBound bound = createBound(boundName);
+		// every search skips the paths that have a shorter way to the same state
+		TranspositionTable table = options.getTableSize() > 0
+				? TranspositionTable.forCities(distanceMatrix.getSize(), options.getTableSize())
+				: null;
+		SearchMetrics metrics = options.getMetrics();
+		Incumbent incumbent = new Incumbent();
+		for (SearchListener listener : options.getListeners()) {
+			incumbent.addListener(listener);
+		}
+		Timer progressTimer = null;
+		if (metrics != null) {
+			metrics.start();
+			incumbent.setMetrics(metrics);
+			if (options.isJmx()) {
+				metrics.registerMBean();
+			}
+			if (options.getProgressInterval() > 0) {
+				progressTimer = ProgressReporter.start(metrics, options.getProgressInterval());
 			}
 		}
-		// add to the end of the best route the initial city
-		allBestRoutes.getElement(index).getVisitedCities().add(initialVertex.getActualCity());
-		return allBestRoutes.getElement(index);
+		int[] path;
+		long nodesExpanded;
+		try {
+			if (initialTour != null) {
+				incumbent.offer(distanceMatrix.getRouteLength(initialTour), initialTour);
+			} else if (options.isInitialTour()) {
+				int[] tour = heuristicTour(distanceMatrix, control);
+				incumbent.offer(distanceMatrix.getRouteLength(tour), tour);
+			}
+			if (strategy.equals(DEPTH_FIRST)) {
+				DepthFirstSearch search = new DepthFirstSearch(createState(distanceMatrix, bound, table, options),
+						incumbent);
+				search.setMetrics(metrics);
+				search.setControl(control);
+				path = search.solve(0);
+				nodesExpanded = search.getNodesExpanded();
+			} else if (strategy.equals(PARALLEL)) {
+				ParallelSearch search = new ParallelSearch(distanceMatrix, bound, incumbent, options.getParallelism());
+				search.setMetrics(metrics);
+				search.setControl(control);
+				search.setTranspositionTable(table);
+				search.setSymmetryBreaking(options.isSymmetryBreaking());
+				path = search.solve(0);
+				nodesExpanded = search.getNodesExpanded();
+			} else if (strategy.equals(BEST_FIRST)) {
+				BestFirstSearch search = new BestFirstSearch(createState(distanceMatrix, bound, table, options),
+						incumbent);
+				search.setMetrics(metrics);
+				search.setControl(control);
+				if (options.getCheckpointFile() != null) {
+					setCheckpoints(search, cities, distanceMatrix, boundName, options);
+				}
+				path = search.solve(0);
+				nodesExpanded = search.getNodesExpanded();
+			} else {
+				throw new IllegalArgumentException("Unknown strategy " + strategy);
+			}
+		} finally {
+			if (progressTimer != null) {
+				progressTimer.cancel();
+			}
+			if (metrics != null && options.isJmx()) {
+				metrics.unregisterMBean();
+			}
+		}
+		// the search is complete when it left no vertex unexplored, even if a limit
+		// was reached at the end
+		if (control.getOpenBound() == Double.POSITIVE_INFINITY) {
+			return new SolverResult(cities, path, distanceMatrix.getRouteLength(path), nodesExpanded);
+		}
+		// a search stopped before finding a route returns the route it started from
+		// or the heuristic route
+		if (path == null) {
+			path = initialTour != null ? initialTour : heuristicTour(distanceMatrix, null);
+		}
+		return new SolverResult(cities, path, distanceMatrix.getRouteLength(path), nodesExpanded,
+				control.getOpenBound(), control.getStopReason());
 	}
 
-	// method to run branch and bound algorithm taking a list of cities
-	// the algorithm creates an initial vertex and from this generates new vertices
-	// for all possible routes
 	/*
-	 * every time that new vertices are generated, it checks for the vertex with
-	 * lower cost and checks if the selected vertex has complete path or not
+	 * method to give best first search a writer for the checkpoints of the options
+	 * and, when resuming, the checkpoint in the file. A checkpoint for other cities
+	 * or another bound, or a file that cannot be read, is reported with an
+	 * exception, and a search resumed without a file starts from the beginning
 	 */
+	private static void setCheckpoints(BestFirstSearch search, CityStore cities, DistanceMatrix distanceMatrix,
+			String bound, SolverOptions options) {
+		long problemHash = SearchCheckpoint.hashProblem(cities, distanceMatrix, bound);
+		Path checkpointFile = Paths.get(options.getCheckpointFile());
+		if (options.isResume() && !Files.exists(checkpointFile)) {
+			// the file is deleted when a search is complete, so running the same
+			// command again starts a new search
+			System.err.println("There is no checkpoint in " + checkpointFile + ", starting a new search");
+		} else if (options.isResume()) {
+			try {
+				search.setResumeCheckpoint(SearchCheckpoint.read(checkpointFile, problemHash));
+			} catch (IOException readError) {
+				throw new IllegalArgumentException("Cannot resume from " + checkpointFile + ": "
+						+ readError.getMessage());
+			}
+		}
+		search.setCheckpointWriter(
+				new CheckpointWriter(options.getCheckpointFile(), problemHash, options.getCheckpointInterval()));
+	}
+
+	// method to calculate the one-tree bound of a route starting at the first city,
+	// or the reduction bound for a matrix that is not symmetric, which is a lower
+	// bound of the shortest route
+	public static double calculateRootBound(DistanceMatrix distanceMatrix) {
+		if (distanceMatrix.getSize() > SearchState.MAX_CITIES) {
+			return calculateMatrixBound(distanceMatrix);
+		}
+		LowerBound bound = distanceMatrix.isSymmetric() ? new OneTreeBound() : new ReductionBound();
+		SearchState state = new SearchState(distanceMatrix, bound);
+		state.push(0);
+		return state.getCost();
+	}
+
 	/*
-	 * the algorithm keeps generating new vertices until it finds a vertex with a
-	 * complete path and at the end finds the optimal route between all the possible
-	 * candidates to be the shortest route
+	 * method to calculate a lower bound of the shortest route for a matrix of any
+	 * size: every city is left once and reached once, so the route is at least as
+	 * long as the shortest way to leave every city and as the shortest way to reach
+	 * every city. In a symmetric matrix every city has two connections, which are at
+	 * least as long as its two shortest distances
 	 */
-	public static CityList branchAndBound(CityList cities) {
-		City initialCity = cities.getElement(0);
-		CityList visitedCities = new CityList();
-		CityList remainingCities = new CityList(cities);
-		// call method to create a distance matrix for the list of cities
-		double[][] reducedMatrix = generateDistanceMatrix(cities);
-		// create the initial point of the route
-		Vertex initialVertex = new Vertex(initialCity, visitedCities, remainingCities, reducedMatrix, reducedMatrix,
-				0.0);
-		Vertex currentVertex = initialVertex;
-		boolean smallerVertexFound = false;
-		VertexList allBestRoutes = new VertexList();
-		// explore the new vertices while there are vertices with smaller cost then the
-		// current vertex
-		do {
-			// list of vertices to store all the generated vertices
-			VertexList allVertecies = new VertexList();
-			// keep exploring from the same vertex while the current vertex has not a
-			// complete path
-			do {
-				// generate vertices from the current vertex
-				Vertex nextVertecies[] = generateVertecies(currentVertex);
-				double min = Double.POSITIVE_INFINITY;
-				// get the vertex with the minimum cost
-				for (int arrayIndex = 0; arrayIndex < nextVertecies.length; arrayIndex++) {
-					min = Math.min(min, nextVertecies[arrayIndex].getCost());
+	public static double calculateMatrixBound(DistanceMatrix distanceMatrix) {
+		int size = distanceMatrix.getSize();
+		if (size < 2) {
+			return 0.0;
+		}
+		double[] minArrivals = new double[size];
+		Arrays.fill(minArrivals, Double.POSITIVE_INFINITY);
+		double leavingSum = 0.0;
+		double connectionSum = 0.0;
+		for (int row = 0; row < size; row++) {
+			double minDistance = Double.POSITIVE_INFINITY;
+			double secondDistance = Double.POSITIVE_INFINITY;
+			for (int col = 0; col < size; col++) {
+				double distance = distanceMatrix.get(row, col);
+				if (distance < minDistance) {
+					secondDistance = minDistance;
+					minDistance = distance;
+				} else if (distance < secondDistance) {
+					secondDistance = distance;
 				}
-				int index = 0;
-				for (int arrayIndex = 0; arrayIndex < nextVertecies.length; arrayIndex++) {
-					if (min == nextVertecies[arrayIndex].getCost()) {
-						index = arrayIndex;
-					} else {
-						// store the rest of vertices
-						allVertecies.add(nextVertecies[arrayIndex]);
+				minArrivals[col] = Math.min(minArrivals[col], distance);
+			}
+			leavingSum += minDistance;
+			connectionSum += size > 2 ? (minDistance + secondDistance) / 2 : minDistance;
+		}
+		double arrivingSum = 0.0;
+		for (int col = 0; col < size; col++) {
+			arrivingSum += minArrivals[col];
+		}
+		if (distanceMatrix.isSymmetric()) {
+			return connectionSum;
+		}
+		return Math.max(leavingSum, arrivingSum);
+	}
+
+	// method to find a first route for a distance matrix: the greedy route improved
+	// with 2-opt and Or-opt moves, which assume symmetric distances, so a matrix
+	// that is not symmetric gets the nearest neighbour route improved with the
+	// Or-opt moves that keep the direction of the route
+	public static int[] heuristicTour(DistanceMatrix distanceMatrix, SearchControl control) {
+		TourHeuristic heuristic = new TourHeuristic(distanceMatrix);
+		heuristic.setControl(control);
+		if (!distanceMatrix.isSymmetric()) {
+			return TourHeuristic.rotate(heuristic.improveDirected(heuristic.nearestNeighbourTour(0)), 0);
+		}
+		return heuristic.solve(0);
+	}
+
+	/*
+	 * method to find a route with the heuristic for a problem given with a distance
+	 * matrix. A symmetric matrix is improved with Lin-Kernighan moves between the
+	 * closest cities found in the matrix, and a matrix that is not symmetric only
+	 * with the Or-opt moves that keep the direction of the route, because the other
+	 * moves reverse parts of the route. The bound of the matrix is the lower bound
+	 */
+	private static SolverResult solveMatrixHeuristic(CityStore cities, DistanceMatrix distanceMatrix,
+			int[] initialTour, SolverOptions options, SearchControl control) {
+		int[] path;
+		if (!distanceMatrix.isSymmetric()) {
+			TourHeuristic heuristic = new TourHeuristic(distanceMatrix);
+			heuristic.setTimeLimit(options.getTimeLimit());
+			heuristic.setControl(control);
+			int[] tour = initialTour != null ? initialTour : heuristic.nearestNeighbourTour(0);
+			path = TourHeuristic.rotate(heuristic.improveDirected(tour), 0);
+		} else {
+			int numNeighbours = Math.max(0, Math.min(NUM_NEIGHBOURS, cities.getSize() - 1));
+			LinKernighan heuristic = new LinKernighan(distanceMatrix,
+					TourHeuristic.calculateNeighbours(distanceMatrix, numNeighbours));
+			heuristic.setTimeLimit(options.getTimeLimit());
+			heuristic.setControl(control);
+			path = initialTour == null ? heuristic.solve(0) : TourHeuristic.rotate(heuristic.improve(initialTour), 0);
+		}
+		return new SolverResult(cities, path, distanceMatrix.getRouteLength(path), 0,
+				calculateMatrixBound(distanceMatrix), heuristicStopReason(control));
+	}
+
+	// method to give the reason a route of the heuristic may not be optimal: the
+	// limit that stopped it, or that it only ran the heuristic
+	private static String heuristicStopReason(SearchControl control) {
+		return control.getStopReason() != null ? control.getStopReason() : SolverResult.HEURISTIC_ONLY;
+	}
+
+	// method to record the result of a strategy that does not count vertices in the
+	// metrics, with its states as the vertices explored, and give its route to the
+	// listeners
+	private static void recordResult(SolverOptions options, SolverResult result, long startTime) {
+		long elapsedTime = (System.nanoTime() - startTime) / 1000000;
+		for (SearchListener listener : options.getListeners()) {
+			listener.incumbentImproved(result.getCost(), result.getPath().clone(), elapsedTime);
+		}
+		SearchMetrics metrics = options.getMetrics();
+		if (metrics == null) {
+			return;
+		}
+		metrics.start();
+		metrics.add(0, result.getNodesExpanded(), 0, 0, 0, 0);
+		metrics.incumbentImproved(result.getCost(), result.getPath());
+	}
+
+	// method to reset the peak usage of the heap before solving a new problem
+	public static void resetPeakMemory() {
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	// method to get the peak usage of the heap in bytes, adding the peak of each
+	// heap memory pool
+	public static long getPeakHeapMemory() {
+		long peakMemory = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP) {
+				peakMemory += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peakMemory;
+	}
+
+	// method to get the peak resident memory of the process in bytes, or -1 when the
+	// system does not report it
+	public static long getPeakResidentMemory() {
+		try {
+			BufferedReader bufferedReader = new BufferedReader(new FileReader("/proc/self/status"));
+			try {
+				String line;
+				while ((line = bufferedReader.readLine()) != null) {
+					if (line.startsWith("VmHWM:")) {
+						String[] memoryData = line.trim().split("[\\s\t]+");
+						return Long.parseLong(memoryData[1]) * 1024;
 					}
 				}
-				// convert the vertex with minimum cost to current vertex
-				currentVertex = nextVertecies[index];
-			} while (!currentVertex.isComplete());
-			// store vertices with the minimum cost
-			allBestRoutes.add(currentVertex);
-			double minCost = Double.POSITIVE_INFINITY;
-			// check in the list of vertices if there is a vertex with less cost then the
-			// current vertex
-			for (int index = 0; index < allVertecies.getSize(); index++) {
-				minCost = Math.min(minCost, allVertecies.getElement(index).getCost());
-			}
-			int costIndex = 0;
-			for (int index = 0; index < allVertecies.getSize(); index++) {
-				if (minCost == allVertecies.getElement(index).getCost()) {
-					costIndex = index;
-				}
+			} finally {
+				bufferedReader.close();
 			}
-			// if found, convert the vertex with minimum cost to the new current vertex
-			if (minCost < currentVertex.getCost()) {
-				smallerVertexFound = true;
-				currentVertex = allVertecies.getElement(costIndex);
-			} else {
-				smallerVertexFound = false;
-			}
-		} while (smallerVertexFound);
-		// call method to get the best path between the best routes found so far
-		Vertex bestPath = getBestPath(allBestRoutes, initialVertex);
-		return bestPath.getVisitedCities();
+		} catch (IOException readingFileError) {
+			// the status file only exists on linux
+		}
+		return -1;
 	}
 
 	/*
-	 * system main method that, reads a file with the cities for TSP problem and and
-	 * passes the list of cities to the branch and bound algorithm to solve it
+	 * method to solve the cities of a file with a search strategy and print the best
+	 * route, its cost, the time taken and the memory used
 	 */
-	// also this method records the time to check how much time the system takes to
-	// find the best route
-	public static void main(String[] args) {
+	public static void solveFile(String fileName, SolverOptions options) throws IOException {
+		resetPeakMemory();
 		// record the start time
 		long startTime = System.nanoTime();
-		// enter here the file name with the list of cities
-		final String fileName = "test1-23.txt";
-		CityList cities = readFile(fileName); 
-		CityList shortestPath = branchAndBound(cities);
+		SolverResult result = solve(fileName, options);
 		// record the end time
 		long endTime = System.nanoTime();
 		// calculate the time in milliseconds
 		long elapsedTimeInMilliseconds = (endTime - startTime) / 1000000;
-		System.out.print("Best Route: ");
-		// print the best route found
-		for (int index = 0; index < shortestPath.getSize(); index++) {
-			System.out.print(shortestPath.getElement(index).getCityNumber());
-			if (index < shortestPath.getSize() - 1) {
-				System.out.print(" => ");
-			}
-		}
-		System.out.println();
-		// print the cost of the route and the time for the system to get the best route
-		System.out.println("Cost: " + shortestPath.calculatePathLength());
-		System.out.println("Total Time: " + elapsedTimeInMilliseconds + " ms");
+		System.out.print(formatResult(result, elapsedTimeInMilliseconds));
+		System.out.println("Peak Heap: " + getPeakHeapMemory() / 1024 + " KB");
+		long peakResidentMemory = getPeakResidentMemory();
+		if (peakResidentMemory >= 0) {
+			System.out.println("Peak RSS: " + peakResidentMemory / 1024 + " KB");
+		}
+		SearchMetrics metrics = options.getMetrics();
+		if (metrics != null) {
+			printMetrics(metrics);
+		}
+	}
+
+	/*
+	 * method to create the lines printed for a result: the best route found going
+	 * back to the initial city, its cost, the time taken and the vertices explored,
+	 * and the lower bound when the route is not proven to be optimal
+	 */
+	public static String formatResult(SolverResult result, long elapsedTimeInMilliseconds) {
+		int[] shortestPath = result.getCityNumbers();
+		StringBuilder lines = new StringBuilder("Best Route: ");
+		for (int index = 0; index < shortestPath.length; index++) {
+			lines.append(shortestPath[index]).append(" => ");
+		}
+		if (shortestPath.length > 0) {
+			lines.append(shortestPath[0]);
+		}
+		String newLine = System.lineSeparator();
+		lines.append(newLine);
+		// the cost of the route and the time for the system to get the best route
+		lines.append("Cost: ").append(result.getCost()).append(newLine);
+		lines.append("Total Time: ").append(elapsedTimeInMilliseconds).append(" ms").append(newLine);
+		lines.append("Nodes Expanded: ").append(result.getNodesExpanded()).append(newLine);
+		if (!result.isOptimal()) {
+			// the route found before the solver stopped may not be the shortest. A
+			// result read from an old solution file may have no reason
+			String stopReason = result.getStopReason();
+			lines.append("Not Proven Optimal");
+			if (SolverResult.HEURISTIC_ONLY.equals(stopReason)) {
+				lines.append(": ").append(stopReason);
+			} else if (stopReason != null) {
+				lines.append(": stopped by ").append(stopReason);
+			}
+			lines.append(newLine);
+			if (result.getLowerBound() > 0.0) {
+				lines.append("Lower Bound: ").append(result.getLowerBound()).append(newLine);
+				lines.append(String.format("Gap: %.2f%%", 100.0 * result.getGap())).append(newLine);
+			}
+		}
+		return lines.toString();
+	}
+
+	// method to print the metrics of the last branch and bound search
+	public static void printMetrics(SearchMetrics metrics) {
+		System.out.println("Nodes Generated: " + metrics.getNodesGenerated());
+		System.out.printf("Nodes Pruned: %d (%.1f%%)%n", metrics.getNodesPruned(), 100.0 * metrics.getPruningRatio());
+		System.out.printf("Nodes Per Second: %.0f%n", metrics.getNodesPerSecond());
+		System.out.println("Peak Frontier: " + metrics.getPeakFrontierSize());
+		System.out.println("Bound Time: " + metrics.getBoundTime() + " ms");
+		long[] improvementTimes = metrics.getImprovementTimes();
+		double[] improvementCosts = metrics.getImprovementCosts();
+		StringBuilder improvements = new StringBuilder();
+		for (int index = 0; index < improvementCosts.length; index++) {
+			if (index > 0) {
+				improvements.append(", ");
+			}
+			improvements.append(String.format("%.2f at %d ms", improvementCosts[index], improvementTimes[index]));
+		}
+		System.out.println("Improvements: " + improvements);
+	}
+
+	/*
+	 * method to solve the cities of a file with every search strategy, printing the
+	 * cost, time, vertices explored and peak heap of the strategies side by side.
+	 * Each strategy gets a time limit when none is selected, a strategy stopped by a
+	 * limit prints the reason and the gap, and a strategy that fails prints the
+	 * error, so the other strategies still run. The heuristic runs last and its
+	 * cost is compared with the optimal cost
+	 */
+	public static void compareStrategies(String fileName, SolverOptions options) throws IOException {
+		ProblemFile problem = ProblemFile.read(fileName);
+		CityStore cities = problem.getCities();
+		// every strategy solves the problem, so the cache and checkpoints are not used
+		options = new SolverOptions(options);
+		options.setCache(null);
+		options.setCheckpointFile(null);
+		if (options.getTimeLimit() <= 0) {
+			options.setTimeLimit(COMPARE_TIME_LIMIT);
+		}
+		String[] strategies = { BEST_FIRST, DEPTH_FIRST, PARALLEL, HELD_KARP };
+		double optimalCost = 0.0;
+		System.out.print(fileName);
+		for (int index = 0; index < strategies.length; index++) {
+			if (strategies[index].equals(HELD_KARP)
+					&& HeldKarpSolver.estimateMemory(cities.getSize()) > options.getHeldKarpMemoryLimit()) {
+				continue;
+			}
+			resetPeakMemory();
+			options.setStrategy(strategies[index]);
+			long startTime = System.nanoTime();
+			SolverResult result;
+			try {
+				result = solve(cities, problem.getDistances(), options);
+			} catch (RuntimeException | OutOfMemoryError solvingError) {
+				System.out.printf(" | %s: failed, %s", strategies[index], solvingError);
+				continue;
+			}
+			long elapsedTimeInMilliseconds = (System.nanoTime() - startTime) / 1000000;
+			System.out.printf(" | %s: cost %.2f, %d ms, %d nodes, %d KB heap", strategies[index], result.getCost(),
+					elapsedTimeInMilliseconds, result.getNodesExpanded(), getPeakHeapMemory() / 1024);
+			if (result.isOptimal()) {
+				optimalCost = result.getCost();
+			} else {
+				System.out.printf(", stopped by %s with a gap of %.2f%%", result.getStopReason(),
+						100.0 * result.getGap());
+			}
+		}
+		options.setStrategy(HEURISTIC);
+		long startTime = System.nanoTime();
+		SolverResult result = solve(cities, problem.getDistances(), options);
+		long elapsedTimeInMilliseconds = (System.nanoTime() - startTime) / 1000000;
+		if (optimalCost > 0.0) {
+			System.out.printf(" | %s: cost %.2f (%.2f%% above optimal), %d ms%n", HEURISTIC, result.getCost(),
+					100.0 * (result.getCost() - optimalCost) / optimalCost, elapsedTimeInMilliseconds);
+		} else {
+			System.out.printf(" | %s: cost %.2f (no strategy proved the optimal cost), %d ms%n", HEURISTIC,
+					result.getCost(), elapsedTimeInMilliseconds);
+		}
+	}
+
+	// method to solve the files of a directory, or the files named by the lines of
+	// the input when it is -, and print the results and the summary of the batch
+	public static void solveBatch(String batch, int numThreads, SolverOptions options)
+			throws IOException, InterruptedException {
+		BatchSolver solver = new BatchSolver(options, numThreads, System.out);
+		if (batch.equals("-")) {
+			BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+			solver.solveAll(input.lines().iterator());
+		} else {
+			solver.solveAll(BatchSolver.listFiles(batch).iterator());
+		}
+		solver.printSummary(System.out);
+	}
+
+	// method to start the HTTP server on a port of this computer, or on a host and
+	// port. The threads of the server keep the JVM running
+	public static SolverServer startServer(String address, int numThreads, int queueSize, SolverOptions options)
+			throws IOException {
+		int colon = address.lastIndexOf(':');
+		InetSocketAddress socketAddress;
+		if (colon < 0) {
+			socketAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+		} else {
+			socketAddress = new InetSocketAddress(address.substring(0, colon),
+					Integer.parseInt(address.substring(colon + 1)));
+		}
+		SolverServer server = new SolverServer(socketAddress, options, numThreads, queueSize);
+		server.start();
+		System.out.println("Solving the cities posted to http://" + socketAddress.getHostString() + ":"
+				+ server.getPort() + "/solve");
+		return server;
+	}
+
+	// method to convert the files given as arguments to binary files, printing the
+	// name of each binary file
+	public static void convertFiles(String[] fileNames, int numNeighbours, boolean withMatrix) throws IOException {
+		for (String fileName : fileNames) {
+			System.out.println(fileName + " => " + convertFile(fileName, numNeighbours, withMatrix));
+		}
+	}
+
+	// method to solve the files given as arguments one after the other
+	public static void solveFiles(String[] fileNames, SolverOptions options) throws IOException {
+		for (String fileName : fileNames) {
+			solveFile(fileName, options);
+		}
+	}
+
+	// method to solve the files given as arguments with every strategy
+	public static void compareFiles(String[] fileNames, SolverOptions options) throws IOException {
+		for (String fileName : fileNames) {
+			compareStrategies(fileName, options);
+		}
+	}
+
+	/*
+	 * system main method that reads the options and the files with the cities given
+	 * as arguments, which are listed by CommandLine, and runs the selected mode:
+	 * converting the files, the HTTP server, a batch, comparing the strategies or
+	 * solving each file and printing its route. The first test file is solved when
+	 * no file is given, and arguments that are not valid, including a checkpoint
+	 * that cannot be resumed, print the error and the usage and end the program with
+	 * status 2
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+		CommandLine commandLine;
+		try {
+			commandLine = CommandLine.parse(args);
+		} catch (IllegalArgumentException argumentError) {
+			exitWithUsage(argumentError);
+			return;
+		}
+		if (commandLine.isHelp()) {
+			CommandLine.printUsage(System.out);
+			return;
+		}
+		SolverOptions options = commandLine.getOptions();
+		String[] fileNames = commandLine.getFileNames();
+		String mode = commandLine.getMode();
+		if (fileNames.length == 0 && (mode.equals(CommandLine.SOLVE) || mode.equals(CommandLine.COMPARE))) {
+			fileNames = new String[] { DEFAULT_FILE };
+		}
+		if (mode.equals(CommandLine.CONVERT)) {
+			convertFiles(fileNames, commandLine.getConvertNeighbours(), commandLine.isConvertMatrix());
+			return;
+		}
+		if (mode.equals(CommandLine.SERVE)) {
+			startServer(commandLine.getServe(), commandLine.getServeThreads(), commandLine.getQueueSize(), options);
+			return;
+		}
+		try {
+			if (mode.equals(CommandLine.BATCH)) {
+				solveBatch(commandLine.getBatch(), commandLine.getBatchThreads(), options);
+			} else if (mode.equals(CommandLine.COMPARE)) {
+				compareFiles(fileNames, options);
+			} else {
+				solveFiles(fileNames, options);
+			}
+		} catch (IllegalArgumentException argumentError) {
+			exitWithUsage(argumentError);
+		}
+		if (options.getCache() != null) {
+			System.out.println(options.getCache().formatStats());
+		}
+	}
+
+	// method to print what is wrong with the arguments and the usage, and end the
+	// program with status 2
+	private static void exitWithUsage(IllegalArgumentException argumentError) {
+		System.err.println(argumentError.getMessage());
+		CommandLine.printUsage(System.err);
+		System.exit(2);
 	}
 }
@@ -0,0 +1,319 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/*reader for TSPLIB files with explicit distances, like the travel times of a road
+network, which are not calculated from coordinates. The header gives the number of
+cities and the layout of the distances: a full matrix, or the distances above or
+below the diagonal with or without it. The file is mapped into memory and the
+distances are read straight from the bytes into the array of a distance matrix,
+without a City object or a String for each number.
+A full matrix that is the same in both ways and all the layouts of half a matrix
+are kept in the packed layout with half of the memory, and a matrix that is not
+symmetric is kept in the full layout, so the solvers know which ones they can use
+the symmetric methods for*/
+public class MatrixFileReader {
+	// layouts of the distances, the column layouts are the same as the row layouts
+	// of the other half of the matrix
+	private static final String FULL_MATRIX = "FULL_MATRIX";
+	private static final String UPPER_ROW = "UPPER_ROW";
+	private static final String LOWER_ROW = "LOWER_ROW";
+	private static final String UPPER_DIAG_ROW = "UPPER_DIAG_ROW";
+	private static final String LOWER_DIAG_ROW = "LOWER_DIAG_ROW";
+	// largest number of distances that fit in an array
+	private static final long MAX_DISTANCES = Integer.MAX_VALUE - 8;
+	// most digits of a number that fit in a long
+	private static final int MAX_DIGITS = 18;
+	// keywords a TSPLIB file can start with
+	private static final Set<String> HEADER_KEYWORDS = Set.of("NAME", "TYPE", "COMMENT", "DIMENSION", "CAPACITY",
+			"EDGE_WEIGHT_TYPE", "EDGE_WEIGHT_FORMAT", "EDGE_DATA_FORMAT", "NODE_COORD_TYPE", "DISPLAY_DATA_TYPE");
+	// longest first keyword that is looked for
+	private static final int MAX_KEYWORD_LENGTH = 32;
+	private String fileName;
+	private ByteBuffer bytes;
+	private int size;
+	// position of the next byte to read and its line
+	private int position;
+	private int line;
+	// values of the header
+	private int numCities;
+	private String edgeWeightType;
+	private String edgeWeightFormat;
+
+	// read the distance matrix of a file
+	public static DistanceMatrix read(String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(fileName + " is bigger than 2 GB");
+			}
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new MatrixFileReader(fileName, bytes).readMatrix();
+		}
+	}
+
+	/*
+	 * check if the bytes of a file start like a TSPLIB file: the first word is a
+	 * keyword of the header followed by a colon or a space. Any other file, like a
+	 * file of cities with a title, is left to the reader of cities, which reports
+	 * the line that is not a city
+	 */
+	public static boolean isMatrixFile(ByteBuffer bytes) {
+		int index = 0;
+		while (index < bytes.limit() && (isSpace(bytes.get(index)) || bytes.get(index) == '\n')) {
+			index++;
+		}
+		StringBuilder keyword = new StringBuilder();
+		while (index < bytes.limit() && keyword.length() <= MAX_KEYWORD_LENGTH) {
+			byte character = bytes.get(index);
+			if (character == ':' || character == '\n' || isSpace(character)) {
+				return HEADER_KEYWORDS.contains(keyword.toString());
+			}
+			keyword.append((char) character);
+			index++;
+		}
+		return false;
+	}
+
+	// create a reader for the bytes of a file
+	public MatrixFileReader(String fileName, ByteBuffer bytes) {
+		this.fileName = fileName;
+		this.bytes = bytes;
+		this.size = bytes.limit();
+		this.line = 1;
+		this.numCities = -1;
+	}
+
+	/*
+	 * read the header and then the distances in the layout it gives. The distance
+	 * between a city and itself is always infinity, whatever the file has for it
+	 */
+	public DistanceMatrix readMatrix() throws IOException {
+		readHeader();
+		if (numCities < 0) {
+			throw error("the header has no DIMENSION");
+		}
+		checkType();
+		if (edgeWeightFormat == null) {
+			throw error("the header has no EDGE_WEIGHT_FORMAT");
+		}
+		String format = edgeWeightFormat;
+		// a column of the upper half is a row of the lower half and the other way
+		if (format.equals("UPPER_COL")) {
+			format = LOWER_ROW;
+		} else if (format.equals("LOWER_COL")) {
+			format = UPPER_ROW;
+		} else if (format.equals("UPPER_DIAG_COL")) {
+			format = LOWER_DIAG_ROW;
+		} else if (format.equals("LOWER_DIAG_COL")) {
+			format = UPPER_DIAG_ROW;
+		}
+		if (format.equals(FULL_MATRIX)) {
+			return readFullMatrix();
+		}
+		if (!format.equals(UPPER_ROW) && !format.equals(LOWER_ROW) && !format.equals(UPPER_DIAG_ROW)
+				&& !format.equals(LOWER_DIAG_ROW)) {
+			throw error("unknown EDGE_WEIGHT_FORMAT " + edgeWeightFormat);
+		}
+		long length = (long) numCities * (numCities - 1) / 2;
+		if (length > MAX_DISTANCES) {
+			throw error("too many cities for a distance matrix: " + numCities);
+		}
+		double[] distances = new double[(int) length];
+		boolean upper = format.equals(UPPER_ROW) || format.equals(UPPER_DIAG_ROW);
+		boolean diagonal = format.equals(UPPER_DIAG_ROW) || format.equals(LOWER_DIAG_ROW);
+		for (int row = 0; row < numCities; row++) {
+			int firstCol = upper ? (diagonal ? row : row + 1) : 0;
+			int lastCol = upper ? numCities - 1 : (diagonal ? row : row - 1);
+			for (int col = firstCol; col <= lastCol; col++) {
+				double distance = readDistance();
+				if (col != row) {
+					distances[upper ? DistanceMatrix.packedIndex(row, col, numCities)
+							: DistanceMatrix.packedIndex(col, row, numCities)] = distance;
+				}
+			}
+		}
+		return new DistanceMatrix(numCities, distances, true, true);
+	}
+
+	// read a full matrix, which is packed when it is symmetric
+	private DistanceMatrix readFullMatrix() throws IOException {
+		if ((long) numCities * numCities > MAX_DISTANCES) {
+			throw error("too many cities for a distance matrix: " + numCities);
+		}
+		double[] distances = new double[numCities * numCities];
+		for (int index = 0; index < distances.length; index++) {
+			distances[index] = readDistance();
+		}
+		boolean symmetric = true;
+		for (int row = 0; row < numCities; row++) {
+			distances[row * numCities + row] = Double.POSITIVE_INFINITY;
+			for (int col = row + 1; col < numCities && symmetric; col++) {
+				symmetric = distances[row * numCities + col] == distances[col * numCities + row];
+			}
+		}
+		if (!symmetric) {
+			return new DistanceMatrix(numCities, distances, false, false);
+		}
+		double[] packedDistances = new double[numCities * (numCities - 1) / 2];
+		int index = 0;
+		for (int row = 0; row < numCities; row++) {
+			System.arraycopy(distances, row * numCities + row + 1, packedDistances, index, numCities - row - 1);
+			index += numCities - row - 1;
+		}
+		return new DistanceMatrix(numCities, packedDistances, true, true);
+	}
+
+	// check that the distances of the file are given explicitly
+	private void checkType() throws IOException {
+		if (edgeWeightType != null && !edgeWeightType.equals("EXPLICIT")) {
+			throw error("only EXPLICIT distances are supported, not " + edgeWeightType
+					+ ", use a file of coordinates instead");
+		}
+	}
+
+	// read the lines of the header until the section of the distances, keeping the
+	// keywords the reader needs
+	private void readHeader() throws IOException {
+		while (position < size) {
+			String text = readLine().trim();
+			if (text.isEmpty()) {
+				continue;
+			}
+			if (text.equals("EDGE_WEIGHT_SECTION") || text.equals("EDGE_WEIGHT_SECTION:")) {
+				return;
+			}
+			if (text.equals("EOF") || text.endsWith("_SECTION")) {
+				checkType();
+				throw error("expected EDGE_WEIGHT_SECTION before " + text);
+			}
+			int colon = text.indexOf(':');
+			String keyword = colon >= 0 ? text.substring(0, colon).trim() : text.split("\\s+")[0];
+			String value = colon >= 0 ? text.substring(colon + 1).trim() : text.substring(keyword.length()).trim();
+			if (keyword.equals("DIMENSION")) {
+				try {
+					numCities = Integer.parseInt(value);
+				} catch (NumberFormatException numberError) {
+					throw error("DIMENSION is not a whole number: " + value);
+				}
+				if (numCities < 0) {
+					throw error("DIMENSION is negative: " + value);
+				}
+			} else if (keyword.equals("EDGE_WEIGHT_TYPE")) {
+				edgeWeightType = value;
+			} else if (keyword.equals("EDGE_WEIGHT_FORMAT")) {
+				edgeWeightFormat = value;
+			}
+			// any other keyword, like NAME, TYPE or COMMENT, is not needed
+		}
+		throw error("the file has no EDGE_WEIGHT_SECTION");
+	}
+
+	// read the rest of the line as a string and move to the next line
+	private String readLine() {
+		int start = position;
+		while (position < size && bytes.get(position) != '\n') {
+			position++;
+		}
+		byte[] text = new byte[position - start];
+		bytes.get(start, text);
+		if (position < size) {
+			position++;
+			line++;
+		}
+		return new String(text, StandardCharsets.US_ASCII);
+	}
+
+	// read the next number of the section of the distances, which can have decimals
+	// and an exponent
+	private double readDistance() throws IOException {
+		while (position < size && (isSpace(bytes.get(position)) || bytes.get(position) == '\n')) {
+			if (bytes.get(position) == '\n') {
+				line++;
+			}
+			position++;
+		}
+		if (position == size) {
+			throw error("the file ends before all the distances of " + numCities + " cities");
+		}
+		boolean negative = false;
+		if (bytes.get(position) == '-' || bytes.get(position) == '+') {
+			negative = bytes.get(position) == '-';
+			position++;
+		}
+		long mantissa = 0;
+		int numDigits = 0;
+		int numDecimals = 0;
+		boolean decimals = false;
+		boolean anyDigit = false;
+		while (position < size) {
+			byte character = bytes.get(position);
+			if (character >= '0' && character <= '9') {
+				// zeros at the start do not count as digits
+				if (mantissa > 0 || character != '0') {
+					numDigits++;
+				}
+				if (numDigits > MAX_DIGITS) {
+					throw error("a distance has too many digits");
+				}
+				mantissa = mantissa * 10 + (character - '0');
+				anyDigit = true;
+				if (decimals) {
+					numDecimals++;
+				}
+			} else if (character == '.' && !decimals) {
+				decimals = true;
+			} else {
+				break;
+			}
+			position++;
+		}
+		int exponent = 0;
+		if (position < size && (bytes.get(position) == 'e' || bytes.get(position) == 'E')) {
+			position++;
+			boolean negativeExponent = false;
+			if (position < size && (bytes.get(position) == '-' || bytes.get(position) == '+')) {
+				negativeExponent = bytes.get(position) == '-';
+				position++;
+			}
+			int start = position;
+			while (position < size && bytes.get(position) >= '0' && bytes.get(position) <= '9'
+					&& position - start < 4) {
+				exponent = exponent * 10 + (bytes.get(position) - '0');
+				position++;
+			}
+			if (position == start) {
+				throw error("expected the digits of an exponent");
+			}
+			if (negativeExponent) {
+				exponent = -exponent;
+			}
+		}
+		if (!anyDigit || (position < size && !isSpace(bytes.get(position)) && bytes.get(position) != '\n')) {
+			throw error("expected a distance");
+		}
+		// dividing by a power of ten gives the closest double for up to 22 decimals
+		double distance = mantissa;
+		exponent -= numDecimals;
+		if (exponent < 0) {
+			distance /= Math.pow(10, -exponent);
+		} else if (exponent > 0) {
+			distance *= Math.pow(10, exponent);
+		}
+		return negative ? -distance : distance;
+	}
+
+	// check if a byte separates values, carriage returns of windows files included
+	private static boolean isSpace(byte character) {
+		return character == ' ' || character == '\t' || character == '\r';
+	}
+
+	// create the error for the current line of the file
+	private IOException error(String message) {
+		return new IOException(fileName + " line " + line + ": " + message);
+	}
+}
@@ -0,0 +1,63 @@
+/*distances for big problems, which keep the closest cities of every city, found with
+a grid, instead of the distances between all the cities, so they use memory for n x
+k cities instead of the n x n distances of a distance matrix. Every distance is
+calculated from the coordinates when it is needed, which takes less time than
+looking it up in a table of the distances to the closest cities or in a cache of
+rows, because filling a row takes longer than calculating the few distances of it
+that are used.
+The closest cities also give a lower bound of the shortest route: every city has two
+connections in a route, which are at least as long as the distances to its two
+closest cities, and every connection is counted at two cities*/
+public class NeighbourDistances implements Distances {
+	private CityStore cities;
+	// closest cities of every city sorted by distance
+	private int[][] neighbours;
+
+	// find the closest cities of every city of a store
+	public NeighbourDistances(CityStore cities, int numNeighbours) {
+		this.cities = cities;
+		int size = Math.max(0, Math.min(numNeighbours, cities.getSize() - 1));
+		this.neighbours = CityGrid.fromCities(cities).calculateNeighbours(size);
+	}
+
+	// create the distances of a store with the closest cities of every city already
+	// found, sorted by distance
+	public NeighbourDistances(CityStore cities, int[][] neighbours) {
+		this.cities = cities;
+		this.neighbours = neighbours;
+	}
+
+	// returns the number of cities
+	@Override
+	public int getSize() {
+		return cities.getSize();
+	}
+
+	// get the distance between two cities from their coordinates
+	@Override
+	public double get(int row, int col) {
+		return cities.get(row, col);
+	}
+
+	// returns half the sum of the distances from every city to its two closest
+	// cities, which no route is shorter than, or 0 when there are too few cities
+	public double getLowerBound() {
+		if (cities.getSize() < 3 || neighbours[0].length < 2) {
+			return 0.0;
+		}
+		double sum = 0.0;
+		for (int city = 0; city < neighbours.length; city++) {
+			sum += cities.get(city, neighbours[city][0]) + cities.get(city, neighbours[city][1]);
+		}
+		return sum / 2;
+	}
+
+	// getters for the closest cities of every city and the cities
+	public int[][] getNeighbours() {
+		return neighbours;
+	}
+
+	public CityStore getCities() {
+		return cities;
+	}
+}
@@ -0,0 +1,190 @@
+import java.util.Arrays;
+
+/*Held-Karp lower bound for symmetric problems. The rest of a route has to go from
+the last city through every city not visited yet and back to the initial city, so
+its length is at least the weight of a minimum spanning tree of the cities not
+visited plus the cheapest way to reach that tree from the last city and from the
+initial city. Every city not visited has a penalty added to its distances, which
+does not change the length of a route, and the penalties are improved with
+subgradient optimisation so the tree gets closer to a path. The values of a vertex
+are the penalties, the length of its path and the step of the optimisation, so the
+vertices generated from it start from its penalties*/
+public class OneTreeBound implements LowerBound {
+	// iterations of the optimisation for the initial city and for the other cities
+	private static final int ROOT_ITERATIONS = 200;
+	private static final int CHILD_ITERATIONS = 10;
+	// initial step of the optimisation and how much it is reduced every iteration
+	private static final double INITIAL_STEP = 2.0;
+	private static final double STEP_DECAY = 0.95;
+	private static final double MIN_STEP = 0.01;
+	private DistanceMatrix distanceMatrix;
+	private int numCities;
+	// cities not visited and the working memory of the spanning tree
+	private int[] remainingCities;
+	private double[] penalties;
+	private double[] minDistances;
+	private int[] treeParents;
+	private boolean[] inTree;
+	private int[] degrees;
+
+	@Override
+	public int getStateSize(int numCities) {
+		return numCities + 2;
+	}
+
+	@Override
+	public LowerBound copy() {
+		return new OneTreeBound();
+	}
+
+	@Override
+	public double calculateBound(SearchState state, double parentCost, double[] parentValues, double[] values) {
+		distanceMatrix = state.getDistanceMatrix();
+		if (!distanceMatrix.isSymmetric()) {
+			throw new IllegalArgumentException("The 1-tree bound needs a symmetric distance matrix");
+		}
+		allocate(state.getNumCities());
+		int depth = state.getDepth();
+		int city = state.getCity(depth - 1);
+		int initialCity = state.getCity(0);
+		int iterations = ROOT_ITERATIONS;
+		double pathLength = 0.0;
+		double step = INITIAL_STEP;
+		if (parentValues == null) {
+			Arrays.fill(penalties, 0.0);
+		} else {
+			// start from the penalties of the last vertex
+			System.arraycopy(parentValues, 0, penalties, 0, numCities);
+			pathLength = parentValues[numCities] + distanceMatrix.get(state.getCity(depth - 2), city);
+			step = parentValues[numCities + 1];
+			iterations = CHILD_ITERATIONS;
+		}
+		int numRemaining = 0;
+		for (int index = 0; index < numCities; index++) {
+			if (!state.isVisited(index)) {
+				remainingCities[numRemaining] = index;
+				numRemaining++;
+			}
+		}
+		System.arraycopy(penalties, 0, values, 0, numCities);
+		values[numCities] = pathLength;
+		values[numCities + 1] = step;
+		if (numRemaining == 0) {
+			// the route only has to go back to the initial city
+			return pathLength + distanceMatrix.get(city, initialCity);
+		}
+		double bestBound = Double.NEGATIVE_INFINITY;
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			double bound = pathLength + calculateTree(numRemaining, city, initialCity);
+			if (bound > bestBound) {
+				bestBound = bound;
+				// keep the best penalties for the next vertices
+				for (int index = 0; index < numRemaining; index++) {
+					values[remainingCities[index]] = penalties[remainingCities[index]];
+				}
+			}
+			// every city with two connections means the tree is a route
+			double squaredNorm = 0.0;
+			for (int index = 0; index < numRemaining; index++) {
+				int subgradient = degrees[remainingCities[index]] - 2;
+				squaredNorm += subgradient * subgradient;
+			}
+			if (squaredNorm == 0.0) {
+				break;
+			}
+			// move the penalties towards the cities with too many or too few connections
+			double stepLength = step * 0.01 * Math.abs(bound) / squaredNorm;
+			for (int index = 0; index < numRemaining; index++) {
+				int remainingCity = remainingCities[index];
+				penalties[remainingCity] += stepLength * (degrees[remainingCity] - 2);
+			}
+			step = Math.max(MIN_STEP, step * STEP_DECAY);
+		}
+		values[numCities + 1] = step;
+		return bestBound;
+	}
+
+	/*
+	 * calculate the minimum spanning tree of the cities not visited with the
+	 * penalised distances using Prim's algorithm, connect it to the last city and
+	 * to the initial city, and return its weight without the penalties. The number
+	 * of connections of each city is stored in degrees
+	 */
+	private double calculateTree(int numRemaining, int lastCity, int initialCity) {
+		double treeWeight = 0.0;
+		double penaltySum = 0.0;
+		for (int index = 0; index < numRemaining; index++) {
+			int remainingCity = remainingCities[index];
+			minDistances[remainingCity] = Double.POSITIVE_INFINITY;
+			inTree[remainingCity] = false;
+			degrees[remainingCity] = 0;
+			penaltySum += penalties[remainingCity];
+		}
+		int treeCity = remainingCities[0];
+		inTree[treeCity] = true;
+		for (int added = 1; added < numRemaining; added++) {
+			int nextCity = -1;
+			double nextDistance = Double.POSITIVE_INFINITY;
+			for (int index = 0; index < numRemaining; index++) {
+				int remainingCity = remainingCities[index];
+				if (inTree[remainingCity]) {
+					continue;
+				}
+				double distance = distanceMatrix.get(treeCity, remainingCity) + penalties[treeCity]
+						+ penalties[remainingCity];
+				if (distance < minDistances[remainingCity]) {
+					minDistances[remainingCity] = distance;
+					treeParents[remainingCity] = treeCity;
+				}
+				if (minDistances[remainingCity] < nextDistance) {
+					nextDistance = minDistances[remainingCity];
+					nextCity = remainingCity;
+				}
+			}
+			inTree[nextCity] = true;
+			treeWeight += nextDistance;
+			degrees[nextCity]++;
+			degrees[treeParents[nextCity]]++;
+			treeCity = nextCity;
+		}
+		// cheapest connections from the last city and from the initial city
+		int lastConnection = cheapestConnection(lastCity, -1, numRemaining);
+		treeWeight += distanceMatrix.get(lastCity, lastConnection) + penalties[lastConnection];
+		degrees[lastConnection]++;
+		// when both are the same city the route needs two different connections
+		int excludedCity = lastCity == initialCity && numRemaining > 1 ? lastConnection : -1;
+		int initialConnection = cheapestConnection(initialCity, excludedCity, numRemaining);
+		treeWeight += distanceMatrix.get(initialCity, initialConnection) + penalties[initialConnection];
+		degrees[initialConnection]++;
+		return treeWeight - 2 * penaltySum;
+	}
+
+	// find the city not visited with the cheapest penalised distance to a city
+	private int cheapestConnection(int city, int excludedCity, int numRemaining) {
+		int cheapestCity = -1;
+		double cheapestDistance = Double.POSITIVE_INFINITY;
+		for (int index = 0; index < numRemaining; index++) {
+			int remainingCity = remainingCities[index];
+			double distance = distanceMatrix.get(city, remainingCity) + penalties[remainingCity];
+			if (remainingCity != excludedCity && distance < cheapestDistance) {
+				cheapestDistance = distance;
+				cheapestCity = remainingCity;
+			}
+		}
+		return cheapestCity;
+	}
+
+	// allocate the working memory for the number of cities
+	private void allocate(int numCities) {
+		if (penalties != null && this.numCities == numCities) {
+			return;
+		}
+		this.numCities = numCities;
+		remainingCities = new int[numCities];
+		penalties = new double[numCities];
+		minDistances = new double[numCities];
+		treeParents = new int[numCities];
+		inTree = new boolean[numCities];
+		degrees = new int[numCities];
+	}
+}
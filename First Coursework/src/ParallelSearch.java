@@ -0,0 +1,167 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/*parallel branch and bound using a fork join pool. Each task explores the subtree
+below a path depth first with its own search state, and while the pool is short of
+work a task splits the vertices of its current level into new tasks that idle
+threads can steal. All the tasks share the best route found so far, so a route
+found by one thread is used by every thread to discard vertices, and so is the
+transposition table of the shortest paths to the states of the search*/
+public class ParallelSearch {
+	// a level is split while the thread has at most this many tasks waiting
+	private static final int MAX_SURPLUS_TASKS = 2;
+	// subtrees with fewer remaining cities are always explored by one task
+	private static final int MIN_SPLIT_CITIES = 4;
+	private DistanceMatrix distanceMatrix;
+	private LowerBound bound;
+	private int parallelism;
+	private Incumbent incumbent;
+	private LongAdder nodesExpanded;
+	private SearchMetrics metrics;
+	private SearchControl control;
+	private TranspositionTable table;
+	private boolean symmetryBreaking;
+
+	// create a parallel search for a distance matrix and a lower bound using the
+	// given number of threads, starting from the best route of the incumbent
+	public ParallelSearch(DistanceMatrix distanceMatrix, LowerBound bound, Incumbent incumbent, int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		this.distanceMatrix = distanceMatrix;
+		this.bound = bound;
+		this.parallelism = parallelism;
+		this.incumbent = incumbent;
+		this.nodesExpanded = new LongAdder();
+	}
+
+	// run the search starting from the given city and return the best route found
+	public int[] solve(int initialCity) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			pool.invoke(new SubtreeTask(new int[] { initialCity }));
+		} finally {
+			pool.shutdown();
+		}
+		return incumbent.getPath();
+	}
+
+	// set the metrics the counts of every task are added to, or null for none
+	public void setMetrics(SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	// set the control that can stop every task, or null for none
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+
+	// set the transposition table shared by every task, or null for none
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+	// set if only one direction of the routes is explored by every task
+	public void setSymmetryBreaking(boolean symmetryBreaking) {
+		this.symmetryBreaking = symmetryBreaking;
+	}
+
+	// getters for the best route shared by the tasks and the number of vertices
+	// explored by all of them
+	public Incumbent getIncumbent() {
+		return incumbent;
+	}
+
+	public long getNodesExpanded() {
+		return nodesExpanded.sum();
+	}
+
+	// task to explore the subtree below a path
+	private class SubtreeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private int[] path;
+
+		public SubtreeTask(int[] path) {
+			this.path = path;
+		}
+
+		@Override
+		protected void compute() {
+			// each task has its own copy of the bound and its working memory
+			SplittingSearch search = new SplittingSearch(new SearchState(distanceMatrix, bound.copy()));
+			search.setMetrics(metrics);
+			search.setControl(control);
+			SearchCounters counters = search.getCounters();
+			// the path was counted as an open vertex by the task that created this one
+			if (path.length > 1) {
+				counters.frontierChanged(-1);
+			}
+			SearchState state = search.getState();
+			state.setTranspositionTable(table);
+			state.setSymmetryBreaking(symmetryBreaking);
+			for (int level = 0; level < path.length; level++) {
+				state.push(path[level]);
+			}
+			// the best route may have improved since the task was created
+			if (state.getCost() >= incumbent.getCost()) {
+				counters.pruned(1);
+			} else if (state.isComplete()) {
+				incumbent.offer(state);
+			} else {
+				search.explore();
+			}
+			counters.flush();
+			counters.checkControl(0);
+			nodesExpanded.add(search.getNodesExpanded());
+		}
+	}
+
+	// depth first search that gives the vertices of a level to new tasks while the
+	// pool is short of work
+	private class SplittingSearch extends DepthFirstSearch {
+
+		public SplittingSearch(SearchState state) {
+			super(state, incumbent);
+		}
+
+		@Override
+		protected boolean split(int[] cities, double[] costs, int size) {
+			SearchState state = getState();
+			// a stopped search gives the costs of the level to the control instead
+			if (size < 2 || state.getNumCities() - state.getDepth() < MIN_SPLIT_CITIES
+					|| ForkJoinTask.getSurplusQueuedTaskCount() > MAX_SURPLUS_TASKS
+					|| (control != null && control.isStopped())) {
+				return false;
+			}
+			// create a task for each vertex that can improve the best route
+			SubtreeTask[] tasks = new SubtreeTask[size];
+			int numTasks = 0;
+			for (int index = 0; index < size && costs[index] < incumbent.getCost(); index++) {
+				int[] path = new int[state.getDepth() + 1];
+				for (int level = 0; level < state.getDepth(); level++) {
+					path[level] = state.getCity(level);
+				}
+				path[state.getDepth()] = cities[index];
+				tasks[numTasks] = new SubtreeTask(path);
+				numTasks++;
+			}
+			// the vertices given to the tasks stay open until the tasks start
+			getCounters().pruned(size - numTasks);
+			getCounters().frontierChanged(numTasks);
+			// fork the tasks in reverse order so the cheapest one is run first by this
+			// thread and the rest can be stolen
+			for (int index = numTasks - 1; index > 0; index--) {
+				tasks[index].fork();
+			}
+			if (numTasks > 0) {
+				tasks[0].invoke();
+			}
+			for (int index = 1; index < numTasks; index++) {
+				tasks[index].join();
+			}
+			return true;
+		}
+	}
+}
@@ -0,0 +1,77 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/*problem read from a file in any of the formats of the solver: a text file with a
+city on each line, a TSPLIB file with explicit distances or a binary city file. The
+file is mapped once and its first bytes tell its format. The problem has the cities
+and whatever distances the file gives, so the solver only calculates the distances
+of the cities that have coordinates and no distances in the file. The cities of a
+TSPLIB file have no coordinates and are numbered from 1 in the order of the matrix*/
+public class ProblemFile {
+	private CityStore cities;
+	// closest cities of every city, or null when the file does not have them
+	private int[][] neighbours;
+	// distance matrix, or null when the distances come from the coordinates
+	private DistanceMatrix distanceMatrix;
+
+	// create a problem with its cities, their closest cities and their distance
+	// matrix, which can be null
+	public ProblemFile(CityStore cities, int[][] neighbours, DistanceMatrix distanceMatrix) {
+		this.cities = cities;
+		this.neighbours = neighbours;
+		this.distanceMatrix = distanceMatrix;
+	}
+
+	// read the problem of a file in any format
+	public static ProblemFile read(String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException(fileName + " is bigger than 2 GB");
+			}
+			MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (BinaryCityFile.isBinary(bytes)) {
+				BinaryCityFile binaryFile = BinaryCityFile.read(fileName, bytes);
+				return new ProblemFile(binaryFile.getCities(), binaryFile.getNeighbours(),
+						binaryFile.getDistanceMatrix());
+			}
+			if (MatrixFileReader.isMatrixFile(bytes)) {
+				DistanceMatrix distanceMatrix = new MatrixFileReader(fileName, bytes).readMatrix();
+				int[] cityNumbers = new int[distanceMatrix.getSize()];
+				for (int city = 0; city < cityNumbers.length; city++) {
+					cityNumbers[city] = city + 1;
+				}
+				return new ProblemFile(CityStore.withoutCoordinates(cityNumbers), null, distanceMatrix);
+			}
+			return new ProblemFile(new CityFileReader(fileName, bytes).readCities(), null, null);
+		}
+	}
+
+	// getters for the cities, their closest cities and the distance matrix of the
+	// problem, which are null when the file does not have them
+	public CityStore getCities() {
+		return cities;
+	}
+
+	public int[][] getNeighbours() {
+		return neighbours;
+	}
+
+	public DistanceMatrix getDistanceMatrix() {
+		return distanceMatrix;
+	}
+
+	// returns the distances of the file for the solver: the distance matrix, or
+	// else the closest cities, or null when it has neither
+	public Distances getDistances() {
+		if (distanceMatrix != null) {
+			return distanceMatrix;
+		}
+		if (neighbours != null) {
+			return new NeighbourDistances(cities, neighbours);
+		}
+		return null;
+	}
+}
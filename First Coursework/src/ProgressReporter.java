@@ -0,0 +1,68 @@
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/*task that reports the progress of a search at regular intervals on a timer thread.
+Each time it measures how many bytes the threads of the JVM allocated since the last
+time, which gives the allocation rate of the search, and gives the metrics to their
+listeners. Only the threads alive at both times are counted, so the bytes allocated
+by a thread that ended in between are missed*/
+public class ProgressReporter extends TimerTask {
+	private SearchMetrics metrics;
+	private com.sun.management.ThreadMXBean threadBean;
+	// bytes allocated by each thread at the last report
+	private Map<Long, Long> allocatedBytes;
+	private long lastTime;
+
+	// create a reporter for the metrics of a search
+	public ProgressReporter(SearchMetrics metrics) {
+		this.metrics = metrics;
+		this.threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		this.allocatedBytes = new HashMap<>();
+		this.lastTime = System.nanoTime();
+		measureAllocation();
+	}
+
+	// start reporting the progress of a search every interval milliseconds. The
+	// timer thread does not keep the JVM running and is stopped with cancel
+	public static Timer start(SearchMetrics metrics, long interval) {
+		Timer timer = new Timer("search progress", true);
+		timer.scheduleAtFixedRate(new ProgressReporter(metrics), interval, interval);
+		return timer;
+	}
+
+	@Override
+	public void run() {
+		metrics.setAllocationRate(measureAllocation());
+		metrics.reportProgress();
+	}
+
+	// returns the bytes allocated per second since the last time, or 0 when the JVM
+	// does not count the bytes allocated by each thread
+	private double measureAllocation() {
+		if (!threadBean.isThreadAllocatedMemorySupported() || !threadBean.isThreadAllocatedMemoryEnabled()) {
+			return 0.0;
+		}
+		long[] threadIds = threadBean.getAllThreadIds();
+		long[] bytes = threadBean.getThreadAllocatedBytes(threadIds);
+		long now = System.nanoTime();
+		long allocated = 0;
+		Map<Long, Long> newAllocatedBytes = new HashMap<>();
+		for (int index = 0; index < threadIds.length; index++) {
+			if (bytes[index] < 0) {
+				continue;
+			}
+			Long previousBytes = allocatedBytes.get(threadIds[index]);
+			if (previousBytes != null) {
+				allocated += bytes[index] - previousBytes;
+			}
+			newAllocatedBytes.put(threadIds[index], bytes[index]);
+		}
+		double seconds = Math.max(1, now - lastTime) / 1e9;
+		allocatedBytes = newAllocatedBytes;
+		lastTime = now;
+		return allocated / seconds;
+	}
+}
@@ -0,0 +1,218 @@
+import java.util.Arrays;
+
+/*lower bound calculated by reducing the distance matrix. The row of the last city
+and the column of the new city are discarded, and the minimum of every row and
+column is subtracted from it, so every row and column keeps a zero. The values of a
+vertex are the total reduction of each row followed by the total reduction of each
+column, so the reduced matrix never has to be stored.
+The loops through the rows of the matrix are done by a reduction kernel on the flat
+array of the distances, with the open columns of the row as a bitmask, and only the
+loops through a single column are done here*/
+public class ReductionBound implements LowerBound {
+	// reduced distances up to this value are treated as zeros, as the reductions
+	// add rounding errors
+	private static final double ZERO = 1e-6;
+	// kernel used by the bounds created without one, with the Vector API when it
+	// is available
+	private static final ReductionKernel DEFAULT_KERNEL = ReductionKernel.create();
+	private ReductionKernel kernel;
+	private SearchState state;
+	private DistanceMatrix distanceMatrix;
+	// distances of the matrix in the full layout
+	private double[] distances;
+	private int numCities;
+	// columns of the cities not reached yet and of the initial city
+	private long openCols;
+	private double[] values;
+	// minimum of each column while the matrix is reduced
+	private double[] minInCols;
+
+	// create a reduction bound using the default kernel
+	public ReductionBound() {
+		this(DEFAULT_KERNEL);
+	}
+
+	// create a reduction bound using the given kernel
+	public ReductionBound(ReductionKernel kernel) {
+		this.kernel = kernel;
+	}
+
+	@Override
+	public int getStateSize(int numCities) {
+		return 2 * numCities;
+	}
+
+	@Override
+	public LowerBound copy() {
+		return new ReductionBound(kernel);
+	}
+
+	/*
+	 * the new vertex starts from the reduction vectors of the last vertex and the
+	 * row of the last city and the column of the new city are discarded. The matrix
+	 * of the last vertex was already reduced, so only the rows and columns that
+	 * lost their zeros have to be reduced again
+	 */
+	@Override
+	public double calculateBound(SearchState state, double parentCost, double[] parentValues, double[] values) {
+		this.state = state;
+		if (state.getDistanceMatrix() != distanceMatrix) {
+			distanceMatrix = state.getDistanceMatrix();
+			distances = distanceMatrix.unpack().getDistances();
+		}
+		this.numCities = state.getNumCities();
+		this.values = values;
+		long allCities = numCities == SearchState.MAX_CITIES ? -1L : (1L << numCities) - 1;
+		this.openCols = (allCities & ~state.getVisited()) | (1L << state.getCity(0));
+		int depth = state.getDepth();
+		if (parentValues == null) {
+			Arrays.fill(values, 0.0);
+			return reduceMatrix();
+		}
+		System.arraycopy(parentValues, 0, values, 0, values.length);
+		int city = state.getCity(depth - 1);
+		int lastCity = state.getCity(depth - 2);
+		int initialCity = state.getCity(0);
+		// the distance between the cities is taken from the matrix reduced by the
+		// last vertex
+		double citiesDistance = reducedDistance(lastCity, city);
+		if (state.isComplete()) {
+			// only the way back to the initial city is left
+			return parentCost + citiesDistance + reduceMatrix();
+		}
+		// the way back to the initial city is closed until the path is complete
+		boolean closesInitialZero = reducedDistance(city, initialCity) <= ZERO;
+		double reducedCost = 0.0;
+		// rows with a zero in the column of the new city
+		for (int row = 0; row < numCities; row++) {
+			if (rowIsOpen(row) && row != city && reducedDistance(row, city) <= ZERO) {
+				reducedCost += reduceRow(row);
+			}
+		}
+		if (closesInitialZero) {
+			reducedCost += reduceRow(city);
+		}
+		// columns with a zero in the row of the last city
+		for (int col = 0; col < numCities; col++) {
+			if (columnIsOpen(col) && col != lastCity && reducedDistance(lastCity, col) <= ZERO) {
+				reducedCost += reduceColumn(col);
+			}
+		}
+		if (closesInitialZero) {
+			reducedCost += reduceColumn(initialCity);
+		}
+		return parentCost + citiesDistance + reducedCost;
+	}
+
+	// reduce a row of the matrix and return the minimum value
+	private double reduceRow(int row) {
+		double minInRow = kernel.rowMinimum(distances, numCities, values, row, openColsOfRow(row));
+		// rows with only infinity values are not reduced
+		if (minInRow == Double.POSITIVE_INFINITY || minInRow == 0.0) {
+			return 0.0;
+		}
+		values[row] += minInRow;
+		return minInRow;
+	}
+
+	// reduce a column of the matrix and return the minimum value
+	private double reduceColumn(int col) {
+		double minInCol = Double.POSITIVE_INFINITY;
+		if (distanceMatrix.isSymmetric()) {
+			minInCol = kernel.symmetricColumnMinimum(distances, numCities, values, col, openRowsOfColumn(col));
+		} else {
+			for (int row = 0; row < numCities; row++) {
+				if (isOpen(row, col)) {
+					minInCol = Math.min(minInCol, reducedDistance(row, col));
+				}
+			}
+		}
+		// columns with only infinity values are not reduced
+		if (minInCol == Double.POSITIVE_INFINITY || minInCol == 0.0) {
+			return 0.0;
+		}
+		values[numCities + col] += minInCol;
+		return minInCol;
+	}
+
+	/*
+	 * reduce the whole matrix and return the cost of the reduction, used for the
+	 * initial city and to close the route. A single pass through the rows and then
+	 * the columns leaves the matrix reduced. Both passes read the matrix row by row,
+	 * the column pass keeps the minimum of every column while going through the rows
+	 */
+	private double reduceMatrix() {
+		double sumMinInRow = 0.0;
+		for (int row = 0; row < numCities; row++) {
+			if (rowIsOpen(row)) {
+				sumMinInRow += reduceRow(row);
+			}
+		}
+		if (minInCols == null || minInCols.length != numCities) {
+			minInCols = new double[numCities];
+		}
+		Arrays.fill(minInCols, Double.POSITIVE_INFINITY);
+		for (int row = 0; row < numCities; row++) {
+			if (rowIsOpen(row)) {
+				kernel.columnMinimums(distances, numCities, values, row, openColsOfRow(row), minInCols);
+			}
+		}
+		double sumMinInCol = 0.0;
+		for (int col = 0; col < numCities; col++) {
+			// columns with only infinity values are not reduced
+			if (minInCols[col] != Double.POSITIVE_INFINITY) {
+				values[numCities + col] += minInCols[col];
+				sumMinInCol += minInCols[col];
+			}
+		}
+		return sumMinInRow + sumMinInCol;
+	}
+
+	// distance between two cities in the reduced matrix
+	private double reducedDistance(int row, int col) {
+		return distances[row * numCities + col] - values[row] - values[numCities + col];
+	}
+
+	// open cells of an open row as the bits of their columns, the same cells that
+	// isOpen is true for
+	private long openColsOfRow(int row) {
+		long cols = openCols & ~(1L << row);
+		// the way back to the initial city is closed until the path is complete
+		if (row == state.getCity(state.getDepth() - 1) && !state.isComplete()) {
+			cols &= ~(1L << state.getCity(0));
+		}
+		return cols;
+	}
+
+	// open cells of an open column as the bits of their rows, the same cells that
+	// isOpen is true for
+	private long openRowsOfColumn(int col) {
+		int lastCity = state.getCity(state.getDepth() - 1);
+		long allCities = numCities == SearchState.MAX_CITIES ? -1L : (1L << numCities) - 1;
+		long rows = ((allCities & ~state.getVisited()) | (1L << lastCity)) & ~(1L << col);
+		// the way back to the initial city is closed until the path is complete
+		if (col == state.getCity(0) && !state.isComplete()) {
+			rows &= ~(1L << lastCity);
+		}
+		return rows;
+	}
+
+	// the row of a city is open while the city has not been left yet
+	private boolean rowIsOpen(int row) {
+		return !state.isVisited(row) || row == state.getCity(state.getDepth() - 1);
+	}
+
+	// the column of a city is open while the city has not been reached yet
+	private boolean columnIsOpen(int col) {
+		return !state.isVisited(col) || col == state.getCity(0);
+	}
+
+	// check if a cell of the reduced matrix is not infinity
+	private boolean isOpen(int row, int col) {
+		if (row == col || !rowIsOpen(row) || !columnIsOpen(col)) {
+			return false;
+		}
+		// the way back to the initial city is closed until the path is complete
+		return col != state.getCity(0) || row != state.getCity(state.getDepth() - 1) || state.isComplete();
+	}
+}
@@ -0,0 +1,39 @@
+/*interface for the loops of the reduction bound that go through a row of the reduced
+matrix, which are where branch and bound spends most of its time. The distances are
+the flat array of a full distance matrix and the reductions are the values of the
+bound: the reduction of each row followed by the reduction of each column. The open
+cells of a row are given as the bits of a long value, one for each column, so a
+kernel never has to check for the closed cells, which are infinity in the reduced
+matrix. A column of a symmetric matrix has the same distances as the row of the
+same city, so its minimum is read from the row as well. The kernel that uses the
+vector instructions of the processor is compiled on its own, because it needs the
+incubator module of the Vector API*/
+public interface ReductionKernel {
+
+	// minimum of the open cells of a row of the reduced matrix, or infinity when the
+	// row has no open cell
+	double rowMinimum(double[] distances, int numCities, double[] reductions, int row, long openCols);
+
+	// lower the minimum of each column to the open cells of a row of the reduced
+	// matrix that are smaller
+	void columnMinimums(double[] distances, int numCities, double[] reductions, int row, long openCols,
+			double[] minInCols);
+
+	// minimum of the open cells of a column of the reduced matrix of a symmetric
+	// matrix, whose distances are read from the row of the same city, or infinity
+	// when the column has no open cell
+	double symmetricColumnMinimum(double[] distances, int numCities, double[] reductions, int col, long openRows);
+
+	/*
+	 * create the kernel that uses the Vector API when its class was compiled and
+	 * the JVM was started with --add-modules jdk.incubator.vector, otherwise the
+	 * scalar kernel
+	 */
+	static ReductionKernel create() {
+		try {
+			return (ReductionKernel) Class.forName("VectorReductionKernel").getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError missingVectorApi) {
+			return new ScalarReductionKernel();
+		}
+	}
+}
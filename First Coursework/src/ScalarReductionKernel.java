@@ -0,0 +1,42 @@
+/*kernel of the reduction bound that goes through the open cells of a row one at a
+time, taking the next open column from the bits of the mask instead of checking
+every cell of the row*/
+public class ScalarReductionKernel implements ReductionKernel {
+
+	@Override
+	public double rowMinimum(double[] distances, int numCities, double[] reductions, int row, long openCols) {
+		int rowStart = row * numCities;
+		double rowReduction = reductions[row];
+		double minInRow = Double.POSITIVE_INFINITY;
+		for (long cols = openCols; cols != 0; cols &= cols - 1) {
+			int col = Long.numberOfTrailingZeros(cols);
+			minInRow = Math.min(minInRow, distances[rowStart + col] - rowReduction - reductions[numCities + col]);
+		}
+		return minInRow;
+	}
+
+	@Override
+	public void columnMinimums(double[] distances, int numCities, double[] reductions, int row, long openCols,
+			double[] minInCols) {
+		int rowStart = row * numCities;
+		double rowReduction = reductions[row];
+		for (long cols = openCols; cols != 0; cols &= cols - 1) {
+			int col = Long.numberOfTrailingZeros(cols);
+			minInCols[col] = Math.min(minInCols[col],
+					distances[rowStart + col] - rowReduction - reductions[numCities + col]);
+		}
+	}
+
+	@Override
+	public double symmetricColumnMinimum(double[] distances, int numCities, double[] reductions, int col,
+			long openRows) {
+		int colStart = col * numCities;
+		double colReduction = reductions[numCities + col];
+		double minInCol = Double.POSITIVE_INFINITY;
+		for (long rows = openRows; rows != 0; rows &= rows - 1) {
+			int row = Long.numberOfTrailingZeros(rows);
+			minInCol = Math.min(minInCol, distances[colStart + row] - reductions[row] - colReduction);
+		}
+		return minInCol;
+	}
+}
@@ -0,0 +1,241 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*checkpoint of a best first search, which is written to a file so a long search can
+go on from it after the program stops. It has the counts of the search, the best
+route found and the open vertices, each one as the cities of its path and its cost.
+The values of the bounds are not written, the search calculates them again from the
+paths when it explores the vertices.
+The file is written through a buffer with a channel to a temporary file that then
+replaces the old checkpoint at once, so there is always a whole checkpoint to resume
+from. It starts with a hash of the problem and the bound, so a checkpoint is not
+used for another problem. The open vertices read from a file are kept as an array of
+the cities of all the paths, which takes less memory than the vertices*/
+public class SearchCheckpoint {
+	// "TSPC" at the start of the file and the version of the format
+	private static final int MAGIC = 0x54535043;
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 1 << 16;
+	private long problemHash;
+	private long nodesGenerated;
+	private long nodesExpanded;
+	private long nodesPruned;
+	// best route found and its cost, the route is null when there is none
+	private double incumbentCost;
+	private int[] incumbentPath;
+	// open vertices of a checkpoint being written
+	private Vertex[] openVertices;
+	// open vertices of a checkpoint read: the cities of every path one after the
+	// other, the first city of each path followed by the end, and their costs
+	private byte[] pathCities;
+	private int[] pathStarts;
+	private double[] costs;
+
+	// create a checkpoint of a search with its counts, the best route and the open
+	// vertices
+	public SearchCheckpoint(long problemHash, long nodesGenerated, long nodesExpanded, long nodesPruned,
+			double incumbentCost, int[] incumbentPath, Vertex[] openVertices) {
+		this.problemHash = problemHash;
+		this.nodesGenerated = nodesGenerated;
+		this.nodesExpanded = nodesExpanded;
+		this.nodesPruned = nodesPruned;
+		this.incumbentCost = incumbentCost;
+		this.incumbentPath = incumbentPath;
+		this.openVertices = openVertices;
+	}
+
+	private SearchCheckpoint() {
+	}
+
+	// calculate the hash of the cities of a problem and the bound used to solve it,
+	// with the distances of the matrix when the cities have no coordinates
+	public static long hashProblem(CityStore cities, DistanceMatrix distanceMatrix, String bound) {
+		long hash = cities.getSize();
+		for (int index = 0; index < cities.getSize(); index++) {
+			hash = hash * 31 + cities.getCityNumber(index);
+			hash = hash * 31 + cities.getXPosition(index);
+			hash = hash * 31 + cities.getYPosition(index);
+		}
+		if (!cities.hasCoordinates()) {
+			for (int row = 0; row < distanceMatrix.getSize(); row++) {
+				for (int col = 0; col < distanceMatrix.getSize(); col++) {
+					hash = hash * 31 + Double.hashCode(distanceMatrix.get(row, col));
+				}
+			}
+		}
+		return hash * 31 + bound.hashCode();
+	}
+
+	// write the checkpoint to a temporary file and replace the file with it
+	public void write(Path file) throws IOException {
+		Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			buffer.putInt(MAGIC).putInt(VERSION).putLong(problemHash);
+			buffer.putLong(nodesGenerated).putLong(nodesExpanded).putLong(nodesPruned);
+			buffer.putDouble(incumbentCost);
+			buffer.putInt(incumbentPath == null ? -1 : incumbentPath.length);
+			if (incumbentPath != null) {
+				for (int city : incumbentPath) {
+					ensureSpace(channel, buffer, 1);
+					buffer.put((byte) city);
+				}
+			}
+			ensureSpace(channel, buffer, Integer.BYTES);
+			buffer.putInt(openVertices.length);
+			byte[] path = new byte[SearchState.MAX_CITIES];
+			for (Vertex vertex : openVertices) {
+				// the path is read from the last city back to the first one
+				int depth = vertex.getDepth();
+				Vertex pathVertex = vertex;
+				for (int level = depth - 1; level >= 0; level--) {
+					path[level] = (byte) pathVertex.getCity();
+					pathVertex = pathVertex.getParent();
+				}
+				ensureSpace(channel, buffer, 1 + depth + Double.BYTES);
+				buffer.put((byte) depth).put(path, 0, depth).putDouble(vertex.getCost());
+			}
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	// write the buffer to the channel when it does not have room for more bytes
+	private static void ensureSpace(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/*
+	 * read a checkpoint from a file, checking it is for the problem with the given
+	 * hash. A file that is not a checkpoint, is for another problem or ends too soon
+	 * is reported
+	 */
+	public static SearchCheckpoint read(Path file, long problemHash) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+			buffer.flip();
+			fill(channel, buffer, 2 * Integer.BYTES + Long.BYTES);
+			if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+				throw new IOException(file + " is not a checkpoint of this version");
+			}
+			SearchCheckpoint checkpoint = new SearchCheckpoint();
+			checkpoint.problemHash = buffer.getLong();
+			if (checkpoint.problemHash != problemHash) {
+				throw new IOException(file + " is a checkpoint of another problem or bound");
+			}
+			fill(channel, buffer, 4 * Long.BYTES + Integer.BYTES);
+			checkpoint.nodesGenerated = buffer.getLong();
+			checkpoint.nodesExpanded = buffer.getLong();
+			checkpoint.nodesPruned = buffer.getLong();
+			checkpoint.incumbentCost = buffer.getDouble();
+			int incumbentLength = buffer.getInt();
+			if (incumbentLength >= 0) {
+				checkpoint.incumbentPath = new int[incumbentLength];
+				for (int index = 0; index < incumbentLength; index++) {
+					fill(channel, buffer, 1);
+					checkpoint.incumbentPath[index] = buffer.get();
+				}
+			}
+			fill(channel, buffer, Integer.BYTES);
+			int numOpen = buffer.getInt();
+			checkpoint.pathStarts = new int[numOpen + 1];
+			checkpoint.costs = new double[numOpen];
+			byte[] cities = new byte[BUFFER_SIZE];
+			int size = 0;
+			for (int index = 0; index < numOpen; index++) {
+				fill(channel, buffer, 1);
+				int depth = buffer.get();
+				if (depth < 1 || depth > SearchState.MAX_CITIES) {
+					throw new IOException(file + " has a path of " + depth + " cities");
+				}
+				fill(channel, buffer, depth + Double.BYTES);
+				if (size + depth > cities.length) {
+					cities = Arrays.copyOf(cities, Math.max(cities.length * 2, size + depth));
+				}
+				buffer.get(cities, size, depth);
+				size += depth;
+				checkpoint.pathStarts[index + 1] = size;
+				checkpoint.costs[index] = buffer.getDouble();
+			}
+			checkpoint.pathCities = Arrays.copyOf(cities, size);
+			return checkpoint;
+		}
+	}
+
+	// read from the channel until the buffer has the given number of bytes
+	private static void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() >= bytes) {
+			return;
+		}
+		buffer.compact();
+		while (buffer.position() < bytes) {
+			if (channel.read(buffer) < 0) {
+				throw new EOFException("The checkpoint ends too soon");
+			}
+		}
+		buffer.flip();
+	}
+
+	// getters for the hash of the problem, the counts of the search and the best
+	// route found, null when there is none
+	public long getProblemHash() {
+		return problemHash;
+	}
+
+	public long getNodesGenerated() {
+		return nodesGenerated;
+	}
+
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	public long getNodesPruned() {
+		return nodesPruned;
+	}
+
+	public double getIncumbentCost() {
+		return incumbentCost;
+	}
+
+	public int[] getIncumbentPath() {
+		return incumbentPath;
+	}
+
+	// getters for the open vertices of a checkpoint read from a file: their number,
+	// the cities of the path of one of them and its cost
+	public int getNumOpen() {
+		return costs.length;
+	}
+
+	public int getPathLength(int vertex) {
+		return pathStarts[vertex + 1] - pathStarts[vertex];
+	}
+
+	public int getPathCity(int vertex, int level) {
+		return pathCities[pathStarts[vertex] + level];
+	}
+
+	public double getCost(int vertex) {
+		return costs[vertex];
+	}
+}
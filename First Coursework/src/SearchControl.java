@@ -0,0 +1,99 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+/*control of a running solver, shared by all its threads. It stops the search when
+the time limit is reached, when the number of vertices explored or the memory used
+reach their limits, or when another thread cancels it. The searches check it as they
+go, so they stop soon after, and every vertex they leave unexplored gives its cost
+to the control. The lowest of these costs is a lower bound for the routes that were
+not explored, so the best route found is known to be within the gap between the two
+costs of the shortest route. A control is used for a single solve*/
+public class SearchControl {
+	// reasons for stopping before the search is complete
+	public static final String CANCELLED = "cancelled";
+	public static final String TIME_LIMIT = "time limit";
+	public static final String NODE_LIMIT = "node limit";
+	public static final String MEMORY_LIMIT = "memory limit";
+	// time when the search stops, or 0 for no limit
+	private long deadline;
+	// vertices that can be explored, or 0 for no limit
+	private long nodeLimit;
+	// bytes the search can use, or 0 for no limit
+	private long memoryLimit;
+	private AtomicLong nodesExpanded;
+	// reason for stopping, null while the search can go on
+	private volatile String stopReason;
+	// bits of the lowest cost of the vertices left unexplored
+	private AtomicLong openBoundBits;
+
+	// create a control without limits
+	public SearchControl() {
+		this.nodesExpanded = new AtomicLong();
+		this.openBoundBits = new AtomicLong(Double.doubleToLongBits(Double.POSITIVE_INFINITY));
+	}
+
+	// set the limits of the search, the time limit in milliseconds from now, and 0
+	// for no limit
+	public void setLimits(long timeLimit, long nodeLimit, long memoryLimit) {
+		this.deadline = timeLimit == 0 ? 0 : System.nanoTime() + timeLimit * 1000000;
+		this.nodeLimit = nodeLimit;
+		this.memoryLimit = memoryLimit;
+	}
+
+	// stop the search from another thread, it returns the best route found so far
+	public void cancel() {
+		stop(CANCELLED);
+	}
+
+	/*
+	 * add vertices explored by a search since it last checked and the memory it
+	 * uses, and return true when the search has to stop. The time is read on every
+	 * check, so the searches check every few vertices instead of every vertex
+	 */
+	public boolean check(long expanded, long memory) {
+		if (stopReason != null) {
+			return true;
+		}
+		long totalExpanded = nodesExpanded.addAndGet(expanded);
+		if (nodeLimit != 0 && totalExpanded >= nodeLimit) {
+			stop(NODE_LIMIT);
+		} else if (memoryLimit != 0 && memory > memoryLimit) {
+			stop(MEMORY_LIMIT);
+		} else if (deadline != 0 && System.nanoTime() > deadline) {
+			stop(TIME_LIMIT);
+		}
+		return stopReason != null;
+	}
+
+	// stop the search for a reason, keeping the first reason given
+	private synchronized void stop(String reason) {
+		if (stopReason == null) {
+			stopReason = reason;
+		}
+	}
+
+	// record the cost of a vertex that will not be explored because the search stopped
+	public void addOpenBound(double cost) {
+		long costBits = Double.doubleToLongBits(cost);
+		openBoundBits.accumulateAndGet(costBits,
+				(current, added) -> Double.longBitsToDouble(added) < Double.longBitsToDouble(current) ? added : current);
+	}
+
+	// check if the search has to stop, without counting vertices
+	public boolean isStopped() {
+		return stopReason != null;
+	}
+
+	// getters for the reason for stopping and the lowest cost of the vertices left
+	// unexplored, infinity when all of them were explored
+	public String getStopReason() {
+		return stopReason;
+	}
+
+	public double getOpenBound() {
+		return Double.longBitsToDouble(openBoundBits.get());
+	}
+
+	public long getNodesExpanded() {
+		return nodesExpanded.get();
+	}
+}
@@ -0,0 +1,160 @@
+/*counters of one search, only used by the thread that runs it, so counting a vertex
+costs no more than adding to a long. When the search has metrics the counts are
+added to them every FLUSH_INTERVAL vertices explored and at the end of the search,
+together with the time the search state spent calculating bounds. Without metrics
+nothing is added and the bounds are not timed. When the search has a control, the
+vertices explored are given to it every CHECK_INTERVAL vertices, which is when the
+limits of the search are checked*/
+public class SearchCounters {
+	// number of vertices explored between two additions to the metrics
+	private static final long FLUSH_INTERVAL = 1024;
+	// number of vertices explored between two checks of the limits
+	private static final long CHECK_INTERVAL = 16;
+	private SearchState state;
+	private SearchMetrics metrics;
+	private SearchControl control;
+	private long nodesGenerated;
+	private long nodesExpanded;
+	private long nodesPruned;
+	// open vertices of the search, the most there were at the same time and the
+	// most since the counts were last added to the metrics
+	private long frontierSize;
+	private long peakFrontierSize;
+	private long flushPeakFrontierSize;
+	// counts already added to the metrics
+	private long flushedGenerated;
+	private long flushedExpanded;
+	private long flushedPruned;
+	private long flushedFrontierSize;
+	private long flushedBoundTime;
+	// vertices explored already given to the control
+	private long checkedExpanded;
+
+	// create the counters of the search of a search state
+	public SearchCounters(SearchState state) {
+		this.state = state;
+	}
+
+	// count a vertex explored, adding the counts to the metrics from time to time
+	public void expanded() {
+		nodesExpanded++;
+		if (metrics != null && nodesExpanded % FLUSH_INTERVAL == 0) {
+			flush();
+		}
+	}
+
+	// count vertices generated from the vertex explored
+	public void generated(long count) {
+		nodesGenerated += count;
+	}
+
+	// count vertices discarded because their cost is not lower than the best route
+	public void pruned(long count) {
+		nodesPruned += count;
+	}
+
+	// count open vertices added, or removed when the change is negative
+	public void frontierChanged(long change) {
+		frontierSize += change;
+		if (frontierSize > peakFrontierSize) {
+			peakFrontierSize = frontierSize;
+		}
+		if (frontierSize > flushPeakFrontierSize) {
+			flushPeakFrontierSize = frontierSize;
+		}
+	}
+
+	// start from the counts of a search that is resumed. The vertices explored
+	// before are not given to the control, so its limits count from the resume
+	public void restore(long generated, long expanded, long pruned) {
+		nodesGenerated = generated;
+		nodesExpanded = expanded;
+		nodesPruned = pruned;
+		checkedExpanded = expanded;
+	}
+
+	// add the counts since the last time to the metrics, with how much higher the
+	// open vertices of the search were since then than they are now
+	public void flush() {
+		if (metrics == null) {
+			return;
+		}
+		long boundTime = state.getBoundTime();
+		metrics.add(nodesGenerated - flushedGenerated, nodesExpanded - flushedExpanded, nodesPruned - flushedPruned,
+				boundTime - flushedBoundTime, frontierSize - flushedFrontierSize,
+				flushPeakFrontierSize - frontierSize);
+		flushPeakFrontierSize = frontierSize;
+		flushedGenerated = nodesGenerated;
+		flushedExpanded = nodesExpanded;
+		flushedPruned = nodesPruned;
+		flushedFrontierSize = frontierSize;
+		flushedBoundTime = boundTime;
+	}
+
+	/*
+	 * check if the search has to stop because it was cancelled or reached a limit,
+	 * with the bytes it uses. The limits are only checked every few vertices, and
+	 * it always returns false when the search has no control
+	 */
+	public boolean shouldStop(long memory) {
+		if (control == null) {
+			return false;
+		}
+		if (nodesExpanded - checkedExpanded < CHECK_INTERVAL) {
+			return control.isStopped();
+		}
+		return checkControl(memory);
+	}
+
+	// give the vertices explored since the last check to the control and check the
+	// limits of the search
+	public boolean checkControl(long memory) {
+		if (control == null) {
+			return false;
+		}
+		long expanded = nodesExpanded - checkedExpanded;
+		checkedExpanded = nodesExpanded;
+		return control.check(expanded, memory);
+	}
+
+	// set the control that stops the search, or null for none
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+
+	public SearchControl getControl() {
+		return control;
+	}
+
+	// set the metrics the counts are added to, or null to stop adding them, which
+	// also starts or stops timing the bounds of the search state
+	public void setMetrics(SearchMetrics metrics) {
+		this.metrics = metrics;
+		state.setTimed(metrics != null);
+	}
+
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	// getters for the counts of the search
+	public long getNodesGenerated() {
+		return nodesGenerated;
+	}
+
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	public long getNodesPruned() {
+		return nodesPruned;
+	}
+
+	public long getFrontierSize() {
+		return frontierSize;
+	}
+
+	public long getPeakFrontierSize() {
+		return peakFrontierSize;
+	}
+}
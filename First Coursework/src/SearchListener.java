@@ -0,0 +1,16 @@
+/*interface for the classes that want to follow a branch and bound search while it
+runs. The listeners are added to the metrics of the search, they are told every time
+a better route is found and, when progress is reported, they get the metrics at
+regular intervals. The methods can be called by any of the threads of the search,
+so they should return quickly*/
+public interface SearchListener {
+
+	// called when a route shorter than the best route so far is found, with the
+	// milliseconds since the search started
+	default void incumbentImproved(double cost, int[] path, long elapsedTime) {
+	}
+
+	// called at regular intervals with the metrics of the search
+	default void progress(SearchMetrics metrics) {
+	}
+}
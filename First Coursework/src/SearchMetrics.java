@@ -0,0 +1,239 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/*metrics of a branch and bound search: the vertices generated, explored and discarded
+by the lower bound, the open vertices, the time spent calculating bounds and every
+improvement of the best route. The searches count in their own counters and add
+them here every few thousand vertices, and the totals are kept in LongAdders, which
+spread the additions of different threads over different cells, so counting costs
+almost nothing even in a parallel search. The metrics are only collected when they
+are given to the solver options, and the searches skip all of it otherwise*/
+public class SearchMetrics implements SearchMetricsMBean {
+	// number used to give a different JMX name to the metrics of each solver
+	private static final AtomicInteger NEXT_ID = new AtomicInteger();
+	private LongAdder nodesGenerated;
+	private LongAdder nodesExpanded;
+	private LongAdder nodesPruned;
+	private LongAdder frontierSize;
+	private AtomicLong peakFrontierSize;
+	// nanoseconds spent calculating lower bounds
+	private LongAdder boundTime;
+	private volatile long startTime;
+	private volatile double bestCost;
+	// milliseconds and cost of every improvement of the best route
+	private List<Long> improvementTimes;
+	private List<Double> improvementCosts;
+	// bytes allocated per second, measured by the progress reporter
+	private volatile double allocationRate;
+	private List<SearchListener> listeners;
+	private ObjectName objectName;
+
+	// create the metrics with every counter at zero
+	public SearchMetrics() {
+		this.nodesGenerated = new LongAdder();
+		this.nodesExpanded = new LongAdder();
+		this.nodesPruned = new LongAdder();
+		this.frontierSize = new LongAdder();
+		this.peakFrontierSize = new AtomicLong();
+		this.boundTime = new LongAdder();
+		this.improvementTimes = new ArrayList<>();
+		this.improvementCosts = new ArrayList<>();
+		this.listeners = new CopyOnWriteArrayList<>();
+		start();
+	}
+
+	// set every counter to zero and start measuring the time of a new search
+	public synchronized void start() {
+		nodesGenerated.reset();
+		nodesExpanded.reset();
+		nodesPruned.reset();
+		frontierSize.reset();
+		peakFrontierSize.set(0);
+		boundTime.reset();
+		improvementTimes.clear();
+		improvementCosts.clear();
+		bestCost = Double.POSITIVE_INFINITY;
+		allocationRate = 0.0;
+		startTime = System.nanoTime();
+	}
+
+	/*
+	 * add the counts of a search since it last added them: the vertices generated,
+	 * explored and discarded, the nanoseconds spent on bounds, the change in the
+	 * number of open vertices and how much higher they were since then than they are
+	 * now. The peak is the open vertices of all the searches plus that difference,
+	 * which is the exact peak for a single search, and for the tasks of parallel
+	 * search counts the open vertices of the other tasks as they are when a task
+	 * adds its counts, instead of keeping the peak of one task
+	 */
+	public void add(long generated, long expanded, long pruned, long boundNanos, long frontierChange,
+			long frontierAbovePeak) {
+		nodesGenerated.add(generated);
+		nodesExpanded.add(expanded);
+		nodesPruned.add(pruned);
+		boundTime.add(boundNanos);
+		frontierSize.add(frontierChange);
+		peakFrontierSize.accumulateAndGet(frontierSize.sum() + frontierAbovePeak, Math::max);
+	}
+
+	// record a better route and tell the listeners
+	public void incumbentImproved(double cost, int[] path) {
+		long elapsedTime = getElapsedTime();
+		synchronized (this) {
+			improvementTimes.add(elapsedTime);
+			improvementCosts.add(cost);
+			bestCost = cost;
+		}
+		for (SearchListener listener : listeners) {
+			listener.incumbentImproved(cost, path, elapsedTime);
+		}
+	}
+
+	// give the current metrics to the listeners
+	public void reportProgress() {
+		for (SearchListener listener : listeners) {
+			listener.progress(this);
+		}
+	}
+
+	public void addListener(SearchListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(SearchListener listener) {
+		listeners.remove(listener);
+	}
+
+	// register the metrics with the JMX server of the JVM
+	public synchronized void registerMBean() {
+		if (objectName != null) {
+			return;
+		}
+		try {
+			ObjectName name = new ObjectName("TravellingSalesman:type=SearchMetrics,id=" + NEXT_ID.incrementAndGet());
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+			objectName = name;
+		} catch (JMException registrationError) {
+			throw new IllegalStateException("Could not register the search metrics", registrationError);
+		}
+	}
+
+	// remove the metrics from the JMX server
+	public synchronized void unregisterMBean() {
+		if (objectName == null) {
+			return;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			if (server.isRegistered(objectName)) {
+				server.unregisterMBean(objectName);
+			}
+		} catch (JMException registrationError) {
+			throw new IllegalStateException("Could not unregister the search metrics", registrationError);
+		} finally {
+			objectName = null;
+		}
+	}
+
+	// create a line with the progress of the search
+	public String formatProgress() {
+		return String.format(
+				"Progress: %.1f s, %d expanded (%.0f/s), %d generated, %.1f%% pruned, frontier %d (peak %d), "
+						+ "bound %.1f s, best %.2f, %.1f MB/s allocated",
+				getElapsedTime() / 1000.0, getNodesExpanded(), getNodesPerSecond(), getNodesGenerated(),
+				100.0 * getPruningRatio(), getFrontierSize(), getPeakFrontierSize(), getBoundTime() / 1000.0,
+				getBestCost(), getAllocationRate() / (1024 * 1024));
+	}
+
+	@Override
+	public long getNodesGenerated() {
+		return nodesGenerated.sum();
+	}
+
+	@Override
+	public long getNodesExpanded() {
+		return nodesExpanded.sum();
+	}
+
+	@Override
+	public long getNodesPruned() {
+		return nodesPruned.sum();
+	}
+
+	@Override
+	public long getFrontierSize() {
+		return frontierSize.sum();
+	}
+
+	@Override
+	public long getPeakFrontierSize() {
+		return peakFrontierSize.get();
+	}
+
+	@Override
+	public long getBoundTime() {
+		return boundTime.sum() / 1000000;
+	}
+
+	@Override
+	public long getElapsedTime() {
+		return (System.nanoTime() - startTime) / 1000000;
+	}
+
+	@Override
+	public double getNodesPerSecond() {
+		return getNodesExpanded() * 1000.0 / Math.max(1, getElapsedTime());
+	}
+
+	// fraction of the vertices generated that were discarded by the lower bound
+	@Override
+	public double getPruningRatio() {
+		long generated = getNodesGenerated();
+		return generated == 0 ? 0.0 : (double) getNodesPruned() / generated;
+	}
+
+	@Override
+	public double getBestCost() {
+		return bestCost;
+	}
+
+	@Override
+	public synchronized int getNumImprovements() {
+		return improvementCosts.size();
+	}
+
+	// getters for the milliseconds and the cost of each improvement of the best
+	// route
+	public synchronized long[] getImprovementTimes() {
+		long[] times = new long[improvementTimes.size()];
+		for (int index = 0; index < times.length; index++) {
+			times[index] = improvementTimes.get(index);
+		}
+		return times;
+	}
+
+	public synchronized double[] getImprovementCosts() {
+		double[] costs = new double[improvementCosts.size()];
+		for (int index = 0; index < costs.length; index++) {
+			costs[index] = improvementCosts.get(index);
+		}
+		return costs;
+	}
+
+	public void setAllocationRate(double allocationRate) {
+		this.allocationRate = allocationRate;
+	}
+
+	@Override
+	public double getAllocationRate() {
+		return allocationRate;
+	}
+}
@@ -0,0 +1,30 @@
+/*management interface of the search metrics, so the metrics of a running search can
+be read with JMX tools like jconsole*/
+public interface SearchMetricsMBean {
+
+	long getNodesGenerated();
+
+	long getNodesExpanded();
+
+	long getNodesPruned();
+
+	long getFrontierSize();
+
+	long getPeakFrontierSize();
+
+	// milliseconds spent calculating lower bounds, adding every thread
+	long getBoundTime();
+
+	// milliseconds since the search started
+	long getElapsedTime();
+
+	double getNodesPerSecond();
+
+	double getPruningRatio();
+
+	double getBestCost();
+
+	int getNumImprovements();
+
+	double getAllocationRate();
+}
@@ -0,0 +1,251 @@
+/*search state used to explore the branch and bound tree without copying matrices.
+The distance matrix is shared by all the vertices and never modified, and for each
+city in the current path the state only keeps the values of the lower bound at that
+level, the visited cities as a bitmask and the cost of the path so far. Adding a
+city pushes a new level and removing it goes back to the previous one.
+The state also tells the searches which cities do not have to be added to the path:
+with a symmetric matrix every route can be driven both ways, so only the way that
+visits the closest city of the first city before its second closest city is
+explored, and a path that the transposition table has a shorter way to reach is not
+explored either*/
+public class SearchState {
+	// the visited cities are stored as bits of a long value
+	public static final int MAX_CITIES = 64;
+	private DistanceMatrix distanceMatrix;
+	private LowerBound bound;
+	private int numCities;
+	private int[] path;
+	private int depth;
+	private long visited;
+	// values of the lower bound and cost for each level of the path
+	private double[][] boundValues;
+	private double[] costs;
+	// length of the path up to each level, without the way back to the start
+	private double[] pathLengths;
+	// shortest paths to the states of the search, or null when they are not kept
+	private TranspositionTable table;
+	// when the direction of the routes is fixed, the closest cities of the first
+	// city in the order they have to be visited, otherwise -1
+	private boolean symmetryBreaking;
+	private int orientationStart;
+	private int firstOrientationCity;
+	private int secondOrientationCity;
+	// when the bounds are timed, the nanoseconds spent calculating them
+	private boolean timed;
+	private long boundTime;
+
+	// create a search state for a distance matrix and a lower bound, with all the
+	// memory it needs for a complete path allocated once
+	public SearchState(DistanceMatrix distanceMatrix, LowerBound bound) {
+		if (distanceMatrix.getSize() > MAX_CITIES) {
+			throw new IllegalArgumentException("Branch and bound supports up to " + MAX_CITIES + " cities");
+		}
+		this.distanceMatrix = distanceMatrix;
+		this.bound = bound;
+		this.numCities = distanceMatrix.getSize();
+		this.path = new int[numCities];
+		this.depth = 0;
+		this.visited = 0L;
+		this.boundValues = new double[numCities][bound.getStateSize(numCities)];
+		this.costs = new double[numCities];
+		this.pathLengths = new double[numCities];
+		this.orientationStart = -1;
+		this.firstOrientationCity = -1;
+		this.secondOrientationCity = -1;
+	}
+
+	// add a city to the end of the path and calculate the bound of the new level
+	// starting from the values of the last level
+	public void push(int city) {
+		path[depth] = city;
+		depth++;
+		visited |= 1L << city;
+		if (depth == 1) {
+			pathLengths[0] = 0.0;
+			setOrientation(city);
+		} else {
+			pathLengths[depth - 1] = pathLengths[depth - 2] + distanceMatrix.get(path[depth - 2], city);
+		}
+		long startTime = timed ? System.nanoTime() : 0;
+		if (depth == 1) {
+			costs[0] = bound.calculateBound(this, 0.0, null, boundValues[0]);
+		} else {
+			costs[depth - 1] = bound.calculateBound(this, costs[depth - 2], boundValues[depth - 2],
+					boundValues[depth - 1]);
+		}
+		if (timed) {
+			boundTime += System.nanoTime() - startTime;
+		}
+	}
+
+	// remove the last city of the path and go back to the previous level
+	public void pop() {
+		depth--;
+		visited &= ~(1L << path[depth]);
+	}
+
+	// remove every city of the path
+	public void clear() {
+		depth = 0;
+		visited = 0L;
+	}
+
+	/*
+	 * rebuild the state for the path of a vertex. The values of the bound stored in
+	 * the vertex are used when available, otherwise the state is rebuilt from the
+	 * parent vertex and the values are kept in the vertex
+	 */
+	public void restore(Vertex vertex) {
+		if (vertex.getBoundValues() == null) {
+			restore(vertex.getParent());
+			push(vertex.getCity());
+			vertex.setBoundValues(boundValues[depth - 1].clone());
+			return;
+		}
+		depth = vertex.getDepth();
+		visited = 0L;
+		Vertex pathVertex = vertex;
+		for (int level = depth - 1; level >= 0; level--) {
+			path[level] = pathVertex.getCity();
+			visited |= 1L << pathVertex.getCity();
+			pathVertex = pathVertex.getParent();
+		}
+		pathLengths[0] = 0.0;
+		for (int level = 1; level < depth; level++) {
+			pathLengths[level] = pathLengths[level - 1] + distanceMatrix.get(path[level - 1], path[level]);
+		}
+		setOrientation(path[0]);
+		System.arraycopy(vertex.getBoundValues(), 0, boundValues[depth - 1], 0, boundValues[depth - 1].length);
+		costs[depth - 1] = vertex.getCost();
+	}
+
+	/*
+	 * check if the path with a city added does not have to be explored: when the
+	 * city comes before the city that the direction of the routes puts first, or
+	 * when the table has a path through the same cities to the city that is not
+	 * longer. A path that does have to be explored is stored in the table
+	 */
+	public boolean isRedundant(int city) {
+		if (city == secondOrientationCity && !isVisited(firstOrientationCity)) {
+			return true;
+		}
+		if (table == null || depth == 0) {
+			return false;
+		}
+		double pathLength = pathLengths[depth - 1] + distanceMatrix.get(path[depth - 1], city);
+		return table.isDominated(visited | (1L << city), city, pathLength);
+	}
+
+	// fix the direction of the routes from a first city by its two closest cities,
+	// when the matrix is symmetric and the direction is fixed
+	private void setOrientation(int startCity) {
+		if (startCity == orientationStart) {
+			return;
+		}
+		orientationStart = startCity;
+		firstOrientationCity = -1;
+		secondOrientationCity = -1;
+		if (!symmetryBreaking || !distanceMatrix.isSymmetric() || numCities < 3) {
+			return;
+		}
+		for (int city = 0; city < numCities; city++) {
+			if (city == startCity) {
+				continue;
+			}
+			double distance = distanceMatrix.get(startCity, city);
+			if (firstOrientationCity < 0 || distance < distanceMatrix.get(startCity, firstOrientationCity)) {
+				secondOrientationCity = firstOrientationCity;
+				firstOrientationCity = city;
+			} else if (secondOrientationCity < 0
+					|| distance < distanceMatrix.get(startCity, secondOrientationCity)) {
+				secondOrientationCity = city;
+			}
+		}
+	}
+
+	// check if a city is already in the path
+	public boolean isVisited(int city) {
+		return (visited & (1L << city)) != 0;
+	}
+
+	// check if all the cities are in the path
+	public boolean isComplete() {
+		return depth == numCities;
+	}
+
+	// getters for the path, the cost and bound values of the current level and the
+	// size of the problem
+	public int getCity(int level) {
+		return path[level];
+	}
+
+	public int getDepth() {
+		return depth;
+	}
+
+	public long getVisited() {
+		return visited;
+	}
+
+	public double getCost() {
+		return costs[depth - 1];
+	}
+
+	// returns the length of the path, without the way back to the start
+	public double getPathLength() {
+		return pathLengths[depth - 1];
+	}
+
+	public double[] getBoundValues() {
+		return boundValues[depth - 1];
+	}
+
+	public int getNumCities() {
+		return numCities;
+	}
+
+	public DistanceMatrix getDistanceMatrix() {
+		return distanceMatrix;
+	}
+
+	public LowerBound getBound() {
+		return bound;
+	}
+
+	// set the table of the shortest paths to the states of the search, which can be
+	// shared by the states of several threads, or null to not keep them
+	public void setTranspositionTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+	public TranspositionTable getTranspositionTable() {
+		return table;
+	}
+
+	// set if only one direction of the routes is explored when the matrix is
+	// symmetric, which has to be set before the first city is added
+	public void setSymmetryBreaking(boolean symmetryBreaking) {
+		this.symmetryBreaking = symmetryBreaking;
+		this.orientationStart = -1;
+		this.firstOrientationCity = -1;
+		this.secondOrientationCity = -1;
+	}
+
+	public boolean isSymmetryBreaking() {
+		return symmetryBreaking;
+	}
+
+	// set if the time spent calculating bounds is measured
+	public void setTimed(boolean timed) {
+		this.timed = timed;
+	}
+
+	public boolean isTimed() {
+		return timed;
+	}
+
+	// returns the nanoseconds spent calculating bounds while they were timed
+	public long getBoundTime() {
+		return boundTime;
+	}
+}
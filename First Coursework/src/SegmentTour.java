@@ -0,0 +1,220 @@
+/*route stored as a list of segments, used by the heuristics to reverse parts of big
+routes quickly. The cities are kept in one array and every segment is a part of
+that array that can be read forwards or backwards. A part of the route is reversed
+by splitting the segments at its ends and then reversing the order of the segments
+in between and the direction of each one, so a reversal only touches about the
+square root of the number of cities instead of every city of the part. Splitting
+makes the segments smaller, so the array is rebuilt when there are too many*/
+public class SegmentTour {
+	private int numCities;
+	// number of cities of each segment when the array is rebuilt
+	private int segmentSize;
+	// cities of the route and position of each city in the array
+	private int[] cities;
+	private int[] indexes;
+	// segment that holds each city
+	private int[] segmentOf;
+	// part of the array of each segment, its direction, the position in the route
+	// of its first city and its position in the list of segments
+	private int[] begins;
+	private int[] ends;
+	private boolean[] reversed;
+	private int[] starts;
+	private int[] ranks;
+	// segments in the order of the route
+	private int[] order;
+	private int numSegments;
+	// route copied before the array is rebuilt, kept to avoid creating a new array
+	// each time
+	private int[] copy;
+
+	// create a route that visits the cities in the order of the array
+	public SegmentTour(int[] tour) {
+		this.numCities = tour.length;
+		this.segmentSize = Math.max(8, (int) Math.sqrt(numCities));
+		this.cities = new int[numCities];
+		this.indexes = new int[numCities];
+		this.segmentOf = new int[numCities];
+		int maxSegments = 3 * ((numCities + segmentSize - 1) / segmentSize) + 2;
+		this.begins = new int[maxSegments];
+		this.ends = new int[maxSegments];
+		this.reversed = new boolean[maxSegments];
+		this.starts = new int[maxSegments];
+		this.ranks = new int[maxSegments];
+		this.order = new int[maxSegments];
+		rebuild(tour);
+	}
+
+	// store the cities in the order of the route and split them into segments of
+	// the same size
+	private void rebuild(int[] tour) {
+		numSegments = 0;
+		for (int begin = 0; begin < numCities; begin += segmentSize) {
+			int segment = numSegments;
+			begins[segment] = begin;
+			ends[segment] = Math.min(numCities, begin + segmentSize);
+			reversed[segment] = false;
+			starts[segment] = begin;
+			ranks[segment] = segment;
+			order[segment] = segment;
+			numSegments++;
+			for (int index = begins[segment]; index < ends[segment]; index++) {
+				cities[index] = tour[index];
+				indexes[tour[index]] = index;
+				segmentOf[tour[index]] = segment;
+			}
+		}
+	}
+
+	// returns the cities in the order of the route
+	public int[] toArray() {
+		return toArray(new int[numCities]);
+	}
+
+	// copy the cities in the order of the route to an array
+	private int[] toArray(int[] tour) {
+		int position = 0;
+		for (int rank = 0; rank < numSegments; rank++) {
+			int segment = order[rank];
+			for (int offset = 0; offset < ends[segment] - begins[segment]; offset++) {
+				tour[position] = cities[reversed[segment] ? ends[segment] - 1 - offset : begins[segment] + offset];
+				position++;
+			}
+		}
+		return tour;
+	}
+
+	// returns the position of a city in the route
+	public int getPosition(int city) {
+		int segment = segmentOf[city];
+		int index = indexes[city];
+		return starts[segment] + (reversed[segment] ? ends[segment] - 1 - index : index - begins[segment]);
+	}
+
+	// returns the city after a city in the route
+	public int next(int city) {
+		int segment = segmentOf[city];
+		int index = indexes[city];
+		if (!reversed[segment] && index + 1 < ends[segment]) {
+			return cities[index + 1];
+		}
+		if (reversed[segment] && index > begins[segment]) {
+			return cities[index - 1];
+		}
+		return firstCity(order[(ranks[segment] + 1) % numSegments]);
+	}
+
+	// returns the city before a city in the route
+	public int previous(int city) {
+		int segment = segmentOf[city];
+		int index = indexes[city];
+		if (!reversed[segment] && index > begins[segment]) {
+			return cities[index - 1];
+		}
+		if (reversed[segment] && index + 1 < ends[segment]) {
+			return cities[index + 1];
+		}
+		return lastCity(order[(ranks[segment] - 1 + numSegments) % numSegments]);
+	}
+
+	// check if a city is on the part of the route going from one city to another
+	public boolean between(int fromCity, int city, int toCity) {
+		int from = getPosition(fromCity);
+		int position = getPosition(city);
+		int to = getPosition(toCity);
+		if (from <= to) {
+			return from <= position && position <= to;
+		}
+		return position >= from || position <= to;
+	}
+
+	/*
+	 * reverse the part of the route going from one city to another. When the part
+	 * goes past the end of the array the rest of the route is reversed instead,
+	 * which gives the same route in the other direction
+	 */
+	public void reverse(int fromCity, int toCity) {
+		if (getPosition(fromCity) > getPosition(toCity)) {
+			int newFromCity = next(toCity);
+			toCity = previous(fromCity);
+			fromCity = newFromCity;
+			if (getPosition(fromCity) > getPosition(toCity)) {
+				// the part is the whole route
+				return;
+			}
+		}
+		if (numSegments + 2 > order.length) {
+			if (copy == null) {
+				copy = new int[numCities];
+			}
+			rebuild(toArray(copy));
+		}
+		splitBefore(fromCity);
+		if (getPosition(toCity) < numCities - 1) {
+			splitBefore(next(toCity));
+		}
+		int firstRank = ranks[segmentOf[fromCity]];
+		int lastRank = ranks[segmentOf[toCity]];
+		int start = starts[order[firstRank]];
+		for (int low = firstRank, high = lastRank; low < high; low++, high--) {
+			int segment = order[low];
+			order[low] = order[high];
+			order[high] = segment;
+		}
+		for (int rank = firstRank; rank <= lastRank; rank++) {
+			int segment = order[rank];
+			reversed[segment] = !reversed[segment];
+			ranks[segment] = rank;
+			starts[segment] = start;
+			start += ends[segment] - begins[segment];
+		}
+	}
+
+	// split the segment of a city so the city is the first city of a segment
+	private void splitBefore(int city) {
+		int segment = segmentOf[city];
+		if (firstCity(segment) == city) {
+			return;
+		}
+		int offset = getPosition(city) - starts[segment];
+		int newSegment = numSegments;
+		numSegments++;
+		// the new segment takes the cities from the city to the end of the segment
+		if (reversed[segment]) {
+			begins[newSegment] = begins[segment];
+			ends[newSegment] = ends[segment] - offset;
+			begins[segment] = ends[newSegment];
+		} else {
+			begins[newSegment] = begins[segment] + offset;
+			ends[newSegment] = ends[segment];
+			ends[segment] = begins[newSegment];
+		}
+		reversed[newSegment] = reversed[segment];
+		starts[newSegment] = starts[segment] + offset;
+		for (int index = begins[newSegment]; index < ends[newSegment]; index++) {
+			segmentOf[cities[index]] = newSegment;
+		}
+		// insert the new segment after the old one
+		int rank = ranks[segment] + 1;
+		for (int otherRank = numSegments - 1; otherRank > rank; otherRank--) {
+			order[otherRank] = order[otherRank - 1];
+			ranks[order[otherRank]] = otherRank;
+		}
+		order[rank] = newSegment;
+		ranks[newSegment] = rank;
+	}
+
+	// first and last cities of a segment in the order of the route
+	private int firstCity(int segment) {
+		return reversed[segment] ? cities[ends[segment] - 1] : cities[begins[segment]];
+	}
+
+	private int lastCity(int segment) {
+		return reversed[segment] ? cities[begins[segment]] : cities[ends[segment] - 1];
+	}
+
+	// returns the number of cities of the route
+	public int getSize() {
+		return numCities;
+	}
+}
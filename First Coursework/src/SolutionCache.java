@@ -0,0 +1,297 @@
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*cache of the shortest routes of the problems solved before, so a problem that comes
+again is not solved from the start. A problem is found by its fingerprint: the
+coordinates of its cities moved so the smallest x and y are 0 and sorted, which is
+the same when the cities are given in another order, with other numbers or all
+moved by the same amount, and these changes do not change the shortest route. The
+route is stored as positions in the sorted coordinates and converted back to the
+indexes of the cities of each problem that finds it.
+The cache keeps the routes used most recently up to a number of problems, and it
+can also write every route to a file in a directory, named by a hash of the
+fingerprint, so the routes are found again after the program restarts. Only
+optimal routes are stored, because a route found with a limit depends on the limit*/
+public class SolutionCache {
+	private int maxEntries;
+	// directory of the files with the routes, null to keep them only in memory
+	private Path directory;
+	// routes by fingerprint, ordered from the least to the most recently used
+	private LinkedHashMap<Fingerprint, int[]> entries;
+	private long numHits;
+	private long numDiskHits;
+	private long numMisses;
+	private long numEvictions;
+
+	// create a cache for the routes of up to a number of problems, with a directory
+	// for their files or null for none
+	public SolutionCache(int maxEntries, String directory) throws IOException {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("The cache needs room for at least 1 problem");
+		}
+		this.maxEntries = maxEntries;
+		if (directory != null) {
+			this.directory = Paths.get(directory);
+			Files.createDirectories(this.directory);
+		}
+		this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Fingerprint, int[]> eldest) {
+				if (size() > SolutionCache.this.maxEntries) {
+					numEvictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/*
+	 * returns the shortest route of the cities as their indexes starting at the
+	 * first city, or null when the problem is not in the cache. A problem that is
+	 * only in the directory is read from its file and kept in memory
+	 */
+	public int[] get(CityStore cities) {
+		SortedCities sortedCities = new SortedCities(cities);
+		int[] route;
+		synchronized (this) {
+			route = entries.get(sortedCities.key);
+		}
+		boolean fromDisk = false;
+		if (route == null && directory != null) {
+			route = readFile(sortedCities.key);
+			fromDisk = route != null;
+		}
+		synchronized (this) {
+			if (route == null) {
+				numMisses++;
+				return null;
+			}
+			numHits++;
+			if (fromDisk) {
+				numDiskHits++;
+				entries.put(sortedCities.key, route);
+			}
+		}
+		return sortedCities.toPath(route);
+	}
+
+	// store the shortest route of the cities, given as their indexes
+	public void put(CityStore cities, int[] path) {
+		SortedCities sortedCities = new SortedCities(cities);
+		int[] route = sortedCities.toRoute(path);
+		synchronized (this) {
+			entries.put(sortedCities.key, route);
+		}
+		if (directory != null) {
+			writeFile(sortedCities.key, route);
+		}
+	}
+
+	// read the route of a fingerprint from its file, or null when there is no file
+	// or it is for other coordinates
+	private int[] readFile(Fingerprint fingerprint) {
+		Path file = directory.resolve(fingerprint.fileName());
+		if (!Files.isRegularFile(file)) {
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+			int numCities = in.readInt();
+			if (numCities != fingerprint.positions.length) {
+				return null;
+			}
+			for (int index = 0; index < numCities; index++) {
+				if (in.readLong() != fingerprint.positions[index]) {
+					return null;
+				}
+			}
+			int[] route = new int[numCities];
+			for (int index = 0; index < numCities; index++) {
+				route[index] = in.readInt();
+			}
+			return route;
+		} catch (IOException readError) {
+			// a file that cannot be read is the same as no file
+			return null;
+		}
+	}
+
+	// write the route of a fingerprint to a new file that replaces the old one at
+	// once, so a file being read is never half written
+	private void writeFile(Fingerprint fingerprint, int[] route) {
+		Path file = directory.resolve(fingerprint.fileName());
+		Path tempFile = directory.resolve(fingerprint.fileName() + "." + Thread.currentThread().getId() + ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tempFile))) {
+				out.writeInt(fingerprint.positions.length);
+				for (long position : fingerprint.positions) {
+					out.writeLong(position);
+				}
+				for (int city : route) {
+					out.writeInt(city);
+				}
+			}
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException writeError) {
+			// the route stays in memory, it is only lost when the program restarts
+			try {
+				Files.deleteIfExists(tempFile);
+			} catch (IOException deleteError) {
+				// nothing else can be done
+			}
+		}
+	}
+
+	// getters for the number of problems found in memory or in the directory, found
+	// in the directory, not found and removed from memory to make room for others
+	public synchronized long getNumHits() {
+		return numHits;
+	}
+
+	public synchronized long getNumDiskHits() {
+		return numDiskHits;
+	}
+
+	public synchronized long getNumMisses() {
+		return numMisses;
+	}
+
+	public synchronized long getNumEvictions() {
+		return numEvictions;
+	}
+
+	// returns the number of problems in memory
+	public synchronized int getSize() {
+		return entries.size();
+	}
+
+	// returns the counts of the cache as a line
+	public synchronized String formatStats() {
+		return String.format("Cache: %d hits (%d from disk), %d misses, %d evictions, %d problems", numHits,
+				numDiskHits, numMisses, numEvictions, entries.size());
+	}
+
+	/*
+	 * fingerprint of the cities of a problem. Each position packs the x and y
+	 * coordinates of a city minus the smallest ones in a long, and the positions
+	 * are sorted
+	 */
+	private static class Fingerprint {
+		private long[] positions;
+		private int hashCode;
+
+		private Fingerprint(long[] positions) {
+			this.positions = positions;
+			this.hashCode = Arrays.hashCode(positions);
+		}
+
+		// name of the file of the fingerprint, a hash of its positions
+		private String fileName() {
+			ByteBuffer bytes = ByteBuffer.allocate(positions.length * Long.BYTES);
+			bytes.asLongBuffer().put(positions);
+			try {
+				byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes.array());
+				StringBuilder name = new StringBuilder();
+				for (byte value : digest) {
+					name.append(String.format("%02x", value));
+				}
+				return name.append(".route").toString();
+			} catch (NoSuchAlgorithmException hashError) {
+				throw new IllegalStateException("SHA-256 is not available", hashError);
+			}
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Fingerprint && hashCode == ((Fingerprint) other).hashCode
+					&& Arrays.equals(positions, ((Fingerprint) other).positions);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+	}
+
+	/*
+	 * cities of a problem in sorted order, with their fingerprint and the index of
+	 * the city at each position of the fingerprint, which converts routes between
+	 * the indexes of the cities and the positions. Cities with the same coordinates
+	 * can take each other's place
+	 */
+	private static class SortedCities {
+		private Fingerprint key;
+		private int[] order;
+
+		private SortedCities(CityStore cities) {
+			int size = cities.getSize();
+			long minX = Long.MAX_VALUE;
+			long minY = Long.MAX_VALUE;
+			for (int index = 0; index < size; index++) {
+				minX = Math.min(minX, cities.getXPosition(index));
+				minY = Math.min(minY, cities.getYPosition(index));
+			}
+			long[] cityPositions = new long[size];
+			for (int index = 0; index < size; index++) {
+				cityPositions[index] = (cities.getXPosition(index) - minX) << 32 | (cities.getYPosition(index) - minY);
+			}
+			// the positions are sorted as longs, and each city takes the first free
+			// place of its position, so cities with the same coordinates keep their order
+			long[] positions = cityPositions.clone();
+			Arrays.sort(positions);
+			this.order = new int[size];
+			Arrays.fill(order, -1);
+			for (int index = 0; index < size; index++) {
+				int position = Arrays.binarySearch(positions, cityPositions[index]);
+				while (position > 0 && positions[position - 1] == cityPositions[index]) {
+					position--;
+				}
+				while (order[position] != -1) {
+					position++;
+				}
+				order[position] = index;
+			}
+			this.key = new Fingerprint(positions);
+		}
+
+		// convert a route of positions to a path of city indexes that starts at the
+		// first city
+		private int[] toPath(int[] route) {
+			int start = 0;
+			for (int index = 0; index < route.length; index++) {
+				if (order[route[index]] == 0) {
+					start = index;
+				}
+			}
+			int[] path = new int[route.length];
+			for (int index = 0; index < route.length; index++) {
+				path[index] = order[route[(start + index) % route.length]];
+			}
+			return path;
+		}
+
+		// convert a path of city indexes to a route of positions
+		private int[] toRoute(int[] path) {
+			int[] positionOf = new int[order.length];
+			for (int position = 0; position < order.length; position++) {
+				positionOf[order[position]] = position;
+			}
+			int[] route = new int[path.length];
+			for (int index = 0; index < path.length; index++) {
+				route[index] = positionOf[path[index]];
+			}
+			return route;
+		}
+	}
+}
@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/*this class stores the options used to solve a TSP problem, for example the search
+strategy of branch and bound, the lower bound, the number of threads used by
+parallel search, if a heuristic route is used as the first best route, the limits
+of time, vertices and memory after which the best route so far is returned, the
+control that cancels the solver, the listeners told about every better route and
+the metrics collected by branch and bound, the cache of the routes found before, the
+file of the checkpoints of best first search and how branch and bound skips paths
+that cannot give a better route*/
+public class SolverOptions {
+	// milliseconds between two checkpoints by default
+	private static final long DEFAULT_CHECKPOINT_INTERVAL = 60000;
+	// entries the transposition table can grow to by default, about 17 MB
+	private static final int DEFAULT_TABLE_SIZE = 1 << 20;
+	private String strategy;
+	private String bound;
+	private int parallelism;
+	private boolean initialTour;
+	// milliseconds the solver can run for, 0 for no limit
+	private long timeLimit;
+	// vertices branch and bound can explore, 0 for no limit
+	private long nodeLimit;
+	// bytes the Held-Karp table or the open vertices of best first search can use,
+	// half of the heap by default, 0 for no limit on best first search and half of
+	// the heap for Held-Karp
+	private long memoryLimit;
+	// control that cancels the solver, a new one is used when it is null
+	private SearchControl control;
+	private List<SearchListener> listeners;
+	// metrics of branch and bound, null when they are not collected
+	private SearchMetrics metrics;
+	// milliseconds between progress reports, 0 for none
+	private long progressInterval;
+	// if the metrics are registered with JMX while solving
+	private boolean jmx;
+	// routes of the problems solved before, null when they are not kept
+	private SolutionCache cache;
+	// file of the checkpoints, null for none, the milliseconds between them and if
+	// the search goes on from the checkpoint in the file
+	private String checkpointFile;
+	private long checkpointInterval;
+	private boolean resume;
+	// if the result of a problem read from a file is written to a binary solution
+	// file next to it
+	private boolean writeSolution;
+	// entries of the transposition table of branch and bound, 0 for no table, and
+	// if only one direction of the routes of a symmetric problem is explored
+	private int tableSize;
+	private boolean symmetryBreaking;
+
+	// create the default options: the strategy is chosen by the size of the problem
+	// and the bound by the distances, using all the processors, starting from a
+	// heuristic route, without time or vertex limits, and the Held-Karp table or the
+	// open vertices of best first search can use half of the heap, so a search that
+	// does not fit returns its best route instead of running out of memory
+	public SolverOptions() {
+		this.strategy = Main.AUTO;
+		this.bound = Main.AUTO;
+		this.parallelism = Runtime.getRuntime().availableProcessors();
+		this.initialTour = true;
+		this.memoryLimit = Runtime.getRuntime().maxMemory() / 2;
+		this.listeners = new ArrayList<>();
+		this.checkpointInterval = DEFAULT_CHECKPOINT_INTERVAL;
+		this.tableSize = DEFAULT_TABLE_SIZE;
+		this.symmetryBreaking = true;
+	}
+
+	// copy the options, with their own list of listeners
+	public SolverOptions(SolverOptions options) {
+		this.strategy = options.getStrategy();
+		this.bound = options.getBound();
+		this.parallelism = options.getParallelism();
+		this.initialTour = options.isInitialTour();
+		this.timeLimit = options.getTimeLimit();
+		this.nodeLimit = options.getNodeLimit();
+		this.memoryLimit = options.getMemoryLimit();
+		this.control = options.getControl();
+		this.listeners = new ArrayList<>(options.getListeners());
+		this.metrics = options.getMetrics();
+		this.progressInterval = options.getProgressInterval();
+		this.jmx = options.isJmx();
+		this.cache = options.getCache();
+		this.checkpointFile = options.getCheckpointFile();
+		this.checkpointInterval = options.getCheckpointInterval();
+		this.resume = options.isResume();
+		this.writeSolution = options.isWriteSolution();
+		this.tableSize = options.getTableSize();
+		this.symmetryBreaking = options.isSymmetryBreaking();
+	}
+
+	// getters and setters for the strategy, the bound, the parallelism, the
+	// initial route and the limits of time, vertices and memory
+	public void setStrategy(String strategy) {
+		this.strategy = strategy;
+	}
+
+	public String getStrategy() {
+		return strategy;
+	}
+
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1");
+		}
+		this.parallelism = parallelism;
+	}
+
+	public void setBound(String bound) {
+		this.bound = bound;
+	}
+
+	public String getBound() {
+		return bound;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setInitialTour(boolean initialTour) {
+		this.initialTour = initialTour;
+	}
+
+	public boolean isInitialTour() {
+		return initialTour;
+	}
+
+	public void setTimeLimit(long timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	public long getTimeLimit() {
+		return timeLimit;
+	}
+
+	public void setMemoryLimit(long memoryLimit) {
+		this.memoryLimit = memoryLimit;
+	}
+
+	public long getMemoryLimit() {
+		return memoryLimit;
+	}
+
+	// returns the bytes the Held-Karp table can use, which is half of the heap when
+	// no memory limit is selected, because its size is known before it is created
+	public long getHeldKarpMemoryLimit() {
+		return memoryLimit != 0 ? memoryLimit : Runtime.getRuntime().maxMemory() / 2;
+	}
+
+	public void setNodeLimit(long nodeLimit) {
+		this.nodeLimit = nodeLimit;
+	}
+
+	public long getNodeLimit() {
+		return nodeLimit;
+	}
+
+	// getters and setters for the control of the next solve, which is kept by the
+	// caller to cancel it, and the listeners told about every better route
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+
+	public SearchControl getControl() {
+		return control;
+	}
+
+	public void addListener(SearchListener listener) {
+		listeners.add(listener);
+	}
+
+	public List<SearchListener> getListeners() {
+		return listeners;
+	}
+
+	// getters and setters for the metrics of branch and bound, how often its
+	// progress is reported and if the metrics can be read with JMX
+	public void setMetrics(SearchMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	public void setProgressInterval(long progressInterval) {
+		this.progressInterval = progressInterval;
+	}
+
+	public long getProgressInterval() {
+		return progressInterval;
+	}
+
+	public void setJmx(boolean jmx) {
+		this.jmx = jmx;
+	}
+
+	public boolean isJmx() {
+		return jmx;
+	}
+
+	// getters and setters for the cache, which is shared by the copies of the
+	// options
+	public void setCache(SolutionCache cache) {
+		this.cache = cache;
+	}
+
+	public SolutionCache getCache() {
+		return cache;
+	}
+
+	// getters and setters for the file of the checkpoints, the milliseconds between
+	// them and resuming from the file
+	public void setCheckpointFile(String checkpointFile) {
+		this.checkpointFile = checkpointFile;
+	}
+
+	public String getCheckpointFile() {
+		return checkpointFile;
+	}
+
+	public void setCheckpointInterval(long checkpointInterval) {
+		if (checkpointInterval < 1) {
+			throw new IllegalArgumentException("The checkpoint interval must be at least 1 ms");
+		}
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	public long getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
+	// getters and setters for writing the solution of a problem file next to it
+	public void setWriteSolution(boolean writeSolution) {
+		this.writeSolution = writeSolution;
+	}
+
+	public boolean isWriteSolution() {
+		return writeSolution;
+	}
+
+	// getters and setters for the entries of the transposition table and for
+	// exploring one direction of the routes of a symmetric problem
+	public void setTableSize(int tableSize) {
+		if (tableSize < 0) {
+			throw new IllegalArgumentException("The table size cannot be negative");
+		}
+		this.tableSize = tableSize;
+	}
+
+	public int getTableSize() {
+		return tableSize;
+	}
+
+	public void setSymmetryBreaking(boolean symmetryBreaking) {
+		this.symmetryBreaking = symmetryBreaking;
+	}
+
+	public boolean isSymmetryBreaking() {
+		return symmetryBreaking;
+	}
+}
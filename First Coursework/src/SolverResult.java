@@ -0,0 +1,88 @@
+/*this class stores the result of solving a TSP problem: the best route found as
+indexes of the list of cities, its length and the number of vertices explored by the
+search. A solver that stops before it is complete also gives a lower bound of the
+shortest route, so the result says how far from optimal the route can be*/
+public class SolverResult {
+	// reason of a route that was only built and improved by the heuristic, which
+	// does not search for the shortest route
+	public static final String HEURISTIC_ONLY = "heuristic only";
+	private CityStore cities;
+	private int[] path;
+	private double cost;
+	private long nodesExpanded;
+	private double lowerBound;
+	// reason the solver stopped early or HEURISTIC_ONLY, null when the route is
+	// optimal
+	private String stopReason;
+
+	// create a result for an optimal path of city indexes, its length and the
+	// number of vertices explored
+	public SolverResult(CityStore cities, int[] path, double cost, long nodesExpanded) {
+		this(cities, path, cost, nodesExpanded, cost, null);
+	}
+
+	// create a result for a path that may not be optimal, with a lower bound of the
+	// shortest route and the reason the solver stopped
+	public SolverResult(CityStore cities, int[] path, double cost, long nodesExpanded, double lowerBound,
+			String stopReason) {
+		this.cities = cities;
+		this.path = path;
+		this.cost = cost;
+		this.nodesExpanded = nodesExpanded;
+		this.lowerBound = Math.min(lowerBound, cost);
+		this.stopReason = stopReason;
+	}
+
+	// returns the best route as a list of cities that goes back to the initial city
+	public CityList getRoute() {
+		return cities.getRoute(path);
+	}
+
+	// returns the city numbers of the best route, without going back to the
+	// initial city
+	public int[] getCityNumbers() {
+		int[] cityNumbers = new int[path.length];
+		for (int index = 0; index < path.length; index++) {
+			cityNumbers[index] = cities.getCityNumber(path[index]);
+		}
+		return cityNumbers;
+	}
+
+	// getters for the cities, the path, the cost and the number of vertices explored
+	public CityStore getCities() {
+		return cities;
+	}
+
+	public int[] getPath() {
+		return path;
+	}
+
+	public double getCost() {
+		return cost;
+	}
+
+	public long getNodesExpanded() {
+		return nodesExpanded;
+	}
+
+	// getters for the lower bound of the shortest route and the reason the route
+	// may not be optimal, null when the solver was not stopped
+	public double getLowerBound() {
+		return lowerBound;
+	}
+
+	public String getStopReason() {
+		return stopReason;
+	}
+
+	// check if the route is known to be the shortest route
+	public boolean isOptimal() {
+		return lowerBound >= cost;
+	}
+
+	// returns how much longer than the shortest route the route can be, as a
+	// fraction of its cost
+	public double getGap() {
+		return cost <= 0.0 ? 0.0 : (cost - lowerBound) / cost;
+	}
+}
@@ -0,0 +1,294 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*HTTP server that solves the problems sent to it, using the server of the JDK. A POST
+to /solve has the cities in the body in the same format as the files, and the answer
+has the same lines that are printed for a file. The query can select the strategy,
+the bound, a time limit in seconds and a limit of vertices, like the options of the
+command line, for example /solve?strategy=depth-first&time-limit=2. The problems
+are solved by a fixed number of threads with a queue of limited size, and when the
+queue is full the request is rejected with 429 so the client can try again later.
+Requests with the same cities and options that arrive while the first one is being
+solved wait for its result instead of solving it again. The time limit counts from
+when the request arrives, so the time waiting in the queue is included, and a
+request still waiting when its time is over gets 503. A request without a time limit
+gets the one of the command line or a default one, so no request can keep a thread
+forever, and a body bigger than the limit is refused with 413. GET /stats gives the
+counts of requests*/
+public class SolverServer {
+	// number of threads reading the requests, which only read the body and queue it
+	private static final int REQUEST_THREADS = 2;
+	// largest body of a request, far more than the biggest problem that can be solved
+	// in the time limit
+	private static final int MAX_BODY_BYTES = 16 * 1024 * 1024;
+	// time limit in milliseconds of the requests when none is selected
+	private static final long DEFAULT_TIME_LIMIT = 60000;
+	private HttpServer server;
+	private ExecutorService requestExecutor;
+	private ThreadPoolExecutor solverExecutor;
+	private SolverOptions options;
+	// results of the problems being solved, by the hash of their cities and options
+	private Map<String, CompletableFuture<Response>> inFlight;
+	private LongAdder numReceived;
+	private LongAdder numRejected;
+	private LongAdder numCoalesced;
+	private LongAdder numSolved;
+	private LongAdder numFailed;
+	private LongAdder numInvalid;
+
+	/*
+	 * create a server on an address with the options used for every problem, the
+	 * number of threads that solve problems and the number of problems that can
+	 * wait in the queue. Each problem is solved by one thread, the memory limit of
+	 * the options, half of the heap by default, is shared by the threads and the
+	 * default time limit is used when the options have none
+	 */
+	public SolverServer(InetSocketAddress address, SolverOptions options, int numThreads, int queueSize)
+			throws IOException {
+		if (numThreads < 1 || queueSize < 1) {
+			throw new IllegalArgumentException("The server needs at least 1 thread and a queue of 1");
+		}
+		this.options = new SolverOptions(options);
+		this.options.setParallelism(1);
+		this.options.setMemoryLimit(options.getMemoryLimit() / numThreads);
+		this.options.setControl(null);
+		this.options.setMetrics(null);
+		this.options.setCheckpointFile(null);
+		if (options.getTimeLimit() <= 0) {
+			this.options.setTimeLimit(DEFAULT_TIME_LIMIT);
+		}
+		this.inFlight = new ConcurrentHashMap<>();
+		this.numReceived = new LongAdder();
+		this.numRejected = new LongAdder();
+		this.numCoalesced = new LongAdder();
+		this.numSolved = new LongAdder();
+		this.numFailed = new LongAdder();
+		this.numInvalid = new LongAdder();
+		this.solverExecutor = new ThreadPoolExecutor(numThreads, numThreads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize));
+		this.requestExecutor = Executors.newFixedThreadPool(REQUEST_THREADS);
+		this.server = HttpServer.create(address, 0);
+		server.setExecutor(requestExecutor);
+		server.createContext("/solve", this::handleSolve);
+		server.createContext("/stats", this::handleStats);
+	}
+
+	// start answering requests
+	public void start() {
+		server.start();
+	}
+
+	// stop the server, waiting up to the given seconds for the requests being answered
+	public void stop(int delay) {
+		server.stop(delay);
+		solverExecutor.shutdown();
+		requestExecutor.shutdown();
+	}
+
+	// returns the port of the server, which is chosen by the system when it is 0
+	public int getPort() {
+		return server.getAddress().getPort();
+	}
+
+	// read a request to solve a problem and queue it, or join the same request
+	// already queued
+	private void handleSolve(HttpExchange exchange) throws IOException {
+		long arrivalTime = System.nanoTime();
+		numReceived.increment();
+		if (!exchange.getRequestMethod().equals("POST")) {
+			numInvalid.increment();
+			send(exchange, new Response(405, "Use POST with the cities in the body"));
+			return;
+		}
+		// one byte more than the limit is read to find a body that is too big
+		byte[] body = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+		if (body.length > MAX_BODY_BYTES) {
+			numInvalid.increment();
+			send(exchange, new Response(413, "The body is bigger than " + MAX_BODY_BYTES + " bytes"));
+			return;
+		}
+		Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+		String key = hash(body) + "?" + new TreeMap<>(parameters);
+		CompletableFuture<Response> future = new CompletableFuture<>();
+		CompletableFuture<Response> existing = inFlight.putIfAbsent(key, future);
+		if (existing != null) {
+			numCoalesced.increment();
+			existing.thenAccept(response -> send(exchange, response));
+			return;
+		}
+		try {
+			solverExecutor.execute(() -> {
+				Response response = null;
+				try {
+					response = solveRequest(body, parameters, arrivalTime);
+				} catch (RuntimeException solvingError) {
+					response = new Response(500, "Error: " + solvingError.getMessage());
+				} finally {
+					// an error such as running out of memory still answers the
+					// request and the requests waiting for it before it is thrown
+					if (response == null) {
+						response = new Response(500, "Error: the problem could not be solved");
+					}
+					if (response.status == 200) {
+						numSolved.increment();
+					} else if (response.status == 400) {
+						numInvalid.increment();
+					} else {
+						numFailed.increment();
+					}
+					// new requests solve the problem again once the result is given
+					inFlight.remove(key, future);
+					future.complete(response);
+				}
+			});
+		} catch (RejectedExecutionException rejectedError) {
+			numRejected.increment();
+			inFlight.remove(key, future);
+			future.complete(new Response(429, "The queue is full, try again later"));
+		}
+		future.thenAccept(response -> send(exchange, response));
+	}
+
+	/*
+	 * solve the cities of a request with the options of its query. The time limit
+	 * is what is left of it after waiting in the queue
+	 */
+	private Response solveRequest(byte[] body, Map<String, String> parameters, long arrivalTime) {
+		long startTime = System.nanoTime();
+		SolverOptions requestOptions = new SolverOptions(options);
+		try {
+			for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+				String value = parameter.getValue();
+				if (parameter.getKey().equals("strategy")) {
+					requestOptions.setStrategy(value);
+				} else if (parameter.getKey().equals("bound")) {
+					requestOptions.setBound(value);
+				} else if (parameter.getKey().equals("time-limit")) {
+					// a request cannot remove the time limit, as 0 would on the command line
+					long timeLimit = (long) (Double.parseDouble(value) * 1000);
+					if (timeLimit <= 0) {
+						return new Response(400, "The time limit must be more than 0");
+					}
+					requestOptions.setTimeLimit(timeLimit);
+				} else if (parameter.getKey().equals("node-limit")) {
+					requestOptions.setNodeLimit(Long.parseLong(value));
+				} else {
+					return new Response(400, "Unknown parameter " + parameter.getKey());
+				}
+			}
+			long remainingTime = requestOptions.getTimeLimit() - (startTime - arrivalTime) / 1000000;
+			if (remainingTime <= 0) {
+				return new Response(503, "The time limit was over before the problem could be solved");
+			}
+			requestOptions.setTimeLimit(remainingTime);
+			CityStore cities = new CityFileReader("request", ByteBuffer.wrap(body)).readCities();
+			SolverResult result = Main.solve(cities, requestOptions);
+			return new Response(200, Main.formatResult(result, (System.nanoTime() - arrivalTime) / 1000000));
+		} catch (IOException | IllegalArgumentException | IllegalStateException requestError) {
+			return new Response(400, "Error: " + requestError.getMessage());
+		}
+	}
+
+	// give the counts of requests, the size of the queue and the counts of the cache.
+	// Invalid requests are the ones the client has to change, failed requests could
+	// not be solved
+	private void handleStats(HttpExchange exchange) {
+		if (!exchange.getRequestMethod().equals("GET")) {
+			send(exchange, new Response(405, "Use GET for the counts of requests"));
+			return;
+		}
+		String newLine = System.lineSeparator();
+		String stats = "Received: " + numReceived.sum() + newLine
+				+ "Solved: " + numSolved.sum() + newLine
+				+ "Invalid: " + numInvalid.sum() + newLine
+				+ "Failed: " + numFailed.sum() + newLine
+				+ "Rejected: " + numRejected.sum() + newLine
+				+ "Coalesced: " + numCoalesced.sum() + newLine
+				+ "Queued: " + solverExecutor.getQueue().size() + newLine
+				+ "Solving: " + solverExecutor.getActiveCount() + newLine;
+		if (options.getCache() != null) {
+			stats += options.getCache().formatStats() + newLine;
+		}
+		send(exchange, new Response(200, stats));
+	}
+
+	// send a response and close the exchange, a client that is gone is ignored
+	private static void send(HttpExchange exchange, Response response) {
+		try {
+			byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+			if (response.status == 429) {
+				exchange.getResponseHeaders().set("Retry-After", "1");
+			}
+			exchange.sendResponseHeaders(response.status, bytes.length);
+			try (OutputStream out = exchange.getResponseBody()) {
+				out.write(bytes);
+			}
+		} catch (IOException sendingError) {
+			// the client closed the connection
+		} finally {
+			exchange.close();
+		}
+	}
+
+	// read the parameters of a query
+	private static Map<String, String> parseQuery(String query) {
+		Map<String, String> parameters = new HashMap<>();
+		if (query == null || query.isEmpty()) {
+			return parameters;
+		}
+		for (String parameter : query.split("&")) {
+			int equals = parameter.indexOf('=');
+			String name = equals < 0 ? parameter : parameter.substring(0, equals);
+			String value = equals < 0 ? "" : parameter.substring(equals + 1);
+			parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+					URLDecoder.decode(value, StandardCharsets.UTF_8));
+		}
+		return parameters;
+	}
+
+	// hash of the body of a request, so the same cities give the same key
+	private static String hash(byte[] body) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+			StringBuilder hex = new StringBuilder();
+			for (byte value : digest) {
+				hex.append(String.format("%02x", value));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException hashError) {
+			throw new IllegalStateException("SHA-256 is not available", hashError);
+		}
+	}
+
+	// status and body of a response
+	private static class Response {
+		private int status;
+		private String body;
+
+		public Response(int status, String body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+}
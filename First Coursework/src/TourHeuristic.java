@@ -0,0 +1,538 @@
+import java.util.Arrays;
+
+/*heuristic to find a good route quickly. A first route is built with the nearest
+neighbour or the greedy edge method and then improved with 2-opt and Or-opt moves.
+Only the closest cities of each city are considered for the moves, and a city is
+only checked again when one of its connections changes, so big problems can be
+improved in milliseconds. The route is stored as a segment tour, so a part of the
+route is reversed without moving every city of the part. The moves assume the
+distances are symmetric, except for the Or-opt moves that keep the direction of the
+part moved, which are used for distances that are not*/
+public class TourHeuristic {
+	// number of closest cities considered for each city
+	private static final int NUM_NEIGHBOURS = 10;
+	// longest part of the route moved by Or-opt
+	private static final int MAX_SEGMENT_LENGTH = 3;
+	// a move has to improve the route by more than this to be made
+	protected static final double MIN_IMPROVEMENT = 1e-9;
+	// the time limit is checked after this many cities are taken from the queue
+	private static final int TIME_CHECK_INTERVAL = 256;
+	protected Distances distances;
+	protected int numCities;
+	protected int[][] neighbours;
+	// route being improved
+	protected SegmentTour tour;
+	// time when the improvement stops, or 0 for no limit
+	private long deadline;
+	// control that can stop the improvement from another thread, or null
+	private SearchControl control;
+	// queue of cities to check, a city is not in the queue when its bit is off
+	private int[] queue;
+	private boolean[] inQueue;
+	private int queueStart;
+	private int queueSize;
+
+	// create a heuristic for the distances between the cities, calculating the
+	// closest cities of every city
+	public TourHeuristic(Distances distances) {
+		this.distances = distances;
+		this.numCities = distances.getSize();
+		this.neighbours = calculateNeighbours(distances, Math.min(NUM_NEIGHBOURS, numCities - 1));
+	}
+
+	// create a heuristic for the distances between the cities with the closest
+	// cities already calculated
+	public TourHeuristic(Distances distances, int[][] neighbours) {
+		this.distances = distances;
+		this.numCities = distances.getSize();
+		this.neighbours = neighbours;
+	}
+
+	// find the closest cities of every city, sorted by distance
+	public static int[][] calculateNeighbours(Distances distances, int numNeighbours) {
+		int numCities = distances.getSize();
+		int[][] neighbours = new int[numCities][];
+		double[] neighbourDistances = new double[numNeighbours];
+		for (int city = 0; city < numCities; city++) {
+			neighbours[city] = calculateNeighbours(distances, city, numNeighbours, neighbourDistances);
+		}
+		return neighbours;
+	}
+
+	// find the closest cities of one city, sorted by distance
+	public static int[] calculateNeighbours(Distances distances, int city, int numNeighbours) {
+		return calculateNeighbours(distances, city, numNeighbours, new double[numNeighbours]);
+	}
+
+	// find the closest cities of one city, using an array for their distances
+	private static int[] calculateNeighbours(Distances distances, int city, int numNeighbours,
+			double[] neighbourDistances) {
+		int numCities = distances.getSize();
+		int[] neighbours = new int[numNeighbours];
+		int size = 0;
+		for (int otherCity = 0; otherCity < numCities; otherCity++) {
+			if (otherCity == city) {
+				continue;
+			}
+			double distance = distances.get(city, otherCity);
+			if (size == numNeighbours && distance >= neighbourDistances[size - 1]) {
+				continue;
+			}
+			// insert the city keeping the list sorted by distance
+			int index = size == numNeighbours ? size - 1 : size;
+			while (index > 0 && neighbourDistances[index - 1] > distance) {
+				neighbours[index] = neighbours[index - 1];
+				neighbourDistances[index] = neighbourDistances[index - 1];
+				index--;
+			}
+			neighbours[index] = otherCity;
+			neighbourDistances[index] = distance;
+			if (size < numNeighbours) {
+				size++;
+			}
+		}
+		return neighbours;
+	}
+
+	// build a greedy route, improve it and return it starting from the given city
+	public int[] solve(int initialCity) {
+		return rotate(improve(greedyTour()), initialCity);
+	}
+
+	// build a route going from each city to the closest city not visited yet. When
+	// every close city was visited only the cities left are searched
+	public int[] nearestNeighbourTour(int initialCity) {
+		int[] newTour = new int[numCities];
+		CitySet remaining = new CitySet(numCities, true);
+		int city = initialCity;
+		newTour[0] = city;
+		remaining.remove(city);
+		for (int index = 1; index < numCities; index++) {
+			int nextCity = -1;
+			// the closest cities are checked first
+			for (int neighbour = 0; neighbour < neighbours[city].length; neighbour++) {
+				if (remaining.contains(neighbours[city][neighbour])) {
+					nextCity = neighbours[city][neighbour];
+					break;
+				}
+			}
+			if (nextCity == -1) {
+				double minDistance = Double.POSITIVE_INFINITY;
+				for (int position = 0; position < remaining.getSize(); position++) {
+					int otherCity = remaining.get(position);
+					if (distances.get(city, otherCity) < minDistance) {
+						minDistance = distances.get(city, otherCity);
+						nextCity = otherCity;
+					}
+				}
+			}
+			newTour[index] = nextCity;
+			remaining.remove(nextCity);
+			city = nextCity;
+		}
+		return newTour;
+	}
+
+	/*
+	 * build a route adding the shortest connections between close cities first, as
+	 * long as no city gets more than two connections and no closed loop is made.
+	 * The pieces left are joined going from the end of each piece to the closest
+	 * end of another piece
+	 */
+	public int[] greedyTour() {
+		if (numCities < 3) {
+			return nearestNeighbourTour(0);
+		}
+		// each connection is sorted by its length and its position in the list
+		int numNeighbours = neighbours[0].length;
+		long[] connections = new long[numCities * numNeighbours];
+		int numConnections = 0;
+		for (int city = 0; city < numCities; city++) {
+			for (int index = 0; index < numNeighbours; index++) {
+				float distance = (float) distances.get(city, neighbours[city][index]);
+				connections[numConnections] = ((long) Float.floatToIntBits(distance) << 32)
+						| (city * numNeighbours + index);
+				numConnections++;
+			}
+		}
+		Arrays.sort(connections);
+		// two connected cities of each city, -1 when there is no connection
+		int[] links = new int[2 * numCities];
+		Arrays.fill(links, -1);
+		int[] pieces = new int[numCities];
+		for (int city = 0; city < numCities; city++) {
+			pieces[city] = city;
+		}
+		for (int index = 0; index < numConnections; index++) {
+			int connection = (int) connections[index];
+			int city = connection / numNeighbours;
+			int otherCity = neighbours[city][connection % numNeighbours];
+			if (links[2 * city + 1] != -1 || links[2 * otherCity + 1] != -1) {
+				continue;
+			}
+			int piece = findPiece(pieces, city);
+			int otherPiece = findPiece(pieces, otherCity);
+			if (piece == otherPiece) {
+				continue;
+			}
+			pieces[piece] = otherPiece;
+			addLink(links, city, otherCity);
+		}
+		// join the pieces walking from one end to the closest free end
+		int[] newTour = new int[numCities];
+		boolean[] visited = new boolean[numCities];
+		int[] ends = new int[numCities];
+		int numEnds = 0;
+		for (int city = 0; city < numCities; city++) {
+			if (links[2 * city + 1] == -1) {
+				ends[numEnds] = city;
+				numEnds++;
+			}
+		}
+		int city = ends[0];
+		int index = 0;
+		while (index < numCities) {
+			// walk along the piece starting at one of its ends
+			int previousCity = -1;
+			while (true) {
+				newTour[index] = city;
+				visited[city] = true;
+				index++;
+				int nextCity = links[2 * city] != previousCity ? links[2 * city] : links[2 * city + 1];
+				if (nextCity == -1 || visited[nextCity]) {
+					break;
+				}
+				previousCity = city;
+				city = nextCity;
+			}
+			if (index == numCities) {
+				break;
+			}
+			// find the closest end of a piece not visited yet, removing the visited
+			// ends from the list
+			int closestCity = -1;
+			double minDistance = Double.POSITIVE_INFINITY;
+			int endIndex = 0;
+			while (endIndex < numEnds) {
+				int otherCity = ends[endIndex];
+				if (visited[otherCity]) {
+					numEnds--;
+					ends[endIndex] = ends[numEnds];
+					continue;
+				}
+				if (distances.get(city, otherCity) < minDistance) {
+					minDistance = distances.get(city, otherCity);
+					closestCity = otherCity;
+				}
+				endIndex++;
+			}
+			city = closestCity;
+		}
+		return newTour;
+	}
+
+	// find the piece of the greedy route that a city belongs to
+	private static int findPiece(int[] pieces, int city) {
+		while (pieces[city] != city) {
+			pieces[city] = pieces[pieces[city]];
+			city = pieces[city];
+		}
+		return city;
+	}
+
+	// connect two cities of the greedy route
+	private static void addLink(int[] links, int city, int otherCity) {
+		links[links[2 * city] == -1 ? 2 * city : 2 * city + 1] = otherCity;
+		links[links[2 * otherCity] == -1 ? 2 * otherCity : 2 * otherCity + 1] = city;
+	}
+
+	/*
+	 * improve a route until no move improves it or the time limit is reached. Every
+	 * city starts in the queue, and the cities at the ends of the connections
+	 * changed by a move are added to the queue again
+	 */
+	public int[] improve(int[] initialTour) {
+		return improve(initialTour, initialTour);
+	}
+
+	/*
+	 * improve a route that was already improved and then changed, starting with
+	 * only the given cities in the queue, which are the cities whose connections
+	 * changed. The other cities are added when a move changes their connections
+	 */
+	public int[] improve(int[] initialTour, int[] changedCities) {
+		tour = new SegmentTour(initialTour);
+		if (numCities < 5) {
+			return tour.toArray();
+		}
+		queue = new int[numCities];
+		inQueue = new boolean[numCities];
+		queueStart = 0;
+		queueSize = 0;
+		for (int index = 0; index < changedCities.length; index++) {
+			addToQueue(changedCities[index]);
+		}
+		long numChecked = 0;
+		while (queueSize > 0) {
+			numChecked++;
+			if (numChecked % TIME_CHECK_INTERVAL == 0
+					&& ((deadline != 0 && System.nanoTime() > deadline) || (control != null && control.isStopped()))) {
+				break;
+			}
+			int city = queue[queueStart];
+			queueStart = (queueStart + 1) % numCities;
+			queueSize--;
+			inQueue[city] = false;
+			// check the city again after a move is found
+			if (improveCity(city)) {
+				addToQueue(city);
+			}
+		}
+		return tour.toArray();
+	}
+
+	/*
+	 * improve a route with Or-opt moves that keep the direction of the part moved,
+	 * so they also work when the distances are not the same in both ways. A part of
+	 * up to MAX_SEGMENT_LENGTH cities is placed before one of the closest cities of
+	 * its last city, and the passes over the route stop when no part can be moved.
+	 * The route is kept as an array, so a move copies the cities in their new order
+	 */
+	public int[] improveDirected(int[] initialTour) {
+		int[] route = initialTour.clone();
+		if (numCities < 5) {
+			return route;
+		}
+		int[] positions = new int[numCities];
+		for (int index = 0; index < numCities; index++) {
+			positions[route[index]] = index;
+		}
+		int[] newRoute = new int[numCities];
+		long numChecked = 0;
+		boolean improved = true;
+		while (improved) {
+			improved = false;
+			for (int start = 0; start < numCities; start++) {
+				numChecked++;
+				if (numChecked % TIME_CHECK_INTERVAL == 0 && ((deadline != 0 && System.nanoTime() > deadline)
+						|| (control != null && control.isStopped()))) {
+					return route;
+				}
+				for (int length = 1; length <= MAX_SEGMENT_LENGTH && length <= numCities - 3; length++) {
+					int firstCity = route[start];
+					int lastCity = route[(start + length - 1) % numCities];
+					int previousCity = route[(start - 1 + numCities) % numCities];
+					int nextCity = route[(start + length) % numCities];
+					double removedGain = distances.get(previousCity, firstCity) + distances.get(lastCity, nextCity)
+							- distances.get(previousCity, nextCity);
+					for (int index = 0; index < neighbours[lastCity].length; index++) {
+						int beforeCity = neighbours[lastCity][index];
+						// the city has to be outside the part and not already after it
+						if (beforeCity == nextCity || (positions[beforeCity] - start + numCities) % numCities < length) {
+							continue;
+						}
+						int afterCity = route[(positions[beforeCity] - 1 + numCities) % numCities];
+						double addedCost = distances.get(afterCity, firstCity) + distances.get(lastCity, beforeCity)
+								- distances.get(afterCity, beforeCity);
+						if (removedGain - addedCost > MIN_IMPROVEMENT) {
+							// copy the rest of the route from the city after the part, with the
+							// part before the chosen city
+							int size = 0;
+							for (int offset = length; offset < numCities; offset++) {
+								int city = route[(start + offset) % numCities];
+								if (city == beforeCity) {
+									for (int part = 0; part < length; part++) {
+										newRoute[size] = route[(start + part) % numCities];
+										size++;
+									}
+								}
+								newRoute[size] = city;
+								size++;
+							}
+							int[] oldRoute = route;
+							route = newRoute;
+							newRoute = oldRoute;
+							for (int position = 0; position < numCities; position++) {
+								positions[route[position]] = position;
+							}
+							improved = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+		return route;
+	}
+
+	// try the moves around a city and return true if one was made
+	protected boolean improveCity(int city) {
+		return improveTwoOpt(city) || improveOrOpt(city);
+	}
+
+	// try 2-opt moves replacing one of the connections of a city
+	private boolean improveTwoOpt(int city) {
+		for (int direction = 0; direction < 2; direction++) {
+			int nextCity = direction == 0 ? tour.next(city) : tour.previous(city);
+			double removedDistance = distances.get(city, nextCity);
+			for (int index = 0; index < neighbours[city].length; index++) {
+				int otherCity = neighbours[city][index];
+				double addedDistance = distances.get(city, otherCity);
+				// the other connections are longer than the one removed
+				if (addedDistance >= removedDistance) {
+					break;
+				}
+				int otherNextCity = direction == 0 ? tour.next(otherCity) : tour.previous(otherCity);
+				if (otherCity == nextCity || otherNextCity == city) {
+					continue;
+				}
+				double gain = removedDistance + distances.get(otherCity, otherNextCity) - addedDistance
+						- distances.get(nextCity, otherNextCity);
+				if (gain > MIN_IMPROVEMENT) {
+					makeTwoOptMove(city, nextCity, otherCity, otherNextCity);
+					addToQueue(nextCity);
+					addToQueue(otherCity);
+					addToQueue(otherNextCity);
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * try Or-opt moves taking the part of the route that starts at a city, with up
+	 * to three cities, and placing it between two close cities in either direction
+	 */
+	protected boolean improveOrOpt(int city) {
+		int firstCity = city;
+		int lastCity = city;
+		for (int length = 1; length <= MAX_SEGMENT_LENGTH && length + 3 <= numCities; length++) {
+			if (length > 1) {
+				lastCity = tour.next(lastCity);
+			}
+			int previousCity = tour.previous(firstCity);
+			int nextCity = tour.next(lastCity);
+			double removedGain = distances.get(previousCity, firstCity) + distances.get(lastCity, nextCity)
+					- distances.get(previousCity, nextCity);
+			if (removedGain <= MIN_IMPROVEMENT) {
+				continue;
+			}
+			// try to connect each end of the part to one of its closest cities
+			for (int end = 0; end < 2; end++) {
+				int endCity = end == 0 ? firstCity : lastCity;
+				int otherEndCity = end == 0 ? lastCity : firstCity;
+				for (int index = 0; index < neighbours[endCity].length; index++) {
+					int otherCity = neighbours[endCity][index];
+					double addedDistance = distances.get(endCity, otherCity);
+					if (addedDistance >= removedGain) {
+						break;
+					}
+					if (tour.between(firstCity, otherCity, lastCity)) {
+						continue;
+					}
+					for (int direction = 0; direction < 2; direction++) {
+						int otherNextCity = direction == 0 ? tour.next(otherCity) : tour.previous(otherCity);
+						if (tour.between(firstCity, otherNextCity, lastCity)) {
+							continue;
+						}
+						double gain = removedGain + distances.get(otherCity, otherNextCity) - addedDistance
+								- distances.get(otherEndCity, otherNextCity);
+						if (gain <= MIN_IMPROVEMENT) {
+							continue;
+						}
+						// place the part between two cities where the second follows the first
+						int insertAfter = direction == 0 ? otherCity : otherNextCity;
+						int insertBefore = direction == 0 ? otherNextCity : otherCity;
+						boolean reversed = (endCity == firstCity) != (direction == 0);
+						if (insertBefore == previousCity) {
+							continue;
+						}
+						makeOrOptMove(previousCity, firstCity, lastCity, nextCity, insertAfter, insertBefore, reversed);
+						addToQueue(previousCity);
+						addToQueue(nextCity);
+						addToQueue(otherEndCity);
+						addToQueue(otherCity);
+						addToQueue(otherNextCity);
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/*
+	 * move the part of the route from firstCity to lastCity between insertAfter and
+	 * insertBefore, reversed or not, using 2-opt moves. Removing the part and
+	 * joining the cities around it reverses the route between them, and a last
+	 * move reverses the part back when it keeps its direction
+	 */
+	private void makeOrOptMove(int previousCity, int firstCity, int lastCity, int nextCity, int insertAfter,
+			int insertBefore, boolean reversed) {
+		makeTwoOptMove(previousCity, firstCity, insertAfter, insertBefore);
+		if (insertAfter != nextCity) {
+			makeTwoOptMove(previousCity, insertAfter, nextCity, lastCity);
+		}
+		// the part is now reversed between insertAfter and insertBefore
+		if (!reversed) {
+			makeTwoOptMove(insertAfter, lastCity, firstCity, insertBefore);
+		}
+	}
+
+	/*
+	 * replace the connections between city and nextCity and between otherCity and
+	 * otherNextCity with connections between city and otherCity and between
+	 * nextCity and otherNextCity, reversing the part of the route between them.
+	 * nextCity has to be on the same side of city as otherNextCity of otherCity
+	 */
+	protected void makeTwoOptMove(int city, int nextCity, int otherCity, int otherNextCity) {
+		if (tour.next(city) == nextCity) {
+			tour.reverse(nextCity, otherCity);
+		} else {
+			tour.reverse(otherCity, nextCity);
+		}
+	}
+
+	// add a city to the queue of cities to check if it is not there
+	protected void addToQueue(int city) {
+		if (!inQueue[city]) {
+			queue[(queueStart + queueSize) % numCities] = city;
+			queueSize++;
+			inQueue[city] = true;
+		}
+	}
+
+	// stop improving the route after the given number of milliseconds from now, or
+	// never when it is 0
+	public void setTimeLimit(long timeLimit) {
+		deadline = timeLimit == 0 ? 0 : System.nanoTime() + timeLimit * 1000000;
+	}
+
+	// set the control that can stop the improvement, or null for none
+	public void setControl(SearchControl control) {
+		this.control = control;
+	}
+
+	// return a route starting from the given city
+	public static int[] rotate(int[] route, int initialCity) {
+		int[] rotated = new int[route.length];
+		int start = 0;
+		while (route[start] != initialCity) {
+			start++;
+		}
+		for (int index = 0; index < route.length; index++) {
+			rotated[index] = route[(start + index) % route.length];
+		}
+		return rotated;
+	}
+
+	// getters for the closest cities of every city and the distances
+	public int[][] getNeighbours() {
+		return neighbours;
+	}
+
+	public Distances getDistances() {
+		return distances;
+	}
+}
@@ -0,0 +1,184 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*transposition table of branch and bound, which keeps the shortest path found to
+each state of the search: the cities visited and the last city. A path that reaches
+a state in the table and is not shorter than the path of the table cannot give a
+shorter route, because every way to finish it also finishes the other path, so it
+does not have to be explored.
+The table has at most a fixed number of entries in buckets of a few entries, so its
+memory does not grow past it. It starts small and doubles when half of its entries
+are used, so a search that visits few states does not allocate the whole table.
+When the bucket of a new state is full, the entry with the most cities visited is
+replaced, because the fewest vertices are left below it. The states are split into
+stripes with a lock each, so the threads of the parallel search share the table and
+rarely wait for each other, and the table grows while holding every lock*/
+public class TranspositionTable {
+	// entries of a bucket and number of locks of the buckets
+	private static final int BUCKET_SIZE = 4;
+	private static final int NUM_STRIPES = 64;
+	// entries of a new table, which has at least a bucket for each stripe
+	private static final int INITIAL_ENTRIES = 4096;
+	// visited cities, last city and length of the path of every entry, an empty
+	// entry has the last city -1. They are only used while holding a lock
+	private long[] visitedSets;
+	private byte[] lastCities;
+	private double[] pathLengths;
+	private int bucketMask;
+	// number of buckets the table can grow to
+	private int maxBuckets;
+	private Object[] locks;
+	private AtomicInteger numEntries;
+	private LongAdder numDominated;
+	private LongAdder numEvictions;
+
+	// create a table with room for about the given number of entries, rounded down
+	// to a power of two
+	public TranspositionTable(int maxEntries) {
+		this.maxBuckets = Math.max(NUM_STRIPES, Integer.highestOneBit(Math.max(1, maxEntries / BUCKET_SIZE)));
+		int numBuckets = Math.min(maxBuckets, Math.max(NUM_STRIPES, INITIAL_ENTRIES / BUCKET_SIZE));
+		allocate(numBuckets);
+		this.locks = new Object[NUM_STRIPES];
+		for (int stripe = 0; stripe < NUM_STRIPES; stripe++) {
+			locks[stripe] = new Object();
+		}
+		this.numEntries = new AtomicInteger();
+		this.numDominated = new LongAdder();
+		this.numEvictions = new LongAdder();
+	}
+
+	// create a table for the states of a problem, with at most the given number of
+	// entries and no more than the problem has states
+	public static TranspositionTable forCities(int numCities, int maxEntries) {
+		if (numCities - 1 < 30) {
+			long numStates = (long) numCities << Math.max(0, numCities - 1);
+			maxEntries = (int) Math.min(maxEntries, Math.max(BUCKET_SIZE, Long.highestOneBit(numStates) * 2));
+		}
+		return new TranspositionTable(maxEntries);
+	}
+
+	// create the empty entries of the given number of buckets
+	private void allocate(int numBuckets) {
+		visitedSets = new long[numBuckets * BUCKET_SIZE];
+		lastCities = new byte[numBuckets * BUCKET_SIZE];
+		pathLengths = new double[numBuckets * BUCKET_SIZE];
+		Arrays.fill(lastCities, (byte) -1);
+		bucketMask = numBuckets - 1;
+	}
+
+	/*
+	 * check if a path is dominated by the path of the table to the same cities and
+	 * last city, which is not longer. A path that is not dominated is stored in the
+	 * table, replacing a longer path to the same state or, when the bucket is full,
+	 * the entry with the most cities visited. The stripe only depends on the state,
+	 * so it stays the same when the table grows
+	 */
+	public boolean isDominated(long visited, int lastCity, double pathLength) {
+		int hash = hash(visited, lastCity);
+		boolean full;
+		synchronized (locks[hash & (NUM_STRIPES - 1)]) {
+			int start = (hash & bucketMask) * BUCKET_SIZE;
+			for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+				if (lastCities[slot] == lastCity && visitedSets[slot] == visited) {
+					if (pathLengths[slot] <= pathLength) {
+						numDominated.increment();
+						return true;
+					}
+					pathLengths[slot] = pathLength;
+					return false;
+				}
+			}
+			if (!store(start, visited, lastCity, pathLength)) {
+				return false;
+			}
+			full = numEntries.incrementAndGet() * 2 > lastCities.length && bucketMask + 1 < maxBuckets;
+		}
+		if (full) {
+			grow(0);
+		}
+		return false;
+	}
+
+	// store a state in a bucket that does not have it, in an empty entry or in place
+	// of the entry with the most cities visited, and return true when the entry was
+	// empty
+	private boolean store(int start, long visited, int lastCity, double pathLength) {
+		int replacedSlot = start;
+		int replacedDepth = -1;
+		for (int slot = start; slot < start + BUCKET_SIZE; slot++) {
+			int depth = lastCities[slot] == -1 ? Integer.MAX_VALUE : Long.bitCount(visitedSets[slot]);
+			if (depth > replacedDepth) {
+				replacedSlot = slot;
+				replacedDepth = depth;
+			}
+		}
+		boolean empty = lastCities[replacedSlot] == -1;
+		if (!empty) {
+			numEvictions.increment();
+		}
+		visitedSets[replacedSlot] = visited;
+		lastCities[replacedSlot] = (byte) lastCity;
+		pathLengths[replacedSlot] = pathLength;
+		return empty;
+	}
+
+	// take the locks of the stripes from the given one to the last one and double
+	// the buckets, unless another thread already did
+	private void grow(int stripe) {
+		if (stripe < NUM_STRIPES) {
+			synchronized (locks[stripe]) {
+				grow(stripe + 1);
+			}
+			return;
+		}
+		if (numEntries.get() * 2 <= lastCities.length || bucketMask + 1 >= maxBuckets) {
+			return;
+		}
+		long[] oldVisitedSets = visitedSets;
+		byte[] oldLastCities = lastCities;
+		double[] oldPathLengths = pathLengths;
+		allocate((bucketMask + 1) * 2);
+		int numStored = 0;
+		for (int slot = 0; slot < oldLastCities.length; slot++) {
+			if (oldLastCities[slot] != -1) {
+				int start = (hash(oldVisitedSets[slot], oldLastCities[slot]) & bucketMask) * BUCKET_SIZE;
+				if (store(start, oldVisitedSets[slot], oldLastCities[slot], oldPathLengths[slot])) {
+					numStored++;
+				}
+			}
+		}
+		numEntries.set(numStored);
+	}
+
+	// spread the bits of a state over the buckets of the table, mixing every bit of
+	// the state into the low bits so states that only differ in a few cities do not
+	// fill the same buckets
+	private static int hash(long visited, int lastCity) {
+		long hash = visited ^ ((long) lastCity << 58 | lastCity);
+		hash = (hash ^ (hash >>> 33)) * 0xFF51AFD7ED558CCDL;
+		hash = (hash ^ (hash >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return (int) (hash ^ (hash >>> 33));
+	}
+
+	// getters for the number of entries the table has now and can grow to, the
+	// number of paths found to be dominated and the number of entries replaced by
+	// other states
+	public int getCapacity() {
+		synchronized (locks[0]) {
+			return lastCities.length;
+		}
+	}
+
+	public int getMaxCapacity() {
+		return maxBuckets * BUCKET_SIZE;
+	}
+
+	public long getNumDominated() {
+		return numDominated.sum();
+	}
+
+	public long getNumEvictions() {
+		return numEvictions.sum();
+	}
+}
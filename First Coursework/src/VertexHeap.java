@@ -0,0 +1,100 @@
+import java.util.Arrays;
+
+/*this class stores vertices in a binary heap ordered by their cost, so the vertex with
+the lowest cost can be taken in logarithmic time. When two vertices have the same cost
+the one with the longest path is taken first to reach complete routes sooner*/
+public class VertexHeap {
+	// array with the heap of vertices
+	private static final int INITIAL_CAPACITY = 16;
+	private Vertex[] array;
+	private int size;
+
+	// create an empty heap with an initial capacity of 16 elements
+	public VertexHeap() {
+		array = new Vertex[INITIAL_CAPACITY];
+		size = 0;
+	}
+
+	// add a new vertex to the heap
+	public void add(Vertex vertex) {
+		if (size == array.length) {
+			// resize the array if it's full
+			Vertex[] newArray = new Vertex[array.length * 2];
+			System.arraycopy(array, 0, newArray, 0, size);
+			array = newArray;
+		}
+		// move the new vertex up while it is smaller than its parent
+		int index = size;
+		while (index > 0) {
+			int parentIndex = (index - 1) / 2;
+			if (!isSmaller(vertex, array[parentIndex])) {
+				break;
+			}
+			array[index] = array[parentIndex];
+			index = parentIndex;
+		}
+		array[index] = vertex;
+		size++;
+	}
+
+	// remove and return the vertex with the minimum cost
+	public Vertex poll() {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException("Heap is empty!!");
+		}
+		Vertex minVertex = array[0];
+		size--;
+		Vertex lastVertex = array[size];
+		array[size] = null; // set the last element to null
+		if (size > 0) {
+			// move the last vertex down from the top while a child is smaller
+			int index = 0;
+			int half = size / 2;
+			while (index < half) {
+				int childIndex = 2 * index + 1;
+				if (childIndex + 1 < size && isSmaller(array[childIndex + 1], array[childIndex])) {
+					childIndex++;
+				}
+				if (!isSmaller(array[childIndex], lastVertex)) {
+					break;
+				}
+				array[index] = array[childIndex];
+				index = childIndex;
+			}
+			array[index] = lastVertex;
+		}
+		return minVertex;
+	}
+
+	// get the vertex with the minimum cost without removing it
+	public Vertex peek() {
+		if (size == 0) {
+			throw new IndexOutOfBoundsException("Heap is empty!!");
+		}
+		return array[0];
+	}
+
+	// compare two vertices by cost and then by the length of their paths
+	private boolean isSmaller(Vertex vertex, Vertex otherVertex) {
+		if (vertex.getCost() != otherVertex.getCost()) {
+			return vertex.getCost() < otherVertex.getCost();
+		}
+		return vertex.getDepth() > otherVertex.getDepth();
+	}
+
+	// returns a copy of the vertices of the heap in the order of the heap, with
+	// room for more vertices at the end
+	public Vertex[] toArray(int extraSize) {
+		return Arrays.copyOf(array, size + extraSize);
+	}
+
+	// returns the actual size of the heap
+	public int getSize() {
+		return size;
+	}
+
+	// returns true if the heap has not elements
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
@@ -0,0 +1,569 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/*checks of the solver that are run without a test framework. Each check is a method
+that throws an exception when the solver does not do what it should, and every check
+is run even when one fails. The name of each check is printed with its result, and
+the program ends with a status that is not 0 when a check failed. They are run from
+the folder with the test files*/
+public class SolverTests {
+	private static final String[] TEST_FILES = { "test1-23.txt", "test2-23.txt", "test3-23.txt",
+			"test4-23.txt" };
+
+	// a check of the solver, which can throw any exception when it fails
+	private interface Check {
+		void run() throws Exception;
+	}
+
+	// names of the checks that failed
+	private static List<String> failures = new ArrayList<>();
+
+	// run a check and print if it passed, or why it failed
+	private static void check(String name, Check check) {
+		try {
+			check.run();
+			System.out.println("PASS " + name);
+		} catch (Exception | AssertionError error) {
+			failures.add(name);
+			System.out.println("FAIL " + name + ": " + error);
+		}
+	}
+
+	// throw an error with the message when the condition is false
+	private static void require(boolean condition, String message) {
+		if (!condition) {
+			throw new AssertionError(message);
+		}
+	}
+
+	// check that the default options prove the shortest route of every test file and
+	// that the route visits every city once
+	private static void defaultStrategySolvesTestFiles() throws IOException {
+		for (String fileName : TEST_FILES) {
+			SolverResult result = Main.solve(fileName, new SolverOptions());
+			require(result.isOptimal(), fileName + " stopped by " + result.getStopReason());
+			int numCities = ProblemFile.read(fileName).getCities().getSize();
+			boolean[] visited = new boolean[numCities];
+			for (int city : result.getPath()) {
+				require(!visited[city], fileName + " visits city " + city + " twice");
+				visited[city] = true;
+			}
+			require(result.getPath().length == numCities, fileName + " does not visit every city");
+		}
+	}
+
+	// check that a checkpoint that cannot be written on the thread of the writer is
+	// printed once, and that the last checkpoint of a stopped search throws. The
+	// file is in a folder that is a file, so it cannot be written even by root
+	private static void checkpointErrorsAreReported() throws IOException {
+		Path notFolder = Files.createTempFile("checkpoint", ".txt");
+		try {
+			CheckpointWriter writer = new CheckpointWriter(notFolder.resolve("search.ckpt").toString(), 1, 1);
+			ByteArrayOutputStream errors = new ByteArrayOutputStream();
+			writer.setErrorOutput(new PrintStream(errors, true));
+			SearchCheckpoint checkpoint = new SearchCheckpoint(1, 0, 0, 0, Double.POSITIVE_INFINITY, null,
+					new Vertex[0]);
+			writer.submit(checkpoint);
+			boolean thrown = false;
+			try {
+				writer.finish(checkpoint);
+			} catch (UncheckedIOException writeError) {
+				thrown = true;
+			}
+			require(thrown, "the last checkpoint did not throw");
+			String output = errors.toString();
+			require(output.contains("could not be written"), "the error was not printed");
+			require(output.indexOf("could not be written") == output.lastIndexOf("could not be written"),
+					"the error was printed more than once");
+		} finally {
+			Files.delete(notFolder);
+		}
+	}
+
+	// check that the city index table finds the same indexes as a map after random
+	// cities are added, moved to other indexes and removed, which moves back the
+	// cities after them
+	private static void cityIndexTableMatchesMap() {
+		Random random = new Random(23);
+		CityIndexTable table = new CityIndexTable(4);
+		Map<Integer, Integer> expected = new HashMap<>();
+		for (int step = 0; step < 100000; step++) {
+			int cityNumber = random.nextInt(500);
+			int operation = random.nextInt(3);
+			if (operation == 0) {
+				table.remove(cityNumber);
+				expected.remove(cityNumber);
+			} else if (operation == 1) {
+				table.put(cityNumber, step);
+				expected.put(cityNumber, step);
+			} else {
+				Integer index = expected.putIfAbsent(cityNumber, step);
+				require(table.putIfAbsent(cityNumber, step) == (index == null ? -1 : index),
+						"putIfAbsent of " + cityNumber + " at step " + step);
+			}
+			require(table.getSize() == expected.size(), "size at step " + step);
+		}
+		for (int cityNumber = 0; cityNumber < 500; cityNumber++) {
+			Integer index = expected.get(cityNumber);
+			require(table.get(cityNumber) == (index == null ? -1 : index), "index of " + cityNumber);
+		}
+	}
+
+	// check that the transposition table starts small, grows up to its size as
+	// states are stored and still finds most of the states stored before it grew.
+	// A full bucket replaces one of its states, so a few of them are lost
+	private static void transpositionTableGrows() {
+		TranspositionTable table = new TranspositionTable(1 << 15);
+		require(table.getCapacity() < table.getMaxCapacity(), "the table did not start small");
+		int numStates = 0;
+		for (int city = 0; city < 16; city++) {
+			for (long visited = 1; visited <= 1000; visited++) {
+				require(!table.isDominated(visited, city, 10.0), "a new state was dominated");
+				numStates++;
+			}
+		}
+		require(table.getCapacity() == table.getMaxCapacity(), "the table did not grow to its size");
+		int numFound = 0;
+		for (int city = 0; city < 16; city++) {
+			for (long visited = 1; visited <= 1000; visited++) {
+				if (table.isDominated(visited, city, 10.0)) {
+					numFound++;
+				}
+			}
+		}
+		require(numFound * 10 > numStates * 8, "only " + numFound + " of " + numStates + " states were kept");
+	}
+
+	// create a problem with cities at random coordinates between 0 and 50000, like
+	// the coordinates of the test files
+	private static CityStore randomCities(int numCities, long seed) {
+		Random random = new Random(seed);
+		int[] cityNumbers = new int[numCities];
+		int[] xPositions = new int[numCities];
+		int[] yPositions = new int[numCities];
+		for (int city = 0; city < numCities; city++) {
+			cityNumbers[city] = city + 1;
+			xPositions[city] = random.nextInt(50000);
+			yPositions[city] = random.nextInt(50000);
+		}
+		return new CityStore(cityNumbers, xPositions, yPositions);
+	}
+
+	/*
+	 * check that the kernel of the reduction bound gives exactly the same values as
+	 * the scalar kernel: the bounds of the initial city and the next city of the
+	 * last test file, and every loop on random matrices, including the largest ones
+	 * where the rows end exactly at the bits of a long. The kernel is the vector
+	 * kernel when it is compiled and the JVM has the Vector API, otherwise the check
+	 * compares the scalar kernel with itself
+	 */
+	private static void reductionKernelMatchesScalar() throws IOException {
+		ReductionKernel kernel = ReductionKernel.create();
+		DistanceMatrix testMatrix = DistanceMatrix.fromCities(CityFileReader.read(TEST_FILES[TEST_FILES.length - 1]));
+		SearchState scalarState = new SearchState(testMatrix, new ReductionBound(new ScalarReductionKernel()));
+		SearchState state = new SearchState(testMatrix, new ReductionBound(kernel));
+		for (int city = 0; city < 2; city++) {
+			scalarState.push(city);
+			state.push(city);
+			require(state.getCost() == scalarState.getCost(), "the bound differs at depth " + (city + 1));
+		}
+		for (int numCities : new int[] { 5, 17, SearchState.MAX_CITIES - 1, SearchState.MAX_CITIES }) {
+			checkKernel(kernel, numCities);
+		}
+	}
+
+	// compare every loop of a kernel with the scalar kernel on a random matrix of the
+	// given size, for every row and column with random open cells and reductions
+	private static void checkKernel(ReductionKernel kernel, int numCities) {
+		ReductionKernel scalarKernel = new ScalarReductionKernel();
+		DistanceMatrix distanceMatrix = DistanceMatrix.fromCities(randomCities(numCities, 23));
+		double[] distances = distanceMatrix.getDistances();
+		Random random = new Random(23);
+		double[] reductions = new double[2 * numCities];
+		for (int index = 0; index < reductions.length; index++) {
+			reductions[index] = random.nextInt(100);
+		}
+		long allCities = numCities == Long.SIZE ? -1L : (1L << numCities) - 1;
+		for (int city = 0; city < numCities; city++) {
+			long openCells = city % 2 == 0 ? allCities : random.nextLong() & allCities;
+			double[] scalarMinimums = new double[numCities];
+			double[] minimums = new double[numCities];
+			Arrays.fill(scalarMinimums, Double.POSITIVE_INFINITY);
+			Arrays.fill(minimums, Double.POSITIVE_INFINITY);
+			scalarKernel.columnMinimums(distances, numCities, reductions, city, openCells, scalarMinimums);
+			kernel.columnMinimums(distances, numCities, reductions, city, openCells, minimums);
+			double rowMinimum = kernel.rowMinimum(distances, numCities, reductions, city, openCells);
+			double scalarRowMinimum = scalarKernel.rowMinimum(distances, numCities, reductions, city, openCells);
+			double colMinimum = kernel.symmetricColumnMinimum(distances, numCities, reductions, city, openCells);
+			double scalarColMinimum = scalarKernel.symmetricColumnMinimum(distances, numCities, reductions, city,
+					openCells);
+			require(rowMinimum == scalarRowMinimum && colMinimum == scalarColMinimum
+					&& Arrays.equals(minimums, scalarMinimums),
+					"the kernel differs from the scalar kernel for " + numCities + " cities at city " + city);
+		}
+	}
+
+	/*
+	 * check the incremental solver against solving the changed problem again: it
+	 * moves cities of a random problem, removes cities down to one and adds cities
+	 * back. Every repaired route has to visit all the cities and be no shorter than
+	 * the shortest route, the routes of one and two cities are the only ones and
+	 * optimal, and a solver that re-proves its routes finds the shortest route
+	 */
+	private static void incrementalSolverMatchesFullSolve() {
+		SolverOptions options = new SolverOptions();
+		CityStore cities = randomCities(10, 23);
+		IncrementalSolver solver = new IncrementalSolver(Main.solve(cities, options), options);
+		IncrementalSolver reprovingSolver = new IncrementalSolver(Main.solve(cities, options), options);
+		reprovingSolver.setReprove(true);
+		Random random = new Random(23);
+		for (int step = 0; step < 5; step++) {
+			int cityNumber = cities.getCityNumber(random.nextInt(cities.getSize()));
+			int xPosition = random.nextInt(50000);
+			int yPosition = random.nextInt(50000);
+			checkIncrementalResult(solver.moveCity(cityNumber, xPosition, yPosition), cities.getSize(), false);
+			checkIncrementalResult(reprovingSolver.moveCity(cityNumber, xPosition, yPosition), cities.getSize(),
+					true);
+		}
+		for (int index = cities.getSize() - 1; index > 0; index--) {
+			checkIncrementalResult(solver.removeCity(cities.getCityNumber(index)), index, false);
+			checkIncrementalResult(reprovingSolver.removeCity(cities.getCityNumber(index)), index, true);
+		}
+		for (int numCities = 2; numCities <= 6; numCities++) {
+			int xPosition = random.nextInt(50000);
+			int yPosition = random.nextInt(50000);
+			checkIncrementalResult(solver.addCity(100 + numCities, xPosition, yPosition), numCities, false);
+			checkIncrementalResult(reprovingSolver.addCity(100 + numCities, xPosition, yPosition), numCities,
+					true);
+		}
+	}
+
+	// check a result of the incremental solver with the given number of cities
+	// against the shortest route of its cities
+	private static void checkIncrementalResult(SolverResult result, int numCities, boolean reprove) {
+		require(result.getPath().length == numCities && !Double.isInfinite(result.getCost()), "a route of "
+				+ result.getPath().length + " cities and cost " + result.getCost() + " for " + numCities + " cities");
+		double optimalCost = Main.solve(result.getCities(), new SolverOptions()).getCost();
+		require(result.getCost() >= optimalCost - 1e-6, "a route shorter than the shortest route");
+		if (numCities <= 2 || reprove) {
+			require(result.isOptimal() && Math.abs(result.getCost() - optimalCost) < 1e-6,
+					"the route of " + numCities + " cities is not the shortest route");
+		}
+	}
+
+	// check that parallel branch and bound finds the shortest route of every test file
+	// with every number of threads, with the same cost as best first search
+	private static void parallelSearchMatchesEveryThreadCount() throws IOException {
+		for (String fileName : TEST_FILES) {
+			ProblemFile problem = ProblemFile.read(fileName);
+			SolverOptions options = new SolverOptions();
+			options.setStrategy(Main.BEST_FIRST);
+			double optimalCost = Main.solve(problem.getCities(), options).getCost();
+			options.setStrategy(Main.PARALLEL);
+			for (int numThreads : new int[] { 1, 2, 3, 4, 8 }) {
+				options.setParallelism(numThreads);
+				SolverResult result = Main.solve(problem.getCities(), options);
+				require(result.isOptimal() && Math.abs(result.getCost() - optimalCost) < 1e-6, fileName + " with "
+						+ numThreads + " threads costs " + result.getCost() + " instead of " + optimalCost);
+			}
+		}
+	}
+
+	// check that Held-Karp finds routes as short as depth first branch and bound on
+	// the test files it can solve and on random problems of every size up to 16
+	private static void heldKarpMatchesBranchAndBound() throws IOException {
+		List<CityStore> problems = new ArrayList<>();
+		for (String fileName : TEST_FILES) {
+			CityStore cities = ProblemFile.read(fileName).getCities();
+			if (cities.getSize() <= 20) {
+				problems.add(cities);
+			}
+		}
+		for (int numCities = 3; numCities <= 16; numCities++) {
+			problems.add(randomCities(numCities, numCities));
+		}
+		SolverOptions heldKarpOptions = new SolverOptions();
+		heldKarpOptions.setStrategy(Main.HELD_KARP);
+		SolverOptions branchAndBoundOptions = new SolverOptions();
+		branchAndBoundOptions.setStrategy(Main.DEPTH_FIRST);
+		for (CityStore cities : problems) {
+			SolverResult heldKarpResult = Main.solve(cities, heldKarpOptions);
+			double optimalCost = Main.solve(cities, branchAndBoundOptions).getCost();
+			require(heldKarpResult.isOptimal() && Math.abs(heldKarpResult.getCost() - optimalCost) < 1e-6,
+					"Held-Karp costs " + heldKarpResult.getCost() + " instead of " + optimalCost + " for "
+							+ cities.getSize() + " cities");
+			require(Math.abs(cities.getRouteLength(heldKarpResult.getPath()) - heldKarpResult.getCost()) < 1e-6,
+					"the route of Held-Karp does not have its cost for " + cities.getSize() + " cities");
+		}
+	}
+
+	/*
+	 * check that the cache gives the shortest route of a problem to the same cities
+	 * in another order, with other numbers and all moved by the same amount, as a
+	 * route of the new cities with the optimal cost, and that a problem with one
+	 * city moved is not found
+	 */
+	private static void cacheRemapsShuffledCities() throws IOException {
+		SolutionCache cache = new SolutionCache(16, null);
+		SolverOptions options = new SolverOptions();
+		options.setCache(cache);
+		CityStore cities = randomCities(14, 23);
+		SolverResult result = Main.solve(cities, options);
+		int numCities = cities.getSize();
+		int[] order = new int[numCities];
+		for (int index = 0; index < numCities; index++) {
+			order[index] = (index * 5 + 3) % numCities;
+		}
+		int[] cityNumbers = new int[numCities];
+		int[] xPositions = new int[numCities];
+		int[] yPositions = new int[numCities];
+		for (int index = 0; index < numCities; index++) {
+			cityNumbers[index] = 1000 - index;
+			xPositions[index] = cities.getXPosition(order[index]) + 777;
+			yPositions[index] = cities.getYPosition(order[index]) - 55;
+		}
+		CityStore shuffledCities = new CityStore(cityNumbers, xPositions, yPositions);
+		SolverResult cachedResult = Main.solve(shuffledCities, options);
+		require(cache.getNumHits() == 1, "the shuffled cities were not found in the cache");
+		require(cachedResult.isOptimal() && cachedResult.getNodesExpanded() == 0, "the cached route was solved");
+		require(cachedResult.getPath().length == numCities, "the cached route does not visit every city");
+		require(Math.abs(shuffledCities.getRouteLength(cachedResult.getPath()) - result.getCost()) < 1e-6,
+				"the cached route costs " + shuffledCities.getRouteLength(cachedResult.getPath()) + " instead of "
+						+ result.getCost());
+		xPositions[0]++;
+		require(cache.get(new CityStore(cityNumbers, xPositions, yPositions)) == null,
+				"a problem with a moved city was found in the cache");
+	}
+
+	/*
+	 * check that a binary file keeps the cities, the closest cities and the distance
+	 * matrix of the last test file, that the binary file is solved like the text
+	 * file, and that a solution file gives back the route, cost and stop reason
+	 */
+	private static void binaryFilesRoundTrip() throws IOException {
+		Path folder = Files.createTempDirectory("binary");
+		String textFile = folder.resolve("test4.txt").toString();
+		Files.copy(Path.of(TEST_FILES[TEST_FILES.length - 1]), Path.of(textFile));
+		try {
+			CityStore cities = ProblemFile.read(textFile).getCities();
+			String binaryFile = Main.convertFile(textFile, 5, true);
+			ProblemFile problem = ProblemFile.read(binaryFile);
+			CityStore binaryCities = problem.getCities();
+			require(Arrays.equals(binaryCities.getCityNumbers(), cities.getCityNumbers())
+					&& Arrays.equals(binaryCities.getXPositions(), cities.getXPositions())
+					&& Arrays.equals(binaryCities.getYPositions(), cities.getYPositions()),
+					"the binary file has other cities");
+			require(Arrays.deepEquals(problem.getNeighbours(), new NeighbourDistances(cities, 5).getNeighbours()),
+					"the binary file has other closest cities");
+			DistanceMatrix distanceMatrix = DistanceMatrix.fromCities(cities);
+			for (int row = 0; row < cities.getSize(); row++) {
+				for (int col = 0; col < cities.getSize(); col++) {
+					require(problem.getDistanceMatrix().get(row, col) == distanceMatrix.get(row, col),
+							"the binary file has another distance from " + row + " to " + col);
+				}
+			}
+			SolverOptions options = new SolverOptions();
+			options.setWriteSolution(true);
+			SolverResult result = Main.solve(binaryFile, options);
+			require(Math.abs(result.getCost() - Main.solve(textFile, new SolverOptions()).getCost()) < 1e-6,
+					"the binary file is solved with another cost");
+			String solutionFile = BinaryCityFile.changeExtension(binaryFile, BinarySolutionFile.EXTENSION);
+			SolverResult readResult = BinarySolutionFile.read(solutionFile, binaryCities);
+			require(Arrays.equals(readResult.getPath(), result.getPath()) && readResult.getCost() == result.getCost()
+					&& readResult.isOptimal(), "the solution file has another result");
+			options.setWriteSolution(false);
+			options.setStrategy(Main.HEURISTIC);
+			SolverResult heuristicResult = Main.solve(binaryFile, options);
+			BinarySolutionFile.write(solutionFile, heuristicResult);
+			readResult = BinarySolutionFile.read(solutionFile, binaryCities);
+			require(heuristicResult.getStopReason().equals(readResult.getStopReason())
+					&& readResult.getLowerBound() == heuristicResult.getLowerBound(),
+					"the solution file has another stop reason or lower bound");
+		} finally {
+			try (Stream<Path> files = Files.list(folder)) {
+				for (Path file : (Iterable<Path>) files::iterator) {
+					Files.delete(file);
+				}
+			}
+			Files.delete(folder);
+		}
+	}
+
+	/*
+	 * check that TSPLIB files with explicit distances are read in every layout of a
+	 * symmetric matrix, and that a matrix that is not symmetric is kept as it is and
+	 * solved to the shortest route, which is found by trying every route
+	 */
+	private static void tsplibMatricesAreRead() throws IOException {
+		Random random = new Random(23);
+		int numCities = 7;
+		int[][] distances = new int[numCities][numCities];
+		for (int row = 0; row < numCities; row++) {
+			for (int col = row + 1; col < numCities; col++) {
+				distances[row][col] = 1 + random.nextInt(100);
+				distances[col][row] = distances[row][col];
+			}
+		}
+		String[] formats = { "FULL_MATRIX", "UPPER_ROW", "LOWER_ROW", "UPPER_DIAG_ROW", "LOWER_DIAG_ROW",
+				"UPPER_COL" };
+		for (String format : formats) {
+			DistanceMatrix distanceMatrix = readMatrix(distances, format, "TSP");
+			require(distanceMatrix.isSymmetric(), format + " is not read as symmetric");
+			requireDistances(distanceMatrix, distances, format);
+		}
+		for (int row = 0; row < numCities; row++) {
+			for (int col = 0; col < numCities; col++) {
+				if (row != col) {
+					distances[row][col] = 1 + random.nextInt(100);
+				}
+			}
+		}
+		Path file = writeMatrix(distances, "FULL_MATRIX", "ATSP");
+		try {
+			DistanceMatrix distanceMatrix = ProblemFile.read(file.toString()).getDistanceMatrix();
+			require(!distanceMatrix.isSymmetric(), "the asymmetric matrix is read as symmetric");
+			requireDistances(distanceMatrix, distances, "the asymmetric matrix");
+			double optimalCost = shortestRoute(distances, new boolean[numCities], 0, 1, 0.0);
+			for (String strategy : new String[] { Main.AUTO, Main.BEST_FIRST, Main.DEPTH_FIRST, Main.HELD_KARP }) {
+				SolverOptions options = new SolverOptions();
+				options.setStrategy(strategy);
+				SolverResult result = Main.solve(file.toString(), options);
+				require(result.isOptimal() && result.getCost() == optimalCost, strategy + " costs "
+						+ result.getCost() + " instead of " + optimalCost + " for the asymmetric matrix");
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	// write the distances to a TSPLIB file in a layout and read its distance matrix
+	private static DistanceMatrix readMatrix(int[][] distances, String format, String type) throws IOException {
+		Path file = writeMatrix(distances, format, type);
+		try {
+			return ProblemFile.read(file.toString()).getDistanceMatrix();
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	// write the distances to a temporary TSPLIB file in a layout, with a row of the
+	// layout on each line
+	private static Path writeMatrix(int[][] distances, String format, String type) throws IOException {
+		int numCities = distances.length;
+		StringBuilder lines = new StringBuilder();
+		lines.append("NAME: check\nTYPE: ").append(type).append("\nDIMENSION: ").append(numCities);
+		lines.append("\nEDGE_WEIGHT_TYPE: EXPLICIT\nEDGE_WEIGHT_FORMAT: ").append(format);
+		lines.append("\nEDGE_WEIGHT_SECTION\n");
+		boolean diagonal = format.contains("DIAG") || format.equals("FULL_MATRIX");
+		// the columns of a half are written as the rows of the other half, which are
+		// the same distances in a symmetric matrix
+		boolean upperRows = format.startsWith("UPPER") != format.endsWith("_COL");
+		for (int row = 0; row < numCities; row++) {
+			for (int col = 0; col < numCities; col++) {
+				boolean inHalf = upperRows ? col > row : col < row;
+				if (format.equals("FULL_MATRIX") || inHalf || (diagonal && col == row)) {
+					lines.append(row == col ? 0 : distances[row][col]).append(' ');
+				}
+			}
+			lines.append('\n');
+		}
+		lines.append("EOF\n");
+		Path file = Files.createTempFile("matrix", ".tsp");
+		Files.write(file, lines.toString().getBytes());
+		return file;
+	}
+
+	// check that a distance matrix has the given distances and infinity from a city
+	// to itself
+	private static void requireDistances(DistanceMatrix distanceMatrix, int[][] distances, String name) {
+		require(distanceMatrix.getSize() == distances.length, name + " has " + distanceMatrix.getSize() + " cities");
+		for (int row = 0; row < distances.length; row++) {
+			for (int col = 0; col < distances.length; col++) {
+				double expected = row == col ? Double.POSITIVE_INFINITY : distances[row][col];
+				require(distanceMatrix.get(row, col) == expected,
+						name + " has another distance from " + row + " to " + col);
+			}
+		}
+	}
+
+	// find the length of the shortest route that goes on from a city after visiting
+	// the given number of cities, by trying every order of the cities left
+	private static double shortestRoute(int[][] distances, boolean[] visited, int city, int numVisited,
+			double length) {
+		if (numVisited == distances.length) {
+			return length + distances[city][0];
+		}
+		visited[city] = true;
+		double shortest = Double.POSITIVE_INFINITY;
+		for (int nextCity = 1; nextCity < distances.length; nextCity++) {
+			if (!visited[nextCity]) {
+				double nextLength = length + distances[city][nextCity];
+				shortest = Math.min(shortest, shortestRoute(distances, visited, nextCity, numVisited + 1, nextLength));
+			}
+		}
+		visited[city] = false;
+		return shortest;
+	}
+
+	/*
+	 * check that best first search stopped by a limit writes a checkpoint, that
+	 * resuming from it finds the shortest route going on with the counts of the
+	 * first run, and that the checkpoint is deleted once the search is complete
+	 */
+	private static void checkpointStopAndResume() throws IOException {
+		CityStore cities = ProblemFile.read(TEST_FILES[2]).getCities();
+		double optimalCost = Main.solve(cities, new SolverOptions()).getCost();
+		Path checkpointFile = Files.createTempFile("search", ".ckpt");
+		Files.delete(checkpointFile);
+		try {
+			SolverOptions options = new SolverOptions();
+			options.setStrategy(Main.BEST_FIRST);
+			options.setBound(Main.REDUCTION_BOUND);
+			options.setCheckpointFile(checkpointFile.toString());
+			options.setNodeLimit(500);
+			SolverResult stoppedResult = Main.solve(cities, options);
+			require(!stoppedResult.isOptimal(), "the search was not stopped by the node limit");
+			require(Files.exists(checkpointFile), "the stopped search wrote no checkpoint");
+			options.setNodeLimit(0);
+			options.setResume(true);
+			SolverResult resumedResult = Main.solve(cities, options);
+			require(resumedResult.isOptimal() && Math.abs(resumedResult.getCost() - optimalCost) < 1e-6,
+					"the resumed search costs " + resumedResult.getCost() + " instead of " + optimalCost);
+			require(resumedResult.getNodesExpanded() > stoppedResult.getNodesExpanded(),
+					"the resumed search did not go on from the counts of the checkpoint");
+			require(!Files.exists(checkpointFile), "the checkpoint of the complete search was not deleted");
+		} finally {
+			Files.deleteIfExists(checkpointFile);
+		}
+	}
+
+	public static void main(String[] args) {
+		check("default strategy solves the test files", SolverTests::defaultStrategySolvesTestFiles);
+		check("checkpoint errors are reported", SolverTests::checkpointErrorsAreReported);
+		check("city index table matches a map", SolverTests::cityIndexTableMatchesMap);
+		check("transposition table grows", SolverTests::transpositionTableGrows);
+		check("reduction kernel matches the scalar kernel", SolverTests::reductionKernelMatchesScalar);
+		check("incremental solver matches a full solve", SolverTests::incrementalSolverMatchesFullSolve);
+		check("parallel search matches every thread count", SolverTests::parallelSearchMatchesEveryThreadCount);
+		check("Held-Karp matches branch and bound", SolverTests::heldKarpMatchesBranchAndBound);
+		check("cache remaps shuffled cities", SolverTests::cacheRemapsShuffledCities);
+		check("binary files round trip", SolverTests::binaryFilesRoundTrip);
+		check("TSPLIB matrices are read", SolverTests::tsplibMatricesAreRead);
+		check("checkpoint stop and resume", SolverTests::checkpointStopAndResume);
+		if (!failures.isEmpty()) {
+			System.out.println(failures.size() + " checks failed");
+			System.exit(1);
+		}
+	}
+}
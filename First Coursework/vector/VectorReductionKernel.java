@@ -0,0 +1,108 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*kernel of the reduction bound that works on as many cells of a row at once as the
+vector registers of the processor hold. The bits of the open columns become the
+mask of the lanes and the closed cells are replaced by infinity, so there is no
+branch for each cell. The cells at the end of a row that do not fill a vector are
+done one at a time like the scalar kernel does. Every lane does the same
+subtractions as the scalar kernel in the same order and the minimum does not depend
+on the order of the cells, so both kernels give exactly the same bounds.
+This class needs the incubator module of the Vector API to compile and to run*/
+public class VectorReductionKernel implements ReductionKernel {
+	// vectors of at most 8 lanes, which keeps the table of the masks small
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED.length() > 8
+			? DoubleVector.SPECIES_512
+			: DoubleVector.SPECIES_PREFERRED;
+	private static final int LANES = SPECIES.length();
+	// bits of the open cells of a vector
+	private static final long PATTERN_BITS = (1L << LANES) - 1;
+	// closed lanes of every pattern of the open bits of a vector, one after the
+	// other, so the mask of a pattern is loaded at once instead of being built from
+	// the bits. It is loaded in every loop, because a method returning the mask is
+	// not always inlined and then the mask is allocated
+	private static final boolean[] CLOSED_LANES = closedLanesTable();
+
+	@Override
+	public double rowMinimum(double[] distances, int numCities, double[] reductions, int row, long openCols) {
+		int rowStart = row * numCities;
+		double rowReduction = reductions[row];
+		DoubleVector minInRow = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+		int col = 0;
+		for (; col <= numCities - LANES; col += LANES) {
+			VectorMask<Double> closed = VectorMask.fromArray(SPECIES, CLOSED_LANES,
+					(int) (openCols >>> col & PATTERN_BITS) * LANES);
+			DoubleVector reduced = DoubleVector.fromArray(SPECIES, distances, rowStart + col).sub(rowReduction)
+					.sub(DoubleVector.fromArray(SPECIES, reductions, numCities + col));
+			minInRow = minInRow.min(reduced.blend(Double.POSITIVE_INFINITY, closed));
+		}
+		double minimum = minInRow.reduceLanes(VectorOperators.MIN);
+		for (long cols = remainingBits(openCols, col); cols != 0; cols &= cols - 1) {
+			int tailCol = col + Long.numberOfTrailingZeros(cols);
+			minimum = Math.min(minimum, distances[rowStart + tailCol] - rowReduction - reductions[numCities + tailCol]);
+		}
+		return minimum;
+	}
+
+	@Override
+	public void columnMinimums(double[] distances, int numCities, double[] reductions, int row, long openCols,
+			double[] minInCols) {
+		int rowStart = row * numCities;
+		double rowReduction = reductions[row];
+		int col = 0;
+		for (; col <= numCities - LANES; col += LANES) {
+			VectorMask<Double> closed = VectorMask.fromArray(SPECIES, CLOSED_LANES,
+					(int) (openCols >>> col & PATTERN_BITS) * LANES);
+			DoubleVector reduced = DoubleVector.fromArray(SPECIES, distances, rowStart + col).sub(rowReduction)
+					.sub(DoubleVector.fromArray(SPECIES, reductions, numCities + col));
+			DoubleVector minimums = DoubleVector.fromArray(SPECIES, minInCols, col);
+			minimums.min(reduced.blend(Double.POSITIVE_INFINITY, closed)).intoArray(minInCols, col);
+		}
+		for (long cols = remainingBits(openCols, col); cols != 0; cols &= cols - 1) {
+			int tailCol = col + Long.numberOfTrailingZeros(cols);
+			minInCols[tailCol] = Math.min(minInCols[tailCol],
+					distances[rowStart + tailCol] - rowReduction - reductions[numCities + tailCol]);
+		}
+	}
+
+	@Override
+	public double symmetricColumnMinimum(double[] distances, int numCities, double[] reductions, int col,
+			long openRows) {
+		int colStart = col * numCities;
+		double colReduction = reductions[numCities + col];
+		DoubleVector minInCol = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+		int row = 0;
+		for (; row <= numCities - LANES; row += LANES) {
+			VectorMask<Double> closed = VectorMask.fromArray(SPECIES, CLOSED_LANES,
+					(int) (openRows >>> row & PATTERN_BITS) * LANES);
+			DoubleVector reduced = DoubleVector.fromArray(SPECIES, distances, colStart + row)
+					.sub(DoubleVector.fromArray(SPECIES, reductions, row)).sub(colReduction);
+			minInCol = minInCol.min(reduced.blend(Double.POSITIVE_INFINITY, closed));
+		}
+		double minimum = minInCol.reduceLanes(VectorOperators.MIN);
+		for (long rows = remainingBits(openRows, row); rows != 0; rows &= rows - 1) {
+			int tailRow = row + Long.numberOfTrailingZeros(rows);
+			minimum = Math.min(minimum, distances[colStart + tailRow] - reductions[tailRow] - colReduction);
+		}
+		return minimum;
+	}
+
+	// bits of the cells left after the vectors, none when the vectors reached the
+	// end of a row of 64 cities, as a shift by 64 would not shift at all
+	private static long remainingBits(long bits, int start) {
+		return start < Long.SIZE ? bits >>> start : 0L;
+	}
+
+	// create the closed lanes of every pattern of open bits
+	private static boolean[] closedLanesTable() {
+		boolean[] table = new boolean[(1 << LANES) * LANES];
+		for (int pattern = 0; pattern < 1 << LANES; pattern++) {
+			for (int lane = 0; lane < LANES; lane++) {
+				table[pattern * LANES + lane] = (pattern & (1 << lane)) == 0;
+			}
+		}
+		return table;
+	}
+}